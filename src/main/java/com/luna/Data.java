@@ -24,7 +24,7 @@ import java.util.Map;
 
 import com.luna.data.LWJGLVersions;
 import com.luna.data.News;
-import com.luna.data.Pack;
+import com.luna.data.PackCatalogue;
 import com.luna.data.Server;
 import com.luna.data.minecraft.JavaRuntimes;
 import com.luna.data.minecraft.VersionManifestVersion;
@@ -36,7 +36,7 @@ public final class Data {
 
     public static final List<News> NEWS = new LinkedList<>();
 
-    public static final List<Pack> PACKS = new LinkedList<>();
+    public static volatile PackCatalogue PACKS = PackCatalogue.EMPTY;
 
     public static final Map<String, VersionManifestVersion> MINECRAFT = new HashMap<>();
     public static LWJGLVersions LWJGL_VERSIONS = null;
@@ -36,10 +36,21 @@ public final class FileSystem {
     public static final Path JRE = BASE_DIR.resolve("jre");
     public static final Path LOGS = BASE_DIR.resolve("logs");
     public static final Path BACKUPS = BASE_DIR.resolve("backups");
+    public static final Path INCREMENTAL_BACKUPS = BACKUPS.resolve("incremental");
     public static final Path CACHE = BASE_DIR.resolve("cache");
     public static final Path APOLLO_CACHE = CACHE.resolve("apolloCache");
     public static final Path REMOTE_IMAGE_CACHE = CACHE.resolve("remote_image");
     public static final Path FRACTURISER_SCANNED_HASHES = CACHE.resolve("fracturiser_scanned_hashes.json");
+    public static final Path FILE_HASH_INDEX = CACHE.resolve("file_hash_index.json");
+    public static final Path HASH_LOOKUP_CACHE = CACHE.resolve("hash_lookups.json");
+    public static final Path MOD_METADATA_CACHE = CACHE.resolve("mod_metadata.json");
+    public static final Path JAVA_INVENTORY = CACHE.resolve("java_inventory.json");
+    public static final Path ASSET_INDEX_CACHE = CACHE.resolve("asset_indexes");
+    public static final Path PARTIAL_DOWNLOADS = CACHE.resolve("partial_downloads");
+    public static final Path NATIVES_CACHE = CACHE.resolve("natives");
+    public static final Path INSTANCES_SNAPSHOT = CACHE.resolve("instances.snapshot");
+    public static final Path PROCESSOR_CACHE = CACHE.resolve("processors");
+    public static final Path LAUNCH_FINGERPRINTS = CACHE.resolve("launch_fingerprints");
     public static final Path LOADERS = BASE_DIR.resolve("loaders");
     public static final Path RUNTIMES = BASE_DIR.resolve("runtimes");
     public static final Path MINECRAFT_RUNTIMES = RUNTIMES.resolve("minecraft");
@@ -61,6 +72,10 @@ public final class FileSystem {
 
     public static final Path LIBRARIES = BASE_DIR.resolve("libraries");
 
+    public static final Path STORE = BASE_DIR.resolve("store");
+    public static final Path STORE_OBJECTS = STORE.resolve("objects");
+    public static final Path STORE_REFERENCES = STORE.resolve("references.json");
+
     public static final Path DOWNLOADS = BASE_DIR.resolve("downloads");
     public static final Path TECHNIC_DOWNLOADS = DOWNLOADS.resolve("technic");
     public static final Path INSTANCES = BASE_DIR.resolve("instances");
@@ -72,6 +87,7 @@ public final class FileSystem {
     public static final Path LAUNCHER_CONFIG = CONFIGS.resolve(Constants.LAUNCHER_NAME + ".conf");
     public static final Path SETTINGS = CONFIGS.resolve(Constants.LAUNCHER_NAME + ".json");
     public static final Path ACCOUNTS = CONFIGS.resolve("accounts.json");
+    public static final Path MIRRORS = CONFIGS.resolve("mirrors.json");
 
     /**
      * This will organise the file system. This will remove old folders, create
@@ -261,6 +277,9 @@ public final class FileSystem {
         FileUtils.createDirectory(RESOURCES_VIRTUAL);
         FileUtils.createDirectory(RESOURCES_VIRTUAL_LEGACY);
 
+        FileUtils.createDirectory(STORE);
+        FileUtils.createDirectory(STORE_OBJECTS);
+
         FileUtils.createDirectory(DOWNLOADS);
         FileUtils.createDirectory(TECHNIC_DOWNLOADS);
         FileUtils.createDirectory(FAILED_DOWNLOADS);
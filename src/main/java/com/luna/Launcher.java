@@ -67,7 +67,9 @@ import com.luna.managers.TechnicModpackUpdateManager;
 import com.luna.network.Analytics;
 import com.luna.network.DownloadPool;
 import com.luna.network.GraphqlClient;
+import com.luna.network.ProgressAggregator;
 import com.luna.network.analytics.AnalyticsEvent;
+import com.luna.utils.ContentStore;
 import com.luna.utils.Java;
 import com.luna.utils.OS;
 import com.google.gson.JsonIOException;
@@ -97,6 +99,8 @@ public class Launcher {
 
     public void loadEverything() {
         PerformanceManager.start();
+        Network.prewarmConnections();
+
         if (hasUpdatedFiles()) {
             downloadUpdatedFiles(); // Downloads updated files on the server
         }
@@ -139,6 +143,8 @@ public class Launcher {
 
         PackManager.removeUnusedImages(); // remove unused pack images
 
+        App.TASKPOOL.execute(ContentStore::collectGarbage); // remove files no instance uses from the content store
+
         if (OS.isWindows() && !Java.is64Bit() && OS.is64Bit()) {
             LogManager.warn("You're using 32 bit Java on a 64 bit Windows install!");
 
@@ -286,14 +292,16 @@ public class Launcher {
                 GetText.tr("Downloading Updates"));
         progressDialog.addThread(new Thread(() -> {
             DownloadPool pool = new DownloadPool();
-            OkHttpClient httpClient = Network.createProgressClient(progressDialog);
+            ProgressAggregator downloadProgress = ProgressAggregator.forwardingTo(progressDialog);
+            OkHttpClient httpClient = Network.createProgressClient(downloadProgress);
             pool.addAll(
                     getLauncherFiles().stream().map(dl -> dl.withHttpClient(httpClient)).collect(Collectors.toList()));
             DownloadPool smallPool = pool.downsize();
 
-            progressDialog.setTotalBytes(smallPool.totalSize());
+            downloadProgress.setTotalBytes(smallPool.totalSize());
 
             pool.downloadAll();
+            downloadProgress.flush();
             progressDialog.doneTask();
             progressDialog.close();
         }));
@@ -17,9 +17,11 @@
  */
 package com.luna;
 
+import java.io.IOException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,23 +37,43 @@ import com.apollographql.apollo.ApolloClientAwarenessInterceptor;
 import com.luna.constants.Constants;
 import com.luna.interfaces.NetworkProgressable;
 import com.luna.listener.ProgressListener;
+import com.luna.managers.LogManager;
 import com.luna.network.DebugLoggingInterceptor;
+import com.luna.network.DownloadScheduler;
 import com.luna.network.ErrorReportingInterceptor;
+import com.luna.network.HostStats;
 import com.luna.network.UserAgentInterceptor;
 import com.luna.utils.Java;
 import com.luna.utils.OS;
 import com.luna.utils.ProgressResponseBody;
 
 import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Protocol;
+import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.tls.HandshakeCertificates;
 
 public final class Network {
     public static Cache CACHE = new Cache(FileSystem.CACHE.toFile(), 100 * 1024 * 1024); // 100MB cache
 
-    public static OkHttpClient CLIENT = new OkHttpClient.Builder().protocols(Arrays.asList(Protocol.HTTP_1_1))
+    // HTTP/2 is used with servers that support it, so requests to the same host share the one connection
+    private static final List<Protocol> PROTOCOLS = Boolean
+            .parseBoolean(System.getProperty("com.luna.Network.http2", "true"))
+                    ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                    : Arrays.asList(Protocol.HTTP_1_1);
+
+    // shared by every client, so a connection opened by one (such as when pre-warming) can be used by all of them
+    public static final ConnectionPool CONNECTION_POOL = new ConnectionPool(32, 5, TimeUnit.MINUTES);
+    public static final Dispatcher DISPATCHER = createDispatcher();
+
+    public static OkHttpClient CLIENT = new OkHttpClient.Builder().protocols(PROTOCOLS)
+            .connectionPool(CONNECTION_POOL).dispatcher(DISPATCHER).eventListenerFactory(HostStats.FACTORY)
             .addNetworkInterceptor(new UserAgentInterceptor()).addInterceptor(new DebugLoggingInterceptor())
             .addNetworkInterceptor(new ErrorReportingInterceptor())
             .connectTimeout(App.settings.connectionTimeout, TimeUnit.SECONDS)
@@ -97,6 +119,46 @@ public final class Network {
                 .writeTimeout(App.settings.connectionTimeout, TimeUnit.SECONDS).build();
     }
 
+    /**
+     * Opens connections in the background to the hosts the launcher talks to the most, so the first requests made to
+     * them don't have to wait on DNS lookups and TLS handshakes. Failures are ignored, since this is only a head
+     * start for requests that will be made anyway.
+     */
+    public static void prewarmConnections() {
+        List<String> urls = Arrays.asList(Constants.MINECRAFT_RESOURCES, Constants.MINECRAFT_LIBRARIES,
+                Constants.LAUNCHER_META_MINECRAFT, Constants.DOWNLOAD_SERVER, Constants.CURSEFORGE_CORE_API_URL,
+                Constants.MODRINTH_API_URL);
+
+        for (String url : urls) {
+            HttpUrl httpUrl = HttpUrl.parse(url);
+
+            if (httpUrl == null) {
+                continue;
+            }
+
+            Request request = new Request.Builder().url(httpUrl.newBuilder().encodedPath("/").build()).head().build();
+
+            CLIENT.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    LogManager.debug("Failed to pre-warm connection to " + httpUrl.host() + ": " + e.getMessage(), 3);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                }
+            });
+        }
+    }
+
+    private static Dispatcher createDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(DownloadScheduler.MAX_CONNECTIONS_PER_HOST);
+
+        return dispatcher;
+    }
+
     public static OkHttpClient createProgressClient(final NetworkProgressable progressable) {
         final ProgressListener progressListener = (bytesRead, contentLength, done) -> {
             if (bytesRead > 0 && progressable != null) {
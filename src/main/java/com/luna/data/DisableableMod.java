@@ -36,8 +36,7 @@ import org.mini2Dx.gettext.GetText;
 import com.luna.App;
 import com.luna.data.curseforge.CurseForgeFile;
 import com.luna.data.curseforge.CurseForgeProject;
-import com.luna.data.minecraft.FabricMod;
-import com.luna.data.minecraft.MCMod;
+import com.luna.data.minecraft.ModMetadata;
 import com.luna.data.modrinth.ModrinthProject;
 import com.luna.data.modrinth.ModrinthVersion;
 import com.luna.exceptions.InvalidMinecraftVersion;
@@ -50,6 +49,7 @@ import com.luna.managers.MinecraftManager;
 import com.luna.network.Analytics;
 import com.luna.network.analytics.AnalyticsEvent;
 import com.luna.utils.CurseForgeApi;
+import com.luna.utils.ModIntrospector;
 import com.luna.utils.ModrinthApi;
 import com.luna.utils.Pair;
 import com.luna.utils.Utils;
@@ -552,6 +552,11 @@ public class DisableableMod implements Serializable {
     }
 
     public static DisableableMod generateMod(File file, com.luna.data.Type type, boolean enabled) {
+        return generateMod(file, type, enabled, ModIntrospector.introspect(file.toPath()));
+    }
+
+    public static DisableableMod generateMod(File file, com.luna.data.Type type, boolean enabled,
+            ModMetadata metadata) {
         DisableableMod mod = new DisableableMod();
         mod.disabled = !enabled;
         mod.userAdded = true;
@@ -559,23 +564,9 @@ public class DisableableMod implements Serializable {
         mod.file = file.getName();
         mod.type = type;
         mod.optional = true;
-        mod.name = file.getName();
-        mod.version = "Unknown";
-        mod.description = null;
-
-        MCMod mcMod = Utils.getMCModForFile(file);
-        if (mcMod != null) {
-            mod.name = Optional.ofNullable(mcMod.name).orElse(file.getName());
-            mod.version = Optional.ofNullable(mcMod.version).orElse("Unknown");
-            mod.description = Optional.ofNullable(mcMod.description).orElse(null);
-        } else {
-            FabricMod fabricMod = Utils.getFabricModForFile(file);
-            if (fabricMod != null) {
-                mod.name = Optional.ofNullable(fabricMod.name).orElse(file.getName());
-                mod.version = Optional.ofNullable(fabricMod.version).orElse("Unknown");
-                mod.description = Optional.ofNullable(fabricMod.description).orElse(null);
-            }
-        }
+        mod.name = Optional.ofNullable(metadata.name).orElse(file.getName());
+        mod.version = Optional.ofNullable(metadata.version).orElse("Unknown");
+        mod.description = metadata.description;
         return mod;
     }
 }
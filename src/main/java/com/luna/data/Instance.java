@@ -20,20 +20,16 @@ package com.luna.data;
 import java.awt.BorderLayout;
 import java.awt.Dialog.ModalityType;
 import java.awt.Dimension;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.RenderingHints;
 import java.awt.Window;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -43,21 +39,23 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.imageio.IIOException;
-import javax.imageio.ImageIO;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
@@ -94,7 +92,8 @@ import com.luna.data.curseforge.pack.CurseForgeMinecraft;
 import com.luna.data.curseforge.pack.CurseForgeModLoader;
 import com.luna.data.installables.Installable;
 import com.luna.data.installables.VanillaInstallable;
-import com.luna.data.minecraft.AssetIndex;
+import com.luna.data.minecraft.CompactAssetIndex;
+import com.luna.data.minecraft.ExtractRule;
 import com.luna.data.minecraft.JavaRuntime;
 import com.luna.data.minecraft.JavaRuntimeManifest;
 import com.luna.data.minecraft.JavaRuntimeManifestFileType;
@@ -102,6 +101,7 @@ import com.luna.data.minecraft.JavaRuntimes;
 import com.luna.data.minecraft.Library;
 import com.luna.data.minecraft.LoggingFile;
 import com.luna.data.minecraft.MinecraftVersion;
+import com.luna.data.minecraft.ModMetadata;
 import com.luna.data.minecraft.MojangAssetIndex;
 import com.luna.data.minecraft.VersionManifestVersion;
 import com.luna.data.minecraft.VersionManifestVersionType;
@@ -151,21 +151,29 @@ import com.luna.managers.TechnicModpackUpdateManager;
 import com.luna.mclauncher.MCLauncher;
 import com.luna.network.Analytics;
 import com.luna.network.DownloadPool;
+import com.luna.network.DownloadScheduler;
 import com.luna.network.GraphqlClient;
+import com.luna.network.ProgressAggregator;
 import com.luna.network.analytics.AnalyticsEvent;
 import com.luna.utils.ArchiveUtils;
+import com.luna.utils.BackupStore;
 import com.luna.utils.ComboItem;
 import com.luna.utils.CommandExecutor;
 import com.luna.utils.CurseForgeApi;
 import com.luna.utils.CurseForgeUtils;
+import com.luna.utils.FileHashIndex;
 import com.luna.utils.FileUtils;
 import com.luna.utils.Hashing;
+import com.luna.utils.ImageCache;
 import com.luna.utils.Java;
+import com.luna.utils.ModIntrospector;
 import com.luna.utils.ModrinthApi;
+import com.luna.utils.NativesCache;
 import com.luna.utils.OS;
 import com.luna.utils.Pair;
 import com.luna.utils.SecurityUtils;
 import com.luna.utils.Utils;
+import com.luna.utils.ZipExporter;
 import com.luna.utils.ZipNameMapper;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonIOException;
@@ -290,49 +298,54 @@ public class Instance extends MinecraftVersion {
     }
 
     public ImageIcon getImage() {
-        File customImage = this.getRoot().resolve("instance.png").toFile();
+        Path customImage = this.getRoot().resolve("instance.png");
 
-        if (customImage.exists()) {
-            try {
-                BufferedImage img = ImageIO.read(customImage);
-                if (img != null) {
-                    // if a square image, then make it 300x150 (without stretching) centered
-                    if (img.getHeight(null) == img.getWidth(null)) {
-                        BufferedImage dimg = new BufferedImage(300, 150, BufferedImage.TYPE_INT_ARGB);
-
-                        Graphics2D g2d = dimg.createGraphics();
-                        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                        g2d.drawImage(img, 75, 0, 150, 150, null);
-                        g2d.dispose();
-
-                        return new ImageIcon(dimg);
-                    }
+        if (Files.exists(customImage)) {
+            ImageIcon image = ImageCache.get(customImage, 300, 150);
 
-                    return new ImageIcon(img.getScaledInstance(300, 150, Image.SCALE_SMOOTH));
-                }
-            } catch (IIOException e) {
-                LogManager.warn("Error creating scaled image from the custom image of instance " + this.launcher.name
-                        + ". Using default image.");
-            } catch (Exception e) {
-                LogManager.logStackTrace(
-                        "Error creating scaled image from the custom image of instance " + this.launcher.name, e,
-                        false);
+            if (image != null) {
+                return image;
             }
         }
 
         if (getPack() != null) {
-            File instancesImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png")
-                    .toFile();
+            Path packImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png");
 
-            if (instancesImage.exists()) {
-                return Utils.getIconImage(instancesImage);
+            if (Files.exists(packImage)) {
+                ImageIcon image = ImageCache.get(packImage, 0, 0);
+
+                if (image != null) {
+                    return image;
+                }
             }
         }
 
         return Utils.getIconImage("/assets/image/default-image.png");
     }
 
+    /**
+     * Gets the image for this instance without waiting for it to be read if it's not already cached. Until then the
+     * default image is returned, and the real image is passed to the callback on the EDT once it's ready.
+     */
+    public ImageIcon getImage(Consumer<ImageIcon> onLoaded) {
+        ImageIcon defaultImage = Utils.getIconImage("/assets/image/default-image.png");
+        Path customImage = this.getRoot().resolve("instance.png");
+
+        if (Files.exists(customImage)) {
+            return ImageCache.getOrLoad(customImage, 300, 150, defaultImage, onLoaded);
+        }
+
+        if (getPack() != null) {
+            Path packImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png");
+
+            if (Files.exists(packImage)) {
+                return ImageCache.getOrLoad(packImage, 0, 0, defaultImage, onLoaded);
+            }
+        }
+
+        return defaultImage;
+    }
+
     public void ignoreUpdate() {
         String version;
 
@@ -434,8 +447,159 @@ public class Instance extends MinecraftVersion {
      */
     public boolean prepareForLaunch(ProgressDialog progressDialog, Path nativesTempDir, Path lwjglNativesTempDir) {
         PerformanceManager.start();
-        OkHttpClient httpClient = Network.createProgressClient(progressDialog);
+        ProgressAggregator downloadProgress = ProgressAggregator.forwardingTo(progressDialog);
+        OkHttpClient httpClient = Network.createProgressClient(downloadProgress);
+
+        boolean upToDate = LaunchFingerprint.isUpToDate(getUUID(), getLaunchFingerprintKey());
+        List<Path> launchFiles = new ArrayList<>();
+        List<Path> unverifiedFiles = new ArrayList<>();
+
+        if (upToDate) {
+            LogManager.info("Nothing has changed since this instance was last prepared, skipping checking its files");
+
+            // manifest, Minecraft, logging config, libraries and runtime
+            for (int i = 0; i < 5; i++) {
+                progressDialog.doneTask();
+            }
+        } else if (!downloadLaunchFiles(progressDialog, downloadProgress, httpClient, launchFiles,
+                unverifiedFiles)) {
+            return false;
+        }
+
+        // assets are checked every time, since they're shared between instances and copied into some of them, so
+        // they can go missing without anything about this instance changing
+        if (!organiseAssets(progressDialog, downloadProgress, httpClient)) {
+            return false;
+        }
+
+        progressDialog.doneTask();
+
+        progressDialog.setLabel(GetText.tr("Organising Libraries"));
+
+        // extract natives to a temp dir
+        PerformanceManager.start("Extracting Natives");
+        boolean useSystemGlfw = Optional.ofNullable(launcher.useSystemGlfw).orElse(App.settings.useSystemGlfw);
+        boolean useSystemOpenAl = Optional.ofNullable(launcher.useSystemOpenAl).orElse(App.settings.useSystemOpenAl);
+        List<Pair<Path, ExtractRule>> nativeJars = this.libraries.stream().filter(Library::shouldInstall)
+                .map(l -> LWJGLManager.shouldReplaceLWJGL3(this)
+                        ? LWJGLManager.getReplacementLWJGL3Library(this, l)
+                        : l)
+                .filter(library -> {
+                    if (!library.hasNativeForOS()) {
+                        return false;
+                    }
+
+                    if (library.name.contains("glfw") && useSystemGlfw) {
+                        LogManager.warn("useSystemGlfw was enabled, not using glfw natives from Minecraft");
+                        return false;
+                    }
+
+                    if (library.name.contains("openal") && useSystemOpenAl) {
+                        LogManager.warn("useSystemOpenAl was enabled, not using openal natives from Minecraft");
+                        return false;
+                    }
+
+                    return true;
+                })
+                .map(library -> new Pair<>(FileSystem.LIBRARIES.resolve(library.getNativeDownloadForOS().path),
+                        library.extract))
+                .collect(Collectors.toList());
 
+        NativesCache.extractTo(nativeJars, nativesTempDir);
+
+        progressDialog.doneTask();
+        PerformanceManager.end("Extracting Natives");
+
+        if (LWJGLManager.shouldUseLegacyLWJGL(this)) {
+            PerformanceManager.start("Extracting Legacy LWJGL");
+            progressDialog.setLabel(GetText.tr("Extracting Legacy LWJGL"));
+
+            LWJGLLibrary library = LWJGLManager.getLegacyLWJGLLibrary();
+
+            if (library != null) {
+                com.luna.network.Download download = new com.luna.network.Download().setUrl(library.url)
+                        .downloadTo(FileSystem.LIBRARIES.resolve(library.path)).unzipTo(lwjglNativesTempDir)
+                        .hash(library.sha1).size(library.size).withHttpClient(httpClient);
+
+                if (download.needToDownload()) {
+                    downloadProgress.setTotalBytes(library.size);
+
+                    try {
+                        download.downloadFile();
+                    } catch (IOException e) {
+                        LogManager.logStackTrace(e);
+                    }
+                } else {
+                    download.runPostProcessors();
+                }
+            }
+
+            progressDialog.doneTask();
+            PerformanceManager.end("Extracting Legacy LWJGL");
+        }
+
+        if (usesCustomMinecraftJar()) {
+            PerformanceManager.start("Creating custom minecraft.jar");
+            progressDialog.setLabel(GetText.tr("Creating custom minecraft.jar"));
+
+            if (Files.exists(getCustomMinecraftJarLibraryPath())) {
+                FileUtils.delete(getCustomMinecraftJarLibraryPath());
+            }
+
+            if (!Utils.combineJars(getMinecraftJar(), getRoot().resolve("bin/modpack.jar").toFile(),
+                    getCustomMinecraftJar())) {
+                LogManager.error("Failed to combine jars into custom minecraft.jar");
+                PerformanceManager.end("Creating custom minecraft.jar");
+                PerformanceManager.end();
+                return false;
+            }
+            PerformanceManager.end("Creating custom minecraft.jar");
+        }
+        progressDialog.doneTask();
+
+        // mods are part of the fingerprint, so if it's up to date they were already scanned last time
+        if (App.settings.scanModsOnLaunch && !upToDate) {
+            PerformanceManager.start("Scanning mods for Fractureiser");
+            progressDialog.setLabel(GetText.tr("Scanning mods for Fractureiser"));
+
+            List<Path> foundInfections = new ArrayList<>();
+            try {
+                foundInfections = SecurityUtils.scanForFractureiser(this.getModPathsFromFilesystem());
+            } catch (InterruptedException e) {
+                LogManager.logStackTrace("Failed to scan all mods for Fractureiser", e);
+            }
+            PerformanceManager.end("Scanning mods for Fractureiser");
+
+            if (foundInfections.size() != 0) {
+                LogManager.error("Infections have been found in your mods. See the below list of paths");
+                foundInfections.forEach(p -> LogManager.error(p.toAbsolutePath().toString()));
+                return false;
+            }
+        }
+        progressDialog.doneTask();
+
+        if (!upToDate) {
+            if (unverifiedFiles.isEmpty()) {
+                LaunchFingerprint.write(getUUID(), getLaunchFingerprintKey(), launchFiles);
+            } else {
+                // make sure these get checked again next launch, rather than being seen as up to date
+                LogManager.debug("Not saving launch fingerprint as " + unverifiedFiles.size()
+                        + " files failed to download or verify");
+                LaunchFingerprint.delete(getUUID());
+            }
+        }
+
+        PerformanceManager.end();
+        return true;
+    }
+
+    /**
+     * Downloads and checks everything the instance needs to launch other than the natives and assets, adding each of
+     * the files it checked to the given list so that they can be tracked in the instances {@link LaunchFingerprint}.
+     * Files which failed to download or don't match their hash are added to the unverified list instead.
+     */
+    private boolean downloadLaunchFiles(ProgressDialog progressDialog, ProgressAggregator downloadProgress,
+            OkHttpClient httpClient, List<Path> launchFiles, List<Path> unverifiedFiles) {
         // make sure latest manifest is being used
         PerformanceManager.start("Grabbing Latest Manifest");
         try {
@@ -469,10 +633,12 @@ public class Instance extends MinecraftVersion {
                     .withHttpClient(httpClient).downloadTo(this.getMinecraftJarLibraryPath());
 
             if (clientDownload.needToDownload()) {
-                progressDialog.setTotalBytes(this.downloads.client.size);
+                downloadProgress.setTotalBytes(this.downloads.client.size);
                 clientDownload.downloadFile();
             }
 
+            trackDownload(clientDownload, launchFiles, unverifiedFiles);
+
             progressDialog.doneTask();
         } catch (IOException e) {
             LogManager.logStackTrace(e);
@@ -495,10 +661,12 @@ public class Instance extends MinecraftVersion {
                         .withHttpClient(httpClient);
 
                 if (loggerDownload.needToDownload()) {
-                    progressDialog.setTotalBytes(loggingFile.size);
+                    downloadProgress.setTotalBytes(loggingFile.size);
                     loggerDownload.downloadFile();
                 }
 
+                trackDownload(loggerDownload, launchFiles, unverifiedFiles);
+
                 progressDialog.doneTask();
             } catch (IOException e) {
                 LogManager.logStackTrace(e);
@@ -514,7 +682,7 @@ public class Instance extends MinecraftVersion {
         // download libraries
         PerformanceManager.start("Downloading Libraries");
         progressDialog.setLabel(GetText.tr("Downloading Libraries"));
-        DownloadPool librariesPool = new DownloadPool();
+        DownloadPool librariesPool = new DownloadPool(DownloadScheduler.Priority.HIGH);
 
         List<Library> librariesMissingWithNoUrl = this.libraries.stream()
                 .filter(library -> library.shouldInstall() && library.downloads.artifact != null
@@ -583,10 +751,13 @@ public class Instance extends MinecraftVersion {
 
         DownloadPool smallLibrariesPool = librariesPool.downsize();
 
-        progressDialog.setTotalBytes(smallLibrariesPool.totalSize());
+        downloadProgress.setTotalBytes(smallLibrariesPool.totalSize());
 
         smallLibrariesPool.downloadAll();
 
+        // only the first download for each file is checked, so only those know if it was verified
+        librariesPool.stream().distinct().forEach(download -> trackDownload(download, launchFiles, unverifiedFiles));
+
         progressDialog.doneTask();
         PerformanceManager.end("Downloading Libraries");
 
@@ -632,10 +803,8 @@ public class Instance extends MinecraftVersion {
                     // collect the files we need to download
                     javaRuntimeManifest.files.forEach((key, file) -> {
                         if (file.type == JavaRuntimeManifestFileType.FILE) {
-                            com.luna.network.Download download = new com.luna.network.Download()
-                                    .setUrl(file.downloads.raw.url).downloadTo(runtimeDirectory.resolve(key))
-                                    .hash(file.downloads.raw.sha1).size(file.downloads.raw.size)
-                                    .executable(file.executable).withHttpClient(httpClient);
+                            com.luna.network.Download download = file
+                                    .createDownload(runtimeDirectory.resolve(key)).withHttpClient(httpClient);
 
                             pool.add(download);
                         }
@@ -643,10 +812,13 @@ public class Instance extends MinecraftVersion {
 
                     DownloadPool smallPool = pool.downsize();
 
-                    progressDialog.setTotalBytes(smallPool.totalSize());
+                    downloadProgress.setTotalBytes(smallPool.totalSize());
 
                     smallPool.downloadAll();
 
+                    pool.stream().distinct()
+                            .forEach(download -> trackDownload(download, launchFiles, unverifiedFiles));
+
                     // write out the version file (theres also a .sha1 file created, but we're not
                     // doing that)
                     Files.write(runtimeSystemDirectory.resolve(".version"),
@@ -655,42 +827,67 @@ public class Instance extends MinecraftVersion {
                     // + ".sha1"), runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
                 } catch (IOException e) {
                     LogManager.logStackTrace("Failed to download Java runtime", e);
+                    unverifiedFiles.add(FileSystem.MINECRAFT_RUNTIMES.resolve(runtimeToUse));
                 }
             }
         }
         progressDialog.doneTask();
         PerformanceManager.end("Java Runtime");
 
-        // organise assets
-        PerformanceManager.start("Organising Resources 1");
-        progressDialog.setLabel(GetText.tr("Organising Resources"));
-        MojangAssetIndex assetIndex = this.assetIndex;
+        return true;
+    }
 
-        AssetIndex index = com.luna.network.Download.build().setUrl(assetIndex.url).hash(assetIndex.sha1)
-                .size(assetIndex.size).downloadTo(FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json"))
-                .withHttpClient(httpClient).asClass(AssetIndex.class);
+    /**
+     * Adds the file a download went to (and anything it was copied to) to the files tracked by the instances
+     * {@link LaunchFingerprint}, or to the unverified files if it failed to download or didn't match its hash. This
+     * goes by what the download found when it last checked the file, rather than hashing it again.
+     */
+    private static void trackDownload(com.luna.network.Download download, List<Path> launchFiles,
+            List<Path> unverifiedFiles) {
+        if (!download.isVerified()) {
+            unverifiedFiles.add(download.to);
+            return;
+        }
 
-        DownloadPool pool = new DownloadPool();
+        launchFiles.add(download.to);
 
-        index.objects.forEach((key, object) -> {
-            String filename = object.hash.substring(0, 2) + "/" + object.hash;
-            String url = String.format("%s/%s", Constants.MINECRAFT_RESOURCES, filename);
+        if (download.copyTo != null) {
+            launchFiles.add(download.copyTo);
+        }
+    }
 
-            com.luna.network.Download download = new com.luna.network.Download().setUrl(url)
-                    .downloadTo(FileSystem.RESOURCES_OBJECTS.resolve(filename)).hash(object.hash).size(object.size)
-                    .withHttpClient(httpClient);
+    /**
+     * Downloads any of the instances assets which are missing, and copies them into the instance if it needs them
+     * there. Checking is only a stat of each object and copied file, so this is cheap when nothing is missing.
+     */
+    private boolean organiseAssets(ProgressDialog progressDialog, ProgressAggregator downloadProgress,
+            OkHttpClient httpClient) {
+        // organise assets
+        PerformanceManager.start("Organising Resources 1");
+        progressDialog.setLabel(GetText.tr("Organising Resources"));
+        MojangAssetIndex assetIndex = this.assetIndex;
 
-            pool.add(download);
-        });
+        CompactAssetIndex index;
+        try {
+            index = CompactAssetIndex.get(assetIndex, httpClient);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to get asset index " + assetIndex.id, e);
+            return false;
+        }
 
-        DownloadPool smallPool = pool.downsize();
+        int[] missingObjects = index.findMissingObjects();
 
-        if (smallPool.size() != 0) {
+        if (missingObjects.length != 0) {
             progressDialog.setLabel(GetText.tr("Downloading Resources"));
 
-            progressDialog.setTotalBytes(smallPool.totalSize());
+            DownloadPool pool = new DownloadPool(DownloadScheduler.Priority.LOW);
+            for (int object : missingObjects) {
+                pool.add(index.createDownload(object).withHttpClient(httpClient));
+            }
 
-            smallPool.downloadAll();
+            downloadProgress.setTotalBytes(index.getTotalSize(missingObjects));
+
+            pool.downloadAll();
         }
         PerformanceManager.end("Organising Resources 1");
 
@@ -699,143 +896,57 @@ public class Instance extends MinecraftVersion {
             PerformanceManager.start("Organising Resources 2");
             progressDialog.setLabel(GetText.tr("Organising Resources"));
 
-            index.objects.forEach((key, object) -> {
-                String filename = object.hash.substring(0, 2) + "/" + object.hash;
-
-                Path downloadedFile = FileSystem.RESOURCES_OBJECTS.resolve(filename);
-                Path assetPath = index.mapToResources ? this.ROOT.resolve("resources/" + key)
-                        : FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key);
-
-                if (!Files.exists(assetPath)) {
-                    FileUtils.copyFile(downloadedFile, assetPath, true);
-                }
-            });
+            for (int object = 0; object < index.getObjectCount(); object++) {
+                index.copyToInstance(object, this.ROOT);
+            }
             PerformanceManager.end("Organising Resources 2");
         }
 
-        progressDialog.doneTask();
-
-        progressDialog.setLabel(GetText.tr("Organising Libraries"));
+        return true;
+    }
 
-        // extract natives to a temp dir
-        PerformanceManager.start("Extracting Natives");
-        boolean useSystemGlfw = Optional.ofNullable(launcher.useSystemGlfw).orElse(App.settings.useSystemGlfw);
-        boolean useSystemOpenAl = Optional.ofNullable(launcher.useSystemOpenAl).orElse(App.settings.useSystemOpenAl);
-        this.libraries.stream().filter(Library::shouldInstall)
+    /**
+     * The key for this instances {@link LaunchFingerprint}, made up of everything that preparing it for launch
+     * depends on, so that if any of it changes the instance gets fully prepared again.
+     */
+    private String getLaunchFingerprintKey() {
+        List<Library> launchLibraries = this.libraries.stream().filter(Library::shouldInstall)
                 .map(l -> LWJGLManager.shouldReplaceLWJGL3(this)
                         ? LWJGLManager.getReplacementLWJGL3Library(this, l)
                         : l)
-                .forEach(library -> {
-                    if (library.hasNativeForOS()) {
-                        if (library.name.contains("glfw") && useSystemGlfw) {
-                            LogManager.warn("useSystemGlfw was enabled, not using glfw natives from Minecraft");
-                            return;
-                        }
-
-                        if (library.name.contains("openal") && useSystemOpenAl) {
-                            LogManager.warn("useSystemOpenAl was enabled, not using openal natives from Minecraft");
-                            return;
-                        }
-
-                        Path nativePath = FileSystem.LIBRARIES.resolve(library.getNativeDownloadForOS().path);
-
-                        ArchiveUtils.extract(nativePath, nativesTempDir, name -> {
-                            if (library.extract != null && library.extract.shouldExclude(name)) {
-                                return null;
-                            }
-
-                            // keep META-INF folder as per normal
-                            if (name.startsWith("META-INF")) {
-                                return name;
-                            }
-
-                            // don't extract folders
-                            if (name.endsWith("/")) {
-                                return null;
-                            }
-
-                            // if it has a / then extract just to root
-                            if (name.contains("/")) {
-                                return name.substring(name.lastIndexOf("/") + 1);
-                            }
-
-                            return name;
-                        });
-                    }
-                });
-
-        progressDialog.doneTask();
-        PerformanceManager.end("Extracting Natives");
-
-        if (LWJGLManager.shouldUseLegacyLWJGL(this)) {
-            PerformanceManager.start("Extracting Legacy LWJGL");
-            progressDialog.setLabel(GetText.tr("Extracting Legacy LWJGL"));
-
-            LWJGLLibrary library = LWJGLManager.getLegacyLWJGLLibrary();
-
-            if (library != null) {
-                com.luna.network.Download download = new com.luna.network.Download().setUrl(library.url)
-                        .downloadTo(FileSystem.LIBRARIES.resolve(library.path)).unzipTo(lwjglNativesTempDir)
-                        .hash(library.sha1).size(library.size).withHttpClient(httpClient);
-
-                if (download.needToDownload()) {
-                    progressDialog.setTotalBytes(library.size);
-
-                    try {
-                        download.downloadFile();
-                    } catch (IOException e) {
-                        LogManager.logStackTrace(e);
-                    }
-                } else {
-                    download.runPostProcessors();
-                }
-            }
+                .collect(Collectors.toList());
 
-            progressDialog.doneTask();
-            PerformanceManager.end("Extracting Legacy LWJGL");
+        List<String> modFiles = new ArrayList<>();
+        for (Path modPath : getModPathsFromFilesystem()) {
+            File modFile = modPath.toFile();
+            modFiles.add(modFile.getName() + ":" + modFile.length() + ":" + modFile.lastModified());
         }
+        Collections.sort(modFiles);
 
-        if (usesCustomMinecraftJar()) {
-            PerformanceManager.start("Creating custom minecraft.jar");
-            progressDialog.setLabel(GetText.tr("Creating custom minecraft.jar"));
+        JavaRuntime javaRuntime = getJavaRuntimeToDownload();
 
-            if (Files.exists(getCustomMinecraftJarLibraryPath())) {
-                FileUtils.delete(getCustomMinecraftJarLibraryPath());
-            }
+        return LaunchFingerprint.createKey(id, downloads, logging, javaVersion, launchLibraries,
+                javaRuntime == null ? null : javaRuntime.manifest.sha1,
+                assetIndex == null ? null : assetIndex.sha1, launcher.loaderVersion, modFiles,
+                Optional.ofNullable(launcher.useSystemGlfw).orElse(App.settings.useSystemGlfw),
+                Optional.ofNullable(launcher.useSystemOpenAl).orElse(App.settings.useSystemOpenAl),
+                App.settings.scanModsOnLaunch);
+    }
 
-            if (!Utils.combineJars(getMinecraftJar(), getRoot().resolve("bin/modpack.jar").toFile(),
-                    getCustomMinecraftJar())) {
-                LogManager.error("Failed to combine jars into custom minecraft.jar");
-                PerformanceManager.end("Creating custom minecraft.jar");
-                PerformanceManager.end();
-                return false;
-            }
-            PerformanceManager.end("Creating custom minecraft.jar");
+    /**
+     * Gets the Java runtime from Minecraft which will be downloaded for this instance when preparing for launch, or
+     * null if Minecraft's Java runtimes aren't being used.
+     */
+    private JavaRuntime getJavaRuntimeToDownload() {
+        if (javaVersion == null || Data.JAVA_RUNTIMES == null || !Optional
+                .ofNullable(launcher.useJavaProvidedByMinecraft).orElse(App.settings.useJavaProvidedByMinecraft)) {
+            return null;
         }
-        progressDialog.doneTask();
-
-        if (App.settings.scanModsOnLaunch) {
-            PerformanceManager.start("Scanning mods for Fractureiser");
-            progressDialog.setLabel(GetText.tr("Scanning mods for Fractureiser"));
 
-            List<Path> foundInfections = new ArrayList<>();
-            try {
-                foundInfections = SecurityUtils.scanForFractureiser(this.getModPathsFromFilesystem());
-            } catch (InterruptedException e) {
-                LogManager.logStackTrace("Failed to scan all mods for Fractureiser", e);
-            }
-            PerformanceManager.end("Scanning mods for Fractureiser");
-
-            if (foundInfections.size() != 0) {
-                LogManager.error("Infections have been found in your mods. See the below list of paths");
-                foundInfections.forEach(p -> LogManager.error(p.toAbsolutePath().toString()));
-                return false;
-            }
-        }
-        progressDialog.doneTask();
+        List<JavaRuntime> runtimes = Data.JAVA_RUNTIMES.getForSystem()
+                .get(Optional.ofNullable(launcher.javaRuntimeOverride).orElse(javaVersion.component));
 
-        PerformanceManager.end();
-        return true;
+        return runtimes == null || runtimes.size() == 0 ? null : runtimes.get(0);
     }
 
     public boolean launch() {
@@ -1123,78 +1234,17 @@ public class Instance extends MinecraftVersion {
                 App.launcher.showKillMinecraft(process);
                 InputStream is = process.getInputStream();
                 InputStreamReader isr = new InputStreamReader(is);
-                StringBuilder sb = new StringBuilder();
                 BufferedReader br = new BufferedReader(isr);
                 String line;
-                int detectedError = 0;
-                boolean crashedWithoutKnownResolution = false;
-
-                String replaceUUID = account.uuid.replace("-", "");
+                MinecraftLogProcessor logProcessor = new MinecraftLogProcessor(account,
+                        Utils.matchVersion(this.id, "1.6", true, true));
 
                 while ((line = br.readLine()) != null) {
-                    if (line.contains("java.lang.OutOfMemoryError")
-                            || line.contains("There is insufficient memory for the Java Runtime Environment")) {
-                        detectedError = MinecraftError.OUT_OF_MEMORY;
-                    }
-
-                    if (line.contains("java.util.ConcurrentModificationException")
-                            && Utils.matchVersion(this.id, "1.6", true, true)) {
-                        detectedError = MinecraftError.CONCURRENT_MODIFICATION_ERROR_1_6;
-                    }
-
-                    if (line.contains(
-                            "has been compiled by a more recent version of the Java Runtime (class file version 60.0)")) {
-                        detectedError = MinecraftError.NEED_TO_USE_JAVA_16_OR_NEWER;
-                    }
-
-                    if (line.contains(
-                            "has been compiled by a more recent version of the Java Runtime (class file version 61.0)")) {
-                        detectedError = MinecraftError.NEED_TO_USE_JAVA_17_OR_NEWER;
-                    }
-
-                    if (line.contains(
-                            "class jdk.internal.loader.ClassLoaders$AppClassLoader cannot be cast to class")) {
-                        detectedError = MinecraftError.USING_NEWER_JAVA_THAN_8;
-                    }
-
-                    if (line.contains("Crash report saved to") || line.contains("Minecraft Crash Report")) {
-                        crashedWithoutKnownResolution = true;
-                    }
-
-                    if (!LogManager.showDebug) {
-                        line = line.replace(account.minecraftUsername, "**MINECRAFTUSERNAME**");
-                        line = line.replace(account.username, "**MINECRAFTUSERNAME**");
-                        line = line.replace(account.uuid, "**UUID**");
-                        line = line.replace(replaceUUID, "**UUID**");
-                    }
-
-                    if (account.getAccessToken() != null) {
-                        line = line.replace(account.getAccessToken(), "**ACCESSTOKEN**");
-                    }
-
-                    if (line.contains("log4j:")) {
-                        try {
-                            // start of a new event so clear string builder
-                            if (line.contains("<log4j:Event>")) {
-                                sb.setLength(0);
-                            }
-
-                            sb.append(line);
-
-                            // end of the xml object so parse it
-                            if (line.contains("</log4j:Event>")) {
-                                LogManager.minecraftLog4j(sb.toString());
-                                sb.setLength(0);
-                            }
-
-                            continue;
-                        } catch (Exception e) {
-                            // ignored
-                        }
-                    }
-
-                    LogManager.minecraft(line);
+                    logProcessor.process(line);
                 }
+                logProcessor.finish();
+                int detectedError = logProcessor.getDetectedError();
+                boolean crashedWithoutKnownResolution = logProcessor.hasCrashedWithoutKnownResolution();
                 App.launcher.hideKillMinecraft();
                 if (App.launcher.getParent() != null && App.settings.keepLauncherOpen) {
                     App.launcher.getParent().setVisible(true);
@@ -1905,25 +1955,14 @@ public class Instance extends MinecraftVersion {
             manifest.components.add(quiltLoaderComponent);
         }
 
-        // create temp directory to put this in
-        Path tempDir = FileSystem.TEMP.resolve(this.getSafeName() + "-export");
-        FileUtils.createDirectory(tempDir);
+        ZipExporter export = new ZipExporter();
 
         // create mmc-pack.json
-        try (OutputStreamWriter fileWriter = new OutputStreamWriter(
-                new FileOutputStream(tempDir.resolve("mmc-pack.json").toFile()), StandardCharsets.UTF_8)) {
-            Gsons.DEFAULT.toJson(manifest, fileWriter);
-        } catch (JsonIOException | IOException e) {
-            LogManager.logStackTrace("Failed to save mmc-pack.json", e);
-
-            FileUtils.deleteDirectory(tempDir);
-
-            return new Pair<Path, String>(null, null);
-        }
+        export.addString("mmc-pack.json", Gsons.DEFAULT.toJson(manifest));
 
         // if Legacy Fabric, add patch in
         if (launcher.loaderVersion.type.equals("LegacyFabric")) {
-            FileUtils.createDirectory(tempDir.resolve("patches"));
+            export.addDirectory("patches");
 
             JsonObject patch = new JsonObject();
             patch.addProperty("formatVersion", 1);
@@ -1939,30 +1978,16 @@ public class Instance extends MinecraftVersion {
             patch.add("+libraries", plusLibraries);
 
             // create net.fabricmc.intermediary.json
-            try (OutputStreamWriter fileWriter = new OutputStreamWriter(
-                    new FileOutputStream(tempDir.resolve("net.fabricmc.intermediary.json").toFile()),
-                    StandardCharsets.UTF_8)) {
-                Gsons.DEFAULT.toJson(patch, fileWriter);
-            } catch (JsonIOException | IOException e) {
-                LogManager.logStackTrace("Failed to save net.fabricmc.intermediary.json", e);
-
-                FileUtils.deleteDirectory(tempDir);
-
-                return new Pair<Path, String>(null, null);
-            }
-
+            export.addString("net.fabricmc.intermediary.json", Gsons.DEFAULT.toJson(patch));
         }
 
         // create instance.cfg
-        Path instanceCfgPath = tempDir.resolve("instance.cfg");
         Properties instanceCfg = new Properties();
 
         String iconKey = "default";
         if (hasCustomImage()) {
             String customIconFileName = "luna_" + getSafeName().toLowerCase(Locale.ENGLISH);
-            Path customIconPath = tempDir.resolve(customIconFileName + ".png");
-
-            FileUtils.copyFile(this.getRoot().resolve("instance.png"), customIconPath, true);
+            export.addFile(customIconFileName + ".png", this.getRoot().resolve("instance.png"));
 
             iconKey = customIconFileName;
         }
@@ -2018,55 +2043,48 @@ public class Instance extends MinecraftVersion {
         instanceCfg.setProperty("notes", "");
         instanceCfg.setProperty("totalTimePlayed", "0");
 
-        try (OutputStream outputStream = Files.newOutputStream(instanceCfgPath)) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             instanceCfg.store(outputStream, "Exported by luna");
-        } catch (JsonIOException | IOException e) {
-            LogManager.logStackTrace("Failed to save mmc-pack.json", e);
-
-            FileUtils.deleteDirectory(tempDir);
+            export.addBytes("instance.cfg", outputStream.toByteArray());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save instance.cfg", e);
 
             return new Pair<Path, String>(null, null);
         }
 
-        // create an empty .packignore file
-        Path packignoreFile = tempDir.resolve(".packignore");
-        try {
-            packignoreFile.toFile().createNewFile();
-        } catch (IOException ignored) {
-            // this is okay to ignore, it's unused but seems to be there by default
-        }
+        // create an empty .packignore file, it's unused but seems to be there by default
+        export.addBytes(".packignore", new byte[0]);
 
-        // copy over the files into the .minecraft folder
-        Path dotMinecraftPath = tempDir.resolve(".minecraft");
-        FileUtils.createDirectory(dotMinecraftPath);
+        // add the files into the .minecraft folder
+        export.addDirectory(".minecraft");
+        addOverridesToExport(export, ".minecraft/", overrides, safePathName, file -> true);
 
-        for (String path : overrides) {
-            if (!path.equalsIgnoreCase(safePathName + ".zip") && getRoot().resolve(path).toFile().exists()
-                    && (getRoot().resolve(path).toFile().isFile()
-                            || getRoot().resolve(path).toFile().list().length != 0)) {
-                if (getRoot().resolve(path).toFile().isDirectory()) {
-                    Utils.copyDirectory(getRoot().resolve(path).toFile(), dotMinecraftPath.resolve(path).toFile());
-                } else {
-                    Utils.copyFile(getRoot().resolve(path).toFile(), dotMinecraftPath.resolve(path).toFile(), true);
-                }
-            }
+        if (!export.writeTo(to)) {
+            return new Pair<Path, String>(null, null);
         }
 
-        // remove any .DS_Store files
-        try (Stream<Path> walk = Files.walk(dotMinecraftPath)) {
-            walk.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().equals(".DS_Store"))
-                    .forEach(f -> {
-                        FileUtils.delete(f, false);
-                    });
-        } catch (IOException ignored) {
-        }
+        return new Pair<Path, String>(to, null);
+    }
 
-        ArchiveUtils.createZip(tempDir, to);
+    /**
+     * Adds the given overrides to the export under the given prefix, straight from the instance rather than copying
+     * them anywhere first, leaving out any files the filter doesn't accept.
+     */
+    private void addOverridesToExport(ZipExporter export, String prefix, List<String> overrides,
+            String safePathName, Predicate<Path> filter) {
+        for (String path : overrides) {
+            Path overridePath = getRoot().resolve(path);
 
-        FileUtils.deleteDirectory(tempDir);
+            if (path.equalsIgnoreCase(safePathName + ".zip") || !Files.exists(overridePath)) {
+                continue;
+            }
 
-        return new Pair<Path, String>(to, null);
+            if (Files.isDirectory(overridePath)) {
+                export.addPath(prefix + path + "/", overridePath, filter);
+            } else if (!overridePath.getFileName().toString().equals(".DS_Store") && filter.test(overridePath)) {
+                export.addFile(prefix + path, overridePath);
+            }
+        }
     }
 
     public Pair<Path, String> exportAsCurseForgeZip(String name, String version, String author, String saveTo,
@@ -2176,21 +2194,10 @@ public class Instance extends MinecraftVersion {
                         }));
         manifest.overrides = "overrides";
 
-        // create temp directory to put this in
-        Path tempDir = FileSystem.TEMP.resolve(this.getSafeName() + "-export");
-        FileUtils.createDirectory(tempDir);
+        ZipExporter export = new ZipExporter();
 
         // create manifest.json
-        try (OutputStreamWriter fileWriter = new OutputStreamWriter(
-                new FileOutputStream(tempDir.resolve("manifest.json").toFile()), StandardCharsets.UTF_8)) {
-            Gsons.DEFAULT.toJson(manifest, fileWriter);
-        } catch (JsonIOException | IOException e) {
-            LogManager.logStackTrace("Failed to save manifest.json", e);
-
-            FileUtils.deleteDirectory(tempDir);
-
-            return new Pair<Path, String>(null, null);
-        }
+        export.addString("manifest.json", Gsons.DEFAULT.toJson(manifest));
 
         // create modlist.html
         StringBuilder sb = new StringBuilder("<ul>");
@@ -2211,42 +2218,7 @@ public class Instance extends MinecraftVersion {
                 });
         sb.append("</ul>");
 
-        try (OutputStreamWriter fileWriter = new OutputStreamWriter(
-                new FileOutputStream(tempDir.resolve("modlist.html").toFile()), StandardCharsets.UTF_8)) {
-            fileWriter.write(sb.toString());
-        } catch (JsonIOException | IOException e) {
-            LogManager.logStackTrace("Failed to save modlist.html", e);
-
-            FileUtils.deleteDirectory(tempDir);
-
-            return new Pair<Path, String>(null, null);
-        }
-
-        // copy over the overrides folder
-        Path overridesPath = tempDir.resolve("overrides");
-        FileUtils.createDirectory(overridesPath);
-
-        for (String path : overrides) {
-            if (!path.equalsIgnoreCase(safePathName + ".zip") && getRoot().resolve(path).toFile().exists()
-                    && (getRoot().resolve(path).toFile().isFile()
-                            || getRoot().resolve(path).toFile().list().length != 0)) {
-                if (getRoot().resolve(path).toFile().isDirectory()) {
-                    Utils.copyDirectory(getRoot().resolve(path).toFile(), overridesPath.resolve(path).toFile());
-                } else {
-                    Utils.copyFile(getRoot().resolve(path).toFile(), overridesPath.resolve(path).toFile(), true);
-                }
-            }
-        }
-
-        // remove any .DS_Store files
-        try (Stream<Path> walk = Files.walk(overridesPath)) {
-            walk.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().equals(".DS_Store"))
-                    .forEach(f -> {
-                        FileUtils.delete(f, false);
-                    });
-        } catch (IOException ignored) {
-        }
+        export.addString("modlist.html", sb.toString());
 
         // log files that are not available on CurseForge anymore and put in overrides
         launcher.mods.stream()
@@ -2258,36 +2230,24 @@ public class Instance extends MinecraftVersion {
                             mod.file));
                 });
 
-        // remove files that come from CurseForge or aren't disabled
-        launcher.mods.stream()
+        // leave out files that come from CurseForge or aren't disabled
+        Set<Path> curseForgeFiles = launcher.mods.stream()
                 .filter(m -> !m.disabled && m.isFromCurseForge() && m.type != com.luna.data.Type.worlds)
                 // #875 - Non available mods/files will be rejected by CurseForge
                 .filter(mod -> mod.curseForgeFile.isAvailable)
-                .forEach(mod -> {
-                    File file = mod.getFile(this, overridesPath);
-
-                    if (file != null && file.exists()) {
-                        FileUtils.delete(file.toPath());
-                    }
-                });
+                .map(mod -> mod.getFile(this))
+                .filter(Objects::nonNull)
+                .map(file -> file.toPath().toAbsolutePath().normalize())
+                .collect(Collectors.toSet());
 
-        for (String path : overrides) {
-            // if no files, remove the directory
-            if (overridesPath.resolve(path).toFile().isDirectory()
-                    && overridesPath.resolve(path).toFile().list().length == 0) {
-                FileUtils.deleteDirectory(overridesPath.resolve(path));
-            }
-        }
+        // add the overrides folder
+        addOverridesToExport(export, "overrides/", overrides, safePathName,
+                file -> !curseForgeFiles.contains(file.toAbsolutePath().normalize()));
 
-        // if overrides folder itself is empty, then remove it
-        if (overridesPath.toFile().list().length == 0) {
-            FileUtils.deleteDirectory(overridesPath);
+        if (!export.writeTo(to)) {
+            return new Pair<Path, String>(null, null);
         }
 
-        ArchiveUtils.createZip(tempDir, to);
-
-        FileUtils.deleteDirectory(tempDir);
-
         return new Pair<Path, String>(to, null);
     }
 
@@ -2387,86 +2347,33 @@ public class Instance extends MinecraftVersion {
                     this.launcher.loaderVersion.version);
         }
 
-        // create temp directory to put this in
-        Path tempDir = FileSystem.TEMP.resolve(this.getSafeName() + "-export");
-        FileUtils.createDirectory(tempDir);
+        ZipExporter export = new ZipExporter();
 
         // create modrinth.index.json
-        try (FileOutputStream fos = new FileOutputStream(tempDir.resolve("modrinth.index.json").toFile());
-                OutputStreamWriter osw = new OutputStreamWriter(fos,
-                        StandardCharsets.UTF_8)) {
-            Gsons.DEFAULT.toJson(manifest, osw);
-        } catch (JsonIOException | IOException e) {
-            LogManager.logStackTrace("Failed to save modrinth.index.json", e);
-
-            FileUtils.deleteDirectory(tempDir);
+        export.addString("modrinth.index.json", Gsons.DEFAULT.toJson(manifest));
 
-            return new Pair<Path, String>(null, null);
-        }
+        // leave out files that come from Modrinth or aren't disabled
+        Set<Path> modrinthFiles = launcher.mods.stream()
+                .filter(m -> !m.disabled && m.modrinthVersion != null)
+                .map(mod -> mod.getFile(this))
+                .filter(Objects::nonNull)
+                .map(file -> file.toPath().toAbsolutePath().normalize())
+                .collect(Collectors.toSet());
 
-        // copy over the overrides folder
-        Path overridesPath = tempDir.resolve("overrides");
-        FileUtils.createDirectory(overridesPath);
-
-        for (String path : overrides) {
-            if (!path.equalsIgnoreCase(safePathName + ".zip") && getRoot().resolve(path).toFile().exists()
-                    && (getRoot().resolve(path).toFile().isFile()
-                            || getRoot().resolve(path).toFile().list().length != 0)) {
-                if (getRoot().resolve(path).toFile().isDirectory()) {
-                    Utils.copyDirectory(getRoot().resolve(path).toFile(), overridesPath.resolve(path).toFile());
-                } else {
-                    Utils.copyFile(getRoot().resolve(path).toFile(), overridesPath.resolve(path).toFile(), true);
-                }
-            }
-        }
-
-        // remove any .DS_Store files
-        try (Stream<Path> walk = Files.walk(overridesPath)) {
-            walk.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().equals(".DS_Store"))
-                    .forEach(f -> {
-                        FileUtils.delete(f, false);
-                    });
-        } catch (IOException ignored) {
-        }
-
-        // remove files that come from Modrinth or aren't disabled
-        launcher.mods.stream().filter(m -> !m.disabled && m.modrinthVersion != null).forEach(mod -> {
-            File file = mod.getFile(this, overridesPath);
-
-            if (file.exists()) {
-                FileUtils.delete(file.toPath());
-            }
-        });
-
-        for (String path : overrides) {
-            // if no files, remove the directory
-            if (overridesPath.resolve(path).toFile().isDirectory()
-                    && overridesPath.resolve(path).toFile().list().length == 0) {
-                FileUtils.deleteDirectory(overridesPath.resolve(path));
-            }
-        }
-
-        // if overrides folder itself is empty, then remove it
-        if (overridesPath.toFile().list().length == 0) {
-            FileUtils.deleteDirectory(overridesPath);
-        }
+        // add the overrides folder
+        addOverridesToExport(export, "overrides/", overrides, safePathName,
+                file -> !modrinthFiles.contains(file.toAbsolutePath().normalize()));
 
         // find any override jar/zip files
         StringBuilder overridesForPermissions = new StringBuilder();
-        try (Stream<Path> walk = Files.walk(overridesPath)) {
-            walk.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().endsWith(".jar")
-                            || path.getFileName().toString().endsWith(".zip"))
-                    .forEach(f -> {
-                        overridesForPermissions.append(String.format("%s\n", tempDir.relativize(f)));
-                    });
-        } catch (IOException ignored) {
-        }
-
-        ArchiveUtils.createZip(tempDir, to);
+        export.getEntryNames().stream()
+                .filter(entryName -> entryName.startsWith("overrides/"))
+                .filter(entryName -> entryName.endsWith(".jar") || entryName.endsWith(".zip"))
+                .forEach(entryName -> overridesForPermissions.append(String.format("%s\n", entryName)));
 
-        FileUtils.deleteDirectory(tempDir);
+        if (!export.writeTo(to)) {
+            return new Pair<Path, String>(null, null);
+        }
 
         return new Pair<Path, String>(to, overridesForPermissions.toString());
     }
@@ -2479,6 +2386,7 @@ public class Instance extends MinecraftVersion {
         File newDir = getRoot().toFile();
         if (oldDir.renameTo(newDir)) {
             this.save();
+            InstanceManager.reindexInstances();
             return true;
         } else {
             this.launcher.name = oldName;
@@ -2767,12 +2675,16 @@ public class Instance extends MinecraftVersion {
         Analytics.trackEvent(AnalyticsEvent.forInstanceEvent("instance_backup", this));
 
         final Thread backupThread = new Thread(() -> {
-            Timestamp timestamp = new Timestamp(new Date().getTime());
-            String time = timestamp.toString().replaceAll("[^0-9]", "_");
-            String filename = getSafeName() + "-" + time.substring(0, time.lastIndexOf("_")) + ".zip";
+            if (App.settings.incrementalBackups) {
+                incrementalBackup(backupMode);
+            } else {
+                Timestamp timestamp = new Timestamp(new Date().getTime());
+                String time = timestamp.toString().replaceAll("[^0-9]", "_");
+                String filename = getSafeName() + "-" + time.substring(0, time.lastIndexOf("_")) + ".zip";
 
-            ArchiveUtils.createZip(getRoot(), FileSystem.BACKUPS.resolve(filename),
-                    ZipNameMapper.getMapperForBackupMode(backupMode));
+                ArchiveUtils.createZip(getRoot(), FileSystem.BACKUPS.resolve(filename),
+                        ZipNameMapper.getMapperForBackupMode(backupMode));
+            }
 
             dialog.dispose();
             App.TOASTER.pop(GetText.tr("Backup is complete"));
@@ -2787,6 +2699,52 @@ public class Instance extends MinecraftVersion {
         dialog.setVisible(true);
     }
 
+    /**
+     * Backs up the instance into the incremental backup store, so only what's changed since the last backup of this
+     * instance is stored, and then removes the oldest backups if there's a limit on how many to keep.
+     */
+    private void incrementalBackup(BackupMode backupMode) {
+        BackupStore backupStore = new BackupStore(FileSystem.INCREMENTAL_BACKUPS);
+        String key = getUUID().toString();
+
+        try {
+            BackupStore.Snapshot snapshot = backupStore.backup(key, getRoot(),
+                    ZipNameMapper.getMapperForBackupMode(backupMode));
+            LogManager.info(String.format("Backed up %s as %s, reading %d bytes and storing %d bytes", launcher.name,
+                    snapshot.id, snapshot.bytesRead, snapshot.bytesStored));
+
+            if (App.settings.incrementalBackupsToKeep > 0) {
+                long freed = backupStore.prune(key, App.settings.incrementalBackupsToKeep);
+                LogManager.debug("Pruned old backups, freeing " + freed + " bytes");
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to backup instance " + launcher.name, e);
+        }
+    }
+
+    public List<String> getIncrementalBackups() {
+        try {
+            return new BackupStore(FileSystem.INCREMENTAL_BACKUPS).getSnapshotIds(getUUID().toString());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to list backups for instance " + launcher.name, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Restores the files from one of this instances incremental backups into the instance, overwriting any that are
+     * already there and removing any added since within what was backed up.
+     */
+    public boolean restoreIncrementalBackup(String snapshotId) {
+        try {
+            new BackupStore(FileSystem.INCREMENTAL_BACKUPS).restore(getUUID().toString(), snapshotId, getRoot());
+            return true;
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to restore backup " + snapshotId + " for instance " + launcher.name, e);
+            return false;
+        }
+    }
+
     public boolean canChangeDescription() {
         return isExternalPack() || launcher.vanillaInstance || (getPack() != null && getPack().system);
     }
@@ -2887,6 +2845,7 @@ public class Instance extends MinecraftVersion {
                 Analytics.trackEvent(AnalyticsEvent.forInstanceEvent("instance_image_change", this));
                 try {
                     Utils.safeCopy(img, getRoot().resolve("instance.png").toFile());
+                    ImageCache.invalidate(getRoot().resolve("instance.png"));
                     save();
                 } catch (IOException ex) {
                     LogManager.logStackTrace("Failed to set instance image", ex);
@@ -3322,7 +3281,8 @@ public class Instance extends MinecraftVersion {
                     GetText.tr("Scanning New Mods"), parent);
 
             progressDialog.addThread(new Thread(() -> {
-                List<DisableableMod> mods = files.parallelStream()
+                Map<Path, ModMetadata> metadata = ModIntrospector.introspectAll(files);
+                List<DisableableMod> mods = files.stream()
                         .map(file -> {
                             com.luna.data.Type fileType = file.getParent().equals(ROOT.resolve("resourcepacks"))
                                     ? com.luna.data.Type.resourcepack
@@ -3330,7 +3290,7 @@ public class Instance extends MinecraftVersion {
                                             : com.luna.data.Type.mods);
 
                             return DisableableMod.generateMod(file.toFile(), fileType,
-                                    !file.getParent().equals(ROOT.resolve("disabledmods")));
+                                    !file.getParent().equals(ROOT.resolve("disabledmods")), metadata.get(file));
                         })
                         .collect(Collectors.toList());
 
@@ -3341,7 +3301,7 @@ public class Instance extends MinecraftVersion {
                             .filter(dm -> dm.curseForgeProject == null && dm.curseForgeFile == null)
                             .filter(dm -> dm.getFile(ROOT, id) != null).forEach(dm -> {
                                 try {
-                                    long hash = Hashing
+                                    long hash = FileHashIndex
                                             .murmur(dm.disabled ? dm.getDisabledFile(this).toPath()
                                                     : dm
                                                             .getFile(ROOT, id).toPath());
@@ -3401,7 +3361,7 @@ public class Instance extends MinecraftVersion {
                             .filter(dm -> dm.modrinthProject == null && dm.modrinthVersion == null)
                             .filter(dm -> dm.getFile(ROOT, id) != null).forEach(dm -> {
                                 try {
-                                    sha1Hashes.put(Hashing
+                                    sha1Hashes.put(FileHashIndex
                                             .sha1(dm.disabled ? dm.getDisabledFile(this).toPath()
                                                     : dm
                                                             .getFile(ROOT, id).toPath())
@@ -0,0 +1,128 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import com.luna.FileSystem;
+
+/**
+ * The small set of details about an instance needed to show it in the instances list, which can be read from the
+ * instances snapshot without parsing the instances full instance.json.
+ */
+public class InstanceSummary {
+    public String folder;
+    public long jsonLastModified;
+    public long jsonSize;
+
+    public String name;
+    public String pack;
+    public Integer packId;
+    public String version;
+    public String minecraftVersion;
+    public String loaderType;
+    public String loaderVersion;
+    public Instant lastPlayed;
+    public long numPlays;
+
+    public InstanceSummary() {
+    }
+
+    public InstanceSummary(Instance instance, String folder, long jsonLastModified, long jsonSize) {
+        this.folder = folder;
+        this.jsonLastModified = jsonLastModified;
+        this.jsonSize = jsonSize;
+
+        this.name = instance.launcher.name;
+        this.pack = instance.launcher.pack;
+        this.packId = instance.launcher.packId;
+        this.version = instance.launcher.version;
+        this.minecraftVersion = instance.id;
+        this.loaderType = instance.launcher.loaderVersion == null ? null : instance.launcher.loaderVersion.type;
+        this.loaderVersion = instance.launcher.loaderVersion == null ? null
+                : instance.launcher.loaderVersion.version;
+        this.lastPlayed = instance.launcher.lastPlayed;
+        this.numPlays = instance.getNumberOfPlays();
+    }
+
+    public Instant getLastPlayedOrEpoch() {
+        return lastPlayed != null ? lastPlayed : Instant.EPOCH;
+    }
+
+    public Path getRoot() {
+        return FileSystem.INSTANCES.resolve(folder);
+    }
+
+    public Path getImagePath() {
+        return getRoot().resolve("instance.png");
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(folder);
+        out.writeLong(jsonLastModified);
+        out.writeLong(jsonSize);
+
+        writeNullableString(out, name);
+        writeNullableString(out, pack);
+        out.writeInt(packId == null ? Integer.MIN_VALUE : packId);
+        writeNullableString(out, version);
+        writeNullableString(out, minecraftVersion);
+        writeNullableString(out, loaderType);
+        writeNullableString(out, loaderVersion);
+        out.writeLong(lastPlayed == null ? Long.MIN_VALUE : lastPlayed.toEpochMilli());
+        out.writeLong(numPlays);
+    }
+
+    public static InstanceSummary read(DataInputStream in) throws IOException {
+        InstanceSummary summary = new InstanceSummary();
+
+        summary.folder = in.readUTF();
+        summary.jsonLastModified = in.readLong();
+        summary.jsonSize = in.readLong();
+
+        summary.name = readNullableString(in);
+        summary.pack = readNullableString(in);
+        int packId = in.readInt();
+        summary.packId = packId == Integer.MIN_VALUE ? null : packId;
+        summary.version = readNullableString(in);
+        summary.minecraftVersion = readNullableString(in);
+        summary.loaderType = readNullableString(in);
+        summary.loaderVersion = readNullableString(in);
+        long lastPlayed = in.readLong();
+        summary.lastPlayed = lastPlayed == Long.MIN_VALUE ? null : Instant.ofEpochMilli(lastPlayed);
+        summary.numPlays = in.readLong();
+
+        return summary;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.luna.utils.FileUtils;
+import com.luna.utils.Hashing;
+
+/**
+ * What an instance looked like the last time it was successfully prepared for launch. If nothing that goes into
+ * preparing the instance has changed since, and none of the files that were downloaded or checked have been touched,
+ * then the instance can be launched without going through all of that again.
+ */
+public class LaunchFingerprint {
+    private static final int VERSION = 1;
+
+    public int version;
+    public String key;
+    public List<TrackedFile> files;
+
+    /**
+     * Creates the key for a fingerprint out of everything that goes into preparing an instance for launch, such as
+     * its version json, libraries, runtime and settings.
+     */
+    public static String createKey(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+
+        for (Object part : parts) {
+            sb.append(Gsons.DEFAULT_SLIM.toJson(part)).append('\n');
+        }
+
+        return Hashing.md5(sb.toString()).toString();
+    }
+
+    /**
+     * Checks if the instance can skip preparing for launch, which is when the key is the same as the last time it
+     * was prepared and all the files it tracked are exactly as they were.
+     */
+    public static boolean isUpToDate(UUID instanceUuid, String key) {
+        LaunchFingerprint fingerprint = read(instanceUuid);
+
+        if (fingerprint == null || fingerprint.version != VERSION || !key.equals(fingerprint.key)
+                || fingerprint.files == null) {
+            return false;
+        }
+
+        for (TrackedFile file : fingerprint.files) {
+            TrackedFile current = TrackedFile.of(FileSystem.BASE_DIR.resolve(file.path));
+
+            if (current == null || current.size != file.size || current.lastModified != file.lastModified) {
+                LogManager.debug("Launch fingerprint out of date as " + file.path + " has changed");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Saves the fingerprint for an instance that was just successfully prepared for launch. If any of the files are
+     * missing then the preparation can't have fully worked, so instead any existing fingerprint is removed.
+     */
+    public static void write(UUID instanceUuid, String key, Collection<Path> trackedFiles) {
+        LaunchFingerprint fingerprint = new LaunchFingerprint();
+        fingerprint.version = VERSION;
+        fingerprint.key = key;
+        fingerprint.files = new ArrayList<>();
+
+        for (Path path : trackedFiles) {
+            TrackedFile file = TrackedFile.of(path);
+
+            if (file == null) {
+                LogManager.debug("Not saving launch fingerprint as " + path + " doesn't exist");
+                delete(instanceUuid);
+                return;
+            }
+
+            fingerprint.files.add(file);
+        }
+
+        Path fingerprintPath = getPath(instanceUuid);
+        Path tempPath = fingerprintPath.resolveSibling(fingerprintPath.getFileName() + ".tmp");
+
+        try {
+            FileUtils.createDirectory(FileSystem.LAUNCH_FINGERPRINTS);
+
+            try (OutputStreamWriter writer = new OutputStreamWriter(Files.newOutputStream(tempPath),
+                    StandardCharsets.UTF_8)) {
+                Gsons.DEFAULT_SLIM.toJson(fingerprint, writer);
+            }
+
+            Files.move(tempPath, fingerprintPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save launch fingerprint", e, false);
+            FileUtils.delete(tempPath);
+        }
+    }
+
+    public static void delete(UUID instanceUuid) {
+        Path fingerprintPath = getPath(instanceUuid);
+
+        if (Files.exists(fingerprintPath)) {
+            FileUtils.delete(fingerprintPath);
+        }
+    }
+
+    private static LaunchFingerprint read(UUID instanceUuid) {
+        Path fingerprintPath = getPath(instanceUuid);
+
+        if (!Files.exists(fingerprintPath)) {
+            return null;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(fingerprintPath),
+                StandardCharsets.UTF_8)) {
+            return Gsons.DEFAULT_SLIM.fromJson(reader, LaunchFingerprint.class);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read launch fingerprint", e, false);
+            return null;
+        }
+    }
+
+    private static Path getPath(UUID instanceUuid) {
+        return FileSystem.LAUNCH_FINGERPRINTS.resolve(instanceUuid.toString() + ".json");
+    }
+
+    public static class TrackedFile {
+        public String path;
+        public long size;
+        public long lastModified;
+
+        private static TrackedFile of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+
+                TrackedFile file = new TrackedFile();
+                file.path = FileSystem.BASE_DIR.toAbsolutePath().relativize(path.toAbsolutePath()).toString()
+                        .replace('\\', '/');
+                file.size = attributes.size();
+                file.lastModified = attributes.lastModifiedTime().toMillis();
+
+                return file;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.luna.evnt.LogEvent.LogType;
+import com.luna.managers.LogManager;
+import com.luna.utils.MultiStringMatcher;
+
+/**
+ * Processes the output of a running instance line by line, looking for known errors, censoring account details and
+ * working out the level of each line before handing it to the console.
+ *
+ * All the strings looked for are matched in a single pass over each line, rather than one scan per string.
+ */
+final class MinecraftLogProcessor {
+    private static final String[] KNOWN_ERRORS = { "java.lang.OutOfMemoryError",
+            "There is insufficient memory for the Java Runtime Environment",
+            "java.util.ConcurrentModificationException",
+            "has been compiled by a more recent version of the Java Runtime (class file version 60.0)",
+            "has been compiled by a more recent version of the Java Runtime (class file version 61.0)",
+            "class jdk.internal.loader.ClassLoaders$AppClassLoader cannot be cast to class" };
+    private static final int[] KNOWN_ERROR_TYPES = { MinecraftError.OUT_OF_MEMORY, MinecraftError.OUT_OF_MEMORY,
+            MinecraftError.CONCURRENT_MODIFICATION_ERROR_1_6, MinecraftError.NEED_TO_USE_JAVA_16_OR_NEWER,
+            MinecraftError.NEED_TO_USE_JAVA_17_OR_NEWER, MinecraftError.USING_NEWER_JAVA_THAN_8 };
+    private static final String[] CRASH_MARKERS = { "Crash report saved to", "Minecraft Crash Report" };
+    private static final String[] LOG4J_MARKERS = { "log4j:", "<log4j:Event>", "</log4j:Event>" };
+
+    private final AbstractAccount account;
+    private final boolean isMinecraft16;
+    private long droppedLines = 0;
+    private final StringBuilder log4jEvent = new StringBuilder();
+
+    private final int errorsOffset = LogManager.getMinecraftLevelPatterns().size();
+    private final int crashOffset = errorsOffset + KNOWN_ERRORS.length;
+    private final int log4jOffset = crashOffset + CRASH_MARKERS.length;
+    private final int censorOffset = log4jOffset + LOG4J_MARKERS.length;
+
+    private String accessToken;
+    private MultiStringMatcher matcher;
+    private String[] replacements;
+    private int[] first;
+    private int[] last;
+
+    private int detectedError = 0;
+    private boolean crashedWithoutKnownResolution = false;
+
+    MinecraftLogProcessor(AbstractAccount account, boolean isMinecraft16) {
+        this.account = account;
+        this.isMinecraft16 = isMinecraft16;
+
+        buildMatcher();
+    }
+
+    void process(String line) {
+        // access tokens can be refreshed while the game is running, so make sure we're censoring the current one
+        if (account.getAccessToken() != null && !account.getAccessToken().equals(accessToken)) {
+            buildMatcher();
+        }
+
+        matcher.findFirstAndLast(line, first, last);
+
+        for (int i = 0; i < KNOWN_ERRORS.length; i++) {
+            if (first[errorsOffset + i] != -1
+                    && (KNOWN_ERROR_TYPES[i] != MinecraftError.CONCURRENT_MODIFICATION_ERROR_1_6 || isMinecraft16)) {
+                detectedError = KNOWN_ERROR_TYPES[i];
+            }
+        }
+
+        for (int i = 0; i < CRASH_MARKERS.length; i++) {
+            if (first[crashOffset + i] != -1) {
+                crashedWithoutKnownResolution = true;
+            }
+        }
+
+        for (int i = censorOffset; i < first.length; i++) {
+            if (first[i] != -1) {
+                // rare enough that it's not worth tracking how censoring shifts everything else in the line
+                line = matcher.replaceAll(line, replacements);
+                matcher.findFirstAndLast(line, first, last);
+                break;
+            }
+        }
+
+        if (first[log4jOffset] != -1) {
+            try {
+                // start of a new event so clear string builder
+                if (first[log4jOffset + 1] != -1) {
+                    log4jEvent.setLength(0);
+                }
+
+                log4jEvent.append(line);
+
+                // end of the xml object so parse it
+                if (first[log4jOffset + 2] != -1) {
+                    if (!LogManager.minecraftLog4j(log4jEvent.toString())) {
+                        droppedLines++;
+                    }
+
+                    log4jEvent.setLength(0);
+                }
+
+                return;
+            } catch (Exception e) {
+                // ignored
+            }
+        }
+
+        Object[] value = LogManager.prepareMessageForMinecraftLog(line, first, last);
+        if (!LogManager.minecraft((LogType) value[0], (String) value[1])) {
+            droppedLines++;
+        }
+    }
+
+    /**
+     * Logs how many lines were dropped while the instance was running, if any.
+     */
+    void finish() {
+        if (droppedLines > 0) {
+            LogManager.warn(String.format(
+                    "%d log lines were dropped as the console couldn't keep up. Enable lossless Minecraft logs to keep "
+                            + "them all.",
+                    droppedLines));
+        }
+    }
+
+    int getDetectedError() {
+        return detectedError;
+    }
+
+    boolean hasCrashedWithoutKnownResolution() {
+        return crashedWithoutKnownResolution;
+    }
+
+    private void buildMatcher() {
+        accessToken = account.getAccessToken();
+
+        List<String> patterns = new ArrayList<>(LogManager.getMinecraftLevelPatterns());
+        patterns.addAll(Arrays.asList(KNOWN_ERRORS));
+        patterns.addAll(Arrays.asList(CRASH_MARKERS));
+        patterns.addAll(Arrays.asList(LOG4J_MARKERS));
+
+        List<String> censored = new ArrayList<>();
+        if (!LogManager.showDebug) {
+            addCensored(patterns, censored, account.minecraftUsername, "**MINECRAFTUSERNAME**");
+            addCensored(patterns, censored, account.username, "**MINECRAFTUSERNAME**");
+            addCensored(patterns, censored, account.uuid, "**UUID**");
+            addCensored(patterns, censored, account.uuid == null ? null : account.uuid.replace("-", ""), "**UUID**");
+        }
+        addCensored(patterns, censored, accessToken, "**ACCESSTOKEN**");
+
+        matcher = new MultiStringMatcher(patterns);
+        replacements = new String[patterns.size()];
+        for (int i = 0; i < censored.size(); i++) {
+            replacements[censorOffset + i] = censored.get(i);
+        }
+        first = new int[patterns.size()];
+        last = new int[patterns.size()];
+    }
+
+    private static void addCensored(List<String> patterns, List<String> replacements, String value,
+            String replacement) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+
+        patterns.add(value);
+        replacements.add(replacement);
+    }
+}
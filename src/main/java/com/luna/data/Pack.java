@@ -17,7 +17,6 @@
  */
 package com.luna.data;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -43,6 +42,7 @@ import com.luna.managers.ConfigManager;
 import com.luna.managers.LogManager;
 import com.luna.managers.PackManager;
 import com.luna.network.GraphqlClient;
+import com.luna.utils.ImageCache;
 import com.luna.utils.Utils;
 
 public class Pack {
@@ -97,11 +97,14 @@ public class Pack {
     }
 
     public ImageIcon getImage() {
-        File imageFile = FileSystem.IMAGES.resolve(getSafeName().toLowerCase(Locale.ENGLISH) + ".png").toFile();
-        if (!imageFile.exists()) {
+        ImageIcon image = ImageCache.get(
+                FileSystem.IMAGES.resolve(getSafeName().toLowerCase(Locale.ENGLISH) + ".png"), 0, 0);
+
+        if (image == null) {
             return Utils.getIconImage("/assets/image/default-image.png");
         }
-        return Utils.getIconImage(imageFile);
+
+        return image;
     }
 
     public boolean isPublic() {
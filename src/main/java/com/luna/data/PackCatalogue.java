@@ -0,0 +1,69 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The packs available in the launcher, along with indexes to find them by id, name and safe name without going
+ * through every pack. A catalogue never changes once built, so when packs are reloaded a new one is built and swapped
+ * in, and anyone still using the old one just sees the packs from before the reload.
+ */
+public final class PackCatalogue {
+    public static final PackCatalogue EMPTY = new PackCatalogue(new ArrayList<>());
+
+    private final List<Pack> packs;
+    private final Map<Integer, Pack> byId = new HashMap<>();
+    private final Map<String, Pack> byName = new HashMap<>();
+    private final Map<String, Pack> bySafeName = new HashMap<>();
+
+    public PackCatalogue(List<Pack> packs) {
+        this.packs = Collections.unmodifiableList(new ArrayList<>(packs));
+
+        // when there are duplicates, the first one wins, which is the same one a search through the list would find
+        for (Pack pack : this.packs) {
+            byId.putIfAbsent(pack.getID(), pack);
+
+            if (pack.getName() != null) {
+                byName.putIfAbsent(pack.getName().toLowerCase(Locale.ENGLISH), pack);
+                bySafeName.putIfAbsent(pack.getSafeName().toLowerCase(Locale.ENGLISH), pack);
+            }
+        }
+    }
+
+    public List<Pack> getPacks() {
+        return packs;
+    }
+
+    public Pack getById(int id) {
+        return byId.get(id);
+    }
+
+    public Pack getByName(String name) {
+        return name == null ? null : byName.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    public Pack getBySafeName(String safeName) {
+        return safeName == null ? null : bySafeName.get(safeName.toLowerCase(Locale.ENGLISH));
+    }
+}
@@ -17,10 +17,6 @@
  */
 package com.luna.data;
 
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -36,9 +32,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
 
-import javax.imageio.IIOException;
-import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -70,6 +65,7 @@ import com.luna.managers.PackManager;
 import com.luna.network.Analytics;
 import com.luna.network.analytics.AnalyticsEvent;
 import com.luna.utils.ArchiveUtils;
+import com.luna.utils.ImageCache;
 import com.luna.utils.OS;
 import com.luna.utils.Utils;
 import com.google.gson.JsonIOException;
@@ -464,49 +460,54 @@ public class Server {
     }
 
     public ImageIcon getImage() {
-        File customImage = this.getRoot().resolve("server.png").toFile();
-
-        if (customImage.exists()) {
-            try {
-                BufferedImage img = ImageIO.read(customImage);
-                if (img != null) {
-                    // if a square image, then make it 300x150 (without stretching) centered
-                    if (img.getHeight(null) == img.getWidth(null)) {
-                        BufferedImage dimg = new BufferedImage(300, 150, BufferedImage.TYPE_INT_ARGB);
-
-                        Graphics2D g2d = dimg.createGraphics();
-                        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                        g2d.drawImage(img, 75, 0, 150, 150, null);
-                        g2d.dispose();
-
-                        return new ImageIcon(dimg);
-                    }
+        Path customImage = this.getRoot().resolve("server.png");
 
-                    return new ImageIcon(img.getScaledInstance(300, 150, Image.SCALE_SMOOTH));
-                }
-            } catch (IIOException e) {
-                LogManager.warn("Error creating scaled image from the custom image of server " + this.name
-                        + ". Using default image.");
-            } catch (Exception e) {
-                LogManager.logStackTrace(
-                        "Error creating scaled image from the custom image of server " + this.name, e,
-                        false);
+        if (Files.exists(customImage)) {
+            ImageIcon image = ImageCache.get(customImage, 300, 150);
+
+            if (image != null) {
+                return image;
             }
         }
 
         if (getPack() != null) {
-            File instancesImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png")
-                    .toFile();
+            Path packImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png");
+
+            if (Files.exists(packImage)) {
+                ImageIcon image = ImageCache.get(packImage, 0, 0);
 
-            if (instancesImage.exists()) {
-                return Utils.getIconImage(instancesImage);
+                if (image != null) {
+                    return image;
+                }
             }
         }
 
         return Utils.getIconImage("/assets/image/default-image.png");
     }
 
+    /**
+     * Gets the image for this server without waiting for it to be read if it's not already cached. Until then the
+     * default image is returned, and the real image is passed to the callback on the EDT once it's ready.
+     */
+    public ImageIcon getImage(Consumer<ImageIcon> onLoaded) {
+        ImageIcon defaultImage = Utils.getIconImage("/assets/image/default-image.png");
+        Path customImage = this.getRoot().resolve("server.png");
+
+        if (Files.exists(customImage)) {
+            return ImageCache.getOrLoad(customImage, 300, 150, defaultImage, onLoaded);
+        }
+
+        if (getPack() != null) {
+            Path packImage = FileSystem.IMAGES.resolve(this.getSafePackName().toLowerCase(Locale.ENGLISH) + ".png");
+
+            if (Files.exists(packImage)) {
+                return ImageCache.getOrLoad(packImage, 0, 0, defaultImage, onLoaded);
+            }
+        }
+
+        return defaultImage;
+    }
+
     public void startChangeDescription() {
         JTextArea textArea = new JTextArea(description);
         textArea.setColumns(30);
@@ -537,6 +538,7 @@ public class Server {
                 Analytics.trackEvent(AnalyticsEvent.forServerEvent("server_image_change", this));
                 try {
                     Utils.safeCopy(img, getRoot().resolve("server.png").toFile());
+                    ImageCache.invalidate(getRoot().resolve("server.png"));
                     save();
                 } catch (IOException ex) {
                     LogManager.logStackTrace("Failed to set server image", ex);
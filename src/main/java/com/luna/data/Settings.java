@@ -124,12 +124,15 @@ public class Settings {
     // Logging
     public String forgeLoggingLevel = "INFO";
     public boolean enableLogs = true;
+    public boolean losslessMinecraftLogs = false;
     public boolean enableAnalytics = true;
     public String analyticsClientId = UUID.randomUUID().toString();
 
     // Backups
     public boolean enableAutomaticBackupAfterLaunch = false;
     public BackupMode backupMode = BackupMode.NORMAL;
+    public boolean incrementalBackups = false;
+    public int incrementalBackupsToKeep = 0;
 
     // Commands
     public boolean enableCommands = false;
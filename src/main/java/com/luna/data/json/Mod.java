@@ -20,6 +20,7 @@ package com.luna.data.json;
 import java.awt.Color;
 import java.io.File;
 import java.io.FilenameFilter;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.mini2Dx.gettext.GetText;
@@ -34,6 +35,7 @@ import com.luna.data.modrinth.ModrinthProject;
 import com.luna.data.modrinth.ModrinthVersion;
 import com.luna.managers.DialogManager;
 import com.luna.managers.LogManager;
+import com.luna.utils.ContentStore;
 import com.luna.utils.Hashing;
 import com.luna.utils.OS;
 import com.luna.utils.Utils;
@@ -672,6 +674,10 @@ public class Mod {
         return true;
     }
 
+    private void installFile(File fileLocation, Path directory) {
+        ContentStore.materialize(fileLocation.toPath(), directory.resolve(fileLocation.getName()));
+    }
+
     public void install(InstanceInstaller installer) {
         File fileLocation;
         ModType thisType;
@@ -686,17 +692,17 @@ public class Mod {
             case jar:
             case forge:
                 if (installer.isServer && thisType == ModType.forge) {
-                    Utils.copyFile(fileLocation, installer.root.toFile());
+                    installFile(fileLocation, installer.root);
                     break;
                 } else if (installer.isServer && thisType == ModType.jar) {
                     Utils.unzip(fileLocation, installer.temp.resolve("jar").toFile());
                     break;
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("jarmods").toFile());
+                installFile(fileLocation, installer.root.resolve("jarmods"));
                 break;
             case mcpc:
                 if (installer.isServer) {
-                    Utils.copyFile(fileLocation, installer.root.toFile());
+                    installFile(fileLocation, installer.root);
                     break;
                 }
                 break;
@@ -704,13 +710,13 @@ public class Mod {
                 if (!installer.root.resolve("texturepacks").toFile().exists()) {
                     installer.root.resolve("texturepacks").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("texturepacks").toFile());
+                installFile(fileLocation, installer.root.resolve("texturepacks"));
                 break;
             case resourcepack:
                 if (!installer.root.resolve("resourcepacks").toFile().exists()) {
                     installer.root.resolve("resourcepacks").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("resourcepacks").toFile());
+                installFile(fileLocation, installer.root.resolve("resourcepacks"));
                 break;
             case texturepackextract:
                 if (!installer.root.resolve("texturepacks").toFile().exists()) {
@@ -744,53 +750,53 @@ public class Mod {
                         installer.root.resolve(path).toFile().mkdirs();
                     }
 
-                    Utils.copyFile(fileLocation, installer.root.resolve(path).toFile());
+                    installFile(fileLocation, installer.root.resolve(path));
                 } else {
-                    Utils.copyFile(fileLocation, installer.root.resolve("mods").toFile());
+                    installFile(fileLocation, installer.root.resolve("mods"));
                 }
                 break;
             case ic2lib:
                 if (!installer.root.resolve("mods/ic2").toFile().exists()) {
                     installer.root.resolve("mods/ic2").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("mods/ic2").toFile());
+                installFile(fileLocation, installer.root.resolve("mods/ic2"));
                 break;
             case flan:
                 if (!installer.root.resolve("Flan").toFile().exists()) {
                     installer.root.resolve("Flan").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("Flan").toFile());
+                installFile(fileLocation, installer.root.resolve("Flan"));
                 break;
             case denlib:
                 if (!installer.root.resolve("mods/denlib").toFile().exists()) {
                     installer.root.resolve("mods/denlib").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("mods/denlib").toFile());
+                installFile(fileLocation, installer.root.resolve("mods/denlib"));
                 break;
             case depandency:
             case dependency:
                 if (!installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile().exists()) {
                     installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile().mkdirs();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile());
+                installFile(fileLocation, installer.root.resolve("mods/" + installer.minecraftVersion.id));
                 break;
             case plugins:
                 if (!installer.root.resolve("plugins").toFile().exists()) {
                     installer.root.resolve("plugins").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("plugins").toFile());
+                installFile(fileLocation, installer.root.resolve("plugins"));
                 break;
             case coremods:
                 if (!installer.root.resolve("coremods").toFile().exists()) {
                     installer.root.resolve("coremods").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("coremods").toFile());
+                installFile(fileLocation, installer.root.resolve("coremods"));
                 break;
             case shaderpack:
                 if (!installer.root.resolve("shaderpacks").toFile().exists()) {
                     installer.root.resolve("shaderpacks").toFile().mkdir();
                 }
-                Utils.copyFile(fileLocation, installer.root.resolve("shaderpacks").toFile());
+                installFile(fileLocation, installer.root.resolve("shaderpacks"));
                 break;
             case extract:
                 File tempDirExtract = FileSystem.TEMP.resolve(getSafeName()).toFile();
@@ -0,0 +1,395 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data.minecraft;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import com.luna.FileSystem;
+import com.luna.constants.Constants;
+import com.luna.managers.LogManager;
+import com.luna.network.Download;
+import com.luna.utils.FileUtils;
+import com.google.gson.stream.JsonReader;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * A compact version of an {@link AssetIndex}. Rather than a map of thousands of objects each holding a hash string,
+ * the objects are kept in flat arrays, with each hash stored as its 20 raw bytes. Objects that more than one key
+ * points to are only stored once.
+ *
+ * The index json is read a token at a time rather than being parsed into a tree first, and the result is cached both
+ * in memory and on disk per index id, so it's only read once for each version of an index.
+ */
+public final class CompactAssetIndex {
+    private static final int CACHE_VERSION = 1;
+    private static final int HASH_LENGTH = 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final Map<String, CompactAssetIndex> LOADED = new ConcurrentHashMap<>();
+
+    public final boolean virtual;
+    public final boolean mapToResources;
+
+    private final String indexHash;
+    private final byte[] hashes;
+    private final long[] sizes;
+    // the keys for object i are keys[firstKey[i]] up to (but not including) keys[firstKey[i + 1]]
+    private final int[] firstKey;
+    private final String[] keys;
+
+    private CompactAssetIndex(String indexHash, boolean virtual, boolean mapToResources, byte[] hashes, long[] sizes,
+            int[] firstKey, String[] keys) {
+        this.indexHash = indexHash;
+        this.virtual = virtual;
+        this.mapToResources = mapToResources;
+        this.hashes = hashes;
+        this.sizes = sizes;
+        this.firstKey = firstKey;
+        this.keys = keys;
+    }
+
+    /**
+     * Gets the given asset index, downloading its json if needed.
+     */
+    public static CompactAssetIndex get(MojangAssetIndex assetIndex, OkHttpClient httpClient) throws IOException {
+        Path indexPath = FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json");
+
+        Download.build().setUrl(assetIndex.url).hash(assetIndex.sha1).size(assetIndex.size).downloadTo(indexPath)
+                .withHttpClient(httpClient).downloadFile();
+
+        if (!Files.exists(indexPath)) {
+            throw new IOException("Failed to download asset index " + assetIndex.id);
+        }
+
+        CompactAssetIndex index = LOADED.get(assetIndex.id);
+        if (index != null && index.indexHash.equalsIgnoreCase(assetIndex.sha1)) {
+            return index;
+        }
+
+        Path cachePath = FileSystem.ASSET_INDEX_CACHE.resolve(assetIndex.id + ".bin");
+        index = readCache(cachePath, assetIndex.sha1);
+
+        if (index == null) {
+            index = read(indexPath, assetIndex.sha1);
+            writeCache(cachePath, index);
+        }
+
+        LOADED.put(assetIndex.id, index);
+
+        return index;
+    }
+
+    /**
+     * Reads the given asset index json.
+     */
+    static CompactAssetIndex read(Path indexPath, String indexHash) throws IOException {
+        boolean virtual = false;
+        boolean mapToResources = false;
+
+        Map<String, Integer> objectsByHash = new HashMap<>();
+        List<String> objectHashes = new ArrayList<>();
+        long[] sizes = new long[4096];
+        List<String> keys = new ArrayList<>();
+        int[] keyObjects = new int[4096];
+
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(Files.newInputStream(indexPath), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "objects":
+                        reader.beginObject();
+
+                        while (reader.hasNext()) {
+                            String key = reader.nextName();
+                            String hash = null;
+                            long size = 0;
+
+                            reader.beginObject();
+                            while (reader.hasNext()) {
+                                String name = reader.nextName();
+
+                                if (name.equals("hash")) {
+                                    hash = reader.nextString();
+                                } else if (name.equals("size")) {
+                                    size = reader.nextLong();
+                                } else {
+                                    reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+
+                            if (hash == null) {
+                                throw new IOException("Asset " + key + " has no hash in " + indexPath);
+                            }
+
+                            Integer object = objectsByHash.get(hash);
+                            if (object == null) {
+                                object = objectHashes.size();
+                                objectsByHash.put(hash, object);
+                                objectHashes.add(hash);
+
+                                if (object == sizes.length) {
+                                    sizes = Arrays.copyOf(sizes, sizes.length * 2);
+                                }
+                                sizes[object] = size;
+                            }
+
+                            if (keys.size() == keyObjects.length) {
+                                keyObjects = Arrays.copyOf(keyObjects, keyObjects.length * 2);
+                            }
+                            keyObjects[keys.size()] = object;
+                            keys.add(key);
+                        }
+
+                        reader.endObject();
+                        break;
+                    case "virtual":
+                        virtual = reader.nextBoolean();
+                        break;
+                    case "map_to_resources":
+                        mapToResources = reader.nextBoolean();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid asset index " + indexPath, e);
+        }
+
+        int objectCount = objectHashes.size();
+        byte[] hashes = new byte[objectCount * HASH_LENGTH];
+        for (int i = 0; i < objectCount; i++) {
+            decodeHash(objectHashes.get(i), hashes, i * HASH_LENGTH);
+        }
+
+        // group the keys by the object they point to, so the keys for an object can be found without a map
+        int[] firstKey = new int[objectCount + 1];
+        for (int i = 0; i < keys.size(); i++) {
+            firstKey[keyObjects[i] + 1]++;
+        }
+        for (int i = 0; i < objectCount; i++) {
+            firstKey[i + 1] += firstKey[i];
+        }
+
+        String[] groupedKeys = new String[keys.size()];
+        int[] nextKey = Arrays.copyOf(firstKey, objectCount);
+        for (int i = 0; i < keys.size(); i++) {
+            groupedKeys[nextKey[keyObjects[i]]++] = keys.get(i);
+        }
+
+        return new CompactAssetIndex(indexHash, virtual, mapToResources, hashes, Arrays.copyOf(sizes, objectCount),
+                firstKey, groupedKeys);
+    }
+
+    public int getObjectCount() {
+        return sizes.length;
+    }
+
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    public long getSize(int object) {
+        return sizes[object];
+    }
+
+    public String getHash(int object) {
+        char[] hex = new char[HASH_LENGTH * 2];
+        int offset = object * HASH_LENGTH;
+
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int b = hashes[offset + i] & 0xff;
+            hex[i * 2] = HEX[b >>> 4];
+            hex[i * 2 + 1] = HEX[b & 0x0f];
+        }
+
+        return new String(hex);
+    }
+
+    public List<String> getKeys(int object) {
+        return Collections.unmodifiableList(Arrays.asList(keys).subList(firstKey[object], firstKey[object + 1]));
+    }
+
+    public Path getObjectPath(int object) {
+        String hash = getHash(object);
+
+        return FileSystem.RESOURCES_OBJECTS.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    public Download createDownload(int object) {
+        String hash = getHash(object);
+
+        return new Download()
+                .setUrl(String.format("%s/%s/%s", Constants.MINECRAFT_RESOURCES, hash.substring(0, 2), hash))
+                .downloadTo(FileSystem.RESOURCES_OBJECTS.resolve(hash.substring(0, 2)).resolve(hash)).hash(hash)
+                .size(sizes[object]).withFriendlyFileName(keys[firstKey[object]]);
+    }
+
+    /**
+     * Copies an object to everywhere it's keyed in the instance (or the legacy virtual folder for indexes which don't
+     * map to resources), skipping any that are already there.
+     */
+    public void copyToInstance(int object, Path instanceRoot) {
+        Path objectPath = getObjectPath(object);
+
+        for (int i = firstKey[object]; i < firstKey[object + 1]; i++) {
+            Path assetPath = mapToResources ? instanceRoot.resolve("resources/" + keys[i])
+                    : FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(keys[i]);
+
+            if (!Files.exists(assetPath)) {
+                FileUtils.copyFile(objectPath, assetPath, true);
+            }
+        }
+    }
+
+    /**
+     * Finds the objects which aren't on disk yet, or which are but aren't the right size. Objects are named by their
+     * hash so never change once they're downloaded, which means only the size needs checking.
+     */
+    public int[] findMissingObjects() {
+        return IntStream.range(0, getObjectCount()).parallel().filter(object -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(getObjectPath(object),
+                        BasicFileAttributes.class);
+
+                return !attributes.isRegularFile() || attributes.size() != sizes[object];
+            } catch (IOException e) {
+                return true;
+            }
+        }).toArray();
+    }
+
+    public long getTotalSize(int[] objects) {
+        long total = 0;
+
+        for (int object : objects) {
+            total += sizes[object];
+        }
+
+        return total;
+    }
+
+    private static void decodeHash(String hash, byte[] into, int offset) throws IOException {
+        if (hash.length() != HASH_LENGTH * 2) {
+            throw new IOException("Invalid asset hash " + hash);
+        }
+
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int high = Character.digit(hash.charAt(i * 2), 16);
+            int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+
+            if (high == -1 || low == -1) {
+                throw new IOException("Invalid asset hash " + hash);
+            }
+
+            into[offset + i] = (byte) ((high << 4) | low);
+        }
+    }
+
+    static CompactAssetIndex readCache(Path cachePath, String indexHash) {
+        if (!Files.exists(cachePath)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachePath)))) {
+            if (in.readInt() != CACHE_VERSION || !in.readUTF().equalsIgnoreCase(indexHash)) {
+                return null;
+            }
+
+            boolean virtual = in.readBoolean();
+            boolean mapToResources = in.readBoolean();
+
+            int objectCount = in.readInt();
+            byte[] hashes = new byte[objectCount * HASH_LENGTH];
+            in.readFully(hashes);
+
+            long[] sizes = new long[objectCount];
+            int[] firstKey = new int[objectCount + 1];
+            for (int i = 0; i < objectCount; i++) {
+                sizes[i] = in.readLong();
+                firstKey[i + 1] = in.readInt();
+            }
+
+            String[] keys = new String[firstKey[objectCount]];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.readUTF();
+            }
+
+            return new CompactAssetIndex(indexHash, virtual, mapToResources, hashes, sizes, firstKey, keys);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error reading cached asset index " + cachePath.getFileName(), e, false);
+            return null;
+        }
+    }
+
+    static void writeCache(Path cachePath, CompactAssetIndex index) {
+        FileUtils.createDirectory(cachePath.getParent());
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(CACHE_VERSION);
+                out.writeUTF(index.indexHash);
+                out.writeBoolean(index.virtual);
+                out.writeBoolean(index.mapToResources);
+
+                out.writeInt(index.getObjectCount());
+                out.write(index.hashes);
+                for (int i = 0; i < index.getObjectCount(); i++) {
+                    out.writeLong(index.sizes[i]);
+                    out.writeInt(index.firstKey[i + 1]);
+                }
+
+                for (String key : index.keys) {
+                    out.writeUTF(key);
+                }
+            }
+
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error caching asset index " + cachePath.getFileName(), e, false);
+            FileUtils.delete(tempPath);
+        }
+    }
+}
@@ -17,6 +17,8 @@
  */
 package com.luna.data.minecraft;
 
+import java.nio.file.Path;
+
 import com.luna.annot.Json;
 
 @Json
@@ -24,4 +26,18 @@ public class JavaRuntimeManifestFile {
     public JavaRuntimeManifestFileType type;
     public JavaRuntimeManifestFileDownloads downloads;
     public boolean executable;
+
+    /**
+     * Creates the download for this file, which uses the LZMA compressed version of the file when there is one.
+     */
+    public com.luna.network.Download createDownload(Path to) {
+        com.luna.network.Download download = com.luna.network.Download.build().setUrl(downloads.raw.url)
+                .downloadTo(to).hash(downloads.raw.sha1).size(downloads.raw.size).executable(executable);
+
+        if (downloads.lzma != null && downloads.lzma.url != null) {
+            download.lzma(downloads.lzma.url, downloads.lzma.size);
+        }
+
+        return download;
+    }
 }
@@ -0,0 +1,32 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data.minecraft;
+
+/**
+ * The details about a mod that we show to the user, pulled out of whichever metadata file the mod jar has.
+ */
+public class ModMetadata {
+    public String id;
+    public String name;
+    public String version;
+    public String description;
+
+    public boolean isEmpty() {
+        return id == null && name == null && version == null && description == null;
+    }
+}
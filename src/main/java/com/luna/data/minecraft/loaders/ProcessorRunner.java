@@ -0,0 +1,322 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data.minecraft.loaders;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+import com.luna.FileSystem;
+import com.luna.managers.LogManager;
+import com.luna.utils.FileHashIndex;
+import com.luna.utils.FileUtils;
+import com.luna.utils.Hashing;
+import com.luna.utils.Java;
+import com.luna.workers.InstanceInstaller;
+
+/**
+ * Runs the processors from a Forge/NeoForge install profile.
+ *
+ * Processors which don't touch each others files are run at the same time, each in its own JVM so that whatever
+ * they load and leave behind in statics doesn't end up in the launcher. The outputs of each processor are cached by
+ * its jar, arguments and the hashes of its inputs, so installing the same loader version again just copies the
+ * outputs back out rather than running the processors again.
+ */
+public final class ProcessorRunner {
+    private static final int MAX_CONCURRENT_PROCESSORS = Math.max(1,
+            Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    private ProcessorRunner() {
+    }
+
+    public static void runAll(List<ProcessorTask> tasks, InstanceInstaller instanceInstaller) {
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_PROCESSORS);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                ProcessorTask task = tasks.get(i);
+
+                List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    if (task.dependsOn(tasks.get(j))) {
+                        dependencies.add(futures.get(j));
+                    }
+                }
+
+                futures.add(CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                        .thenRunAsync(() -> run(task, instanceInstaller), executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to run processors", e);
+            instanceInstaller.cancel(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void run(ProcessorTask task, InstanceInstaller instanceInstaller) {
+        if (instanceInstaller.isCancelled() || !task.needToRun()) {
+            return;
+        }
+
+        for (File input : task.inputs) {
+            if (!input.isFile()) {
+                LogManager.error("Failed to process processor with jar " + task.jar + " as the file "
+                        + input.getAbsolutePath() + " doesn't exist");
+                instanceInstaller.cancel(true);
+                return;
+            }
+        }
+
+        String cacheKey = getCacheKey(task);
+
+        if (cacheKey != null && restoreFromCache(task, cacheKey)) {
+            LogManager.debug("Restored outputs of processor " + task.jar + " from cache");
+            return;
+        }
+
+        try {
+            String mainClass;
+            try (JarFile jarFile = new JarFile(task.jarFile)) {
+                mainClass = jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+            }
+            LogManager.debug("Found mainclass of " + mainClass);
+
+            if (mainClass == null || mainClass.isEmpty()) {
+                LogManager.error("Failed to process processor with jar " + task.jar + " as the mainclass wasn't found");
+                instanceInstaller.cancel(true);
+                return;
+            }
+
+            LogManager.debug("Running processor with args \"" + String.join(" ", task.args) + "\"");
+
+            boolean success;
+            try {
+                success = runInChildJvm(task, mainClass);
+            } catch (IOException e) {
+                LogManager.warn("Couldn't start a JVM for processor " + task.jar + ", running it in the launcher: "
+                        + e.getMessage());
+                success = runInLauncher(task, mainClass);
+            }
+
+            if (!success) {
+                LogManager.error(
+                        "Failed to process processor with jar " + task.jar + " as there was an error invoking the jar");
+                instanceInstaller.cancel(true);
+                return;
+            }
+
+            task.outputs.forEach(output -> FileHashIndex.invalidate(output.toPath()));
+
+            if (cacheKey != null) {
+                storeInCache(task, cacheKey);
+            }
+        } catch (Throwable e) {
+            LogManager.logStackTrace(e);
+            LogManager.error(
+                    "Failed to process processor with jar " + task.jar + " as there was an error invoking the jar");
+            instanceInstaller.cancel(true);
+        }
+    }
+
+    private static boolean runInChildJvm(ProcessorTask task, String mainClass) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Java.getPathToSystemJavaExecutable());
+        command.add("-cp");
+        command.add(getClasspath(task).stream().map(File::getAbsolutePath)
+                .collect(Collectors.joining(File.pathSeparator)));
+        command.add(mainClass);
+        command.addAll(task.args);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LogManager.debug(line);
+            }
+        }
+
+        try {
+            int exitCode = process.waitFor();
+
+            if (exitCode != 0) {
+                LogManager.error("Processor " + task.jar + " exited with code " + exitCode);
+            }
+
+            return exitCode == 0;
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean runInLauncher(ProcessorTask task, String mainClass) throws IOException {
+        List<URL> classpath = new ArrayList<>();
+        for (File file : getClasspath(task)) {
+            classpath.add(file.toURI().toURL());
+        }
+
+        ClassLoader parentClassLoader = null;
+        try {
+            Method getPlatform = ClassLoader.class.getDeclaredMethod("getPlatformClassLoader");
+            parentClassLoader = (ClassLoader) getPlatform.invoke(null);
+        } catch (Exception e) {
+        }
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader threadClassloader = currentThread.getContextClassLoader();
+
+        try (URLClassLoader cl = new URLClassLoader(classpath.toArray(new URL[0]), parentClassLoader)) {
+            currentThread.setContextClassLoader(cl);
+
+            Class<?> cls = Class.forName(mainClass, true, cl);
+            Method main = cls.getDeclaredMethod("main", String[].class);
+            main.invoke(null, (Object) task.args.toArray(new String[0]));
+
+            return true;
+        } catch (InvocationTargetException ite) {
+            LogManager.logStackTrace(ite.getCause());
+            return false;
+        } catch (ReflectiveOperationException e) {
+            LogManager.logStackTrace(e);
+            return false;
+        } finally {
+            currentThread.setContextClassLoader(threadClassloader);
+        }
+    }
+
+    private static List<File> getClasspath(ProcessorTask task) {
+        List<File> classpath = new ArrayList<>();
+        classpath.add(task.jarFile);
+        classpath.addAll(task.classpath);
+
+        return classpath;
+    }
+
+    /**
+     * Works out the key to cache the processors outputs under, which is the same for any run of the processor with
+     * the same jars, arguments and inputs no matter where the inputs or outputs are. Returns null if the processors
+     * outputs aren't all known, since then they can't be restored from the cache.
+     */
+    private static String getCacheKey(ProcessorTask task) {
+        if (task.outputs.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder();
+
+        for (File file : getClasspath(task)) {
+            key.append("cp:").append(FileHashIndex.sha1(file.toPath())).append('\n');
+        }
+
+        List<File> outputs = new ArrayList<>(task.outputs);
+        for (String arg : task.args) {
+            File file = new File(arg).getAbsoluteFile();
+
+            if (task.inputs.contains(file)) {
+                key.append("in:").append(FileHashIndex.sha1(file.toPath())).append('\n');
+            } else if (task.outputs.contains(file)) {
+                key.append("out:").append(outputs.indexOf(file)).append('\n');
+            } else if (file.isFile()) {
+                key.append("file:").append(FileHashIndex.sha1(file.toPath())).append('\n');
+            } else if (new File(arg).isAbsolute() && !file.isDirectory()) {
+                // probably a file the processor writes that we don't know about, which we couldn't restore
+                return null;
+            } else {
+                key.append("arg:").append(arg).append('\n');
+            }
+        }
+
+        return Hashing.md5(key.toString()).toString();
+    }
+
+    private static boolean restoreFromCache(ProcessorTask task, String cacheKey) {
+        Path cacheDir = FileSystem.PROCESSOR_CACHE.resolve(cacheKey);
+
+        if (!Files.isDirectory(cacheDir)) {
+            return false;
+        }
+
+        int index = 0;
+        for (File output : task.outputs) {
+            Path cached = cacheDir.resolve(Integer.toString(index++));
+
+            if (!Files.isRegularFile(cached) || !FileUtils.copyFile(cached, output.toPath(), true)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void storeInCache(ProcessorTask task, String cacheKey) {
+        Path cacheDir = FileSystem.PROCESSOR_CACHE.resolve(cacheKey);
+        Path stagingDir = FileSystem.PROCESSOR_CACHE
+                .resolve(cacheKey + "." + UUID.randomUUID().toString().replace("-", "") + ".tmp");
+
+        try {
+            Files.createDirectories(stagingDir);
+
+            int index = 0;
+            for (File output : task.outputs) {
+                // some processors only write their outputs when there's something to write, so nothing to cache
+                if (!output.isFile()) {
+                    return;
+                }
+
+                Files.copy(output.toPath(), stagingDir.resolve(Integer.toString(index++)),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            Files.move(stagingDir, cacheDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // another install may have cached the same outputs at the same time, which is fine
+            if (!Files.isDirectory(cacheDir)) {
+                LogManager.logStackTrace("Failed to cache outputs of processor " + task.jar, e, false);
+            }
+        } finally {
+            if (Files.isDirectory(stagingDir)) {
+                FileUtils.deleteDirectoryQuietly(stagingDir);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data.minecraft.loaders;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A Forge/NeoForge installer processor with all of its arguments resolved, ready to be run by the
+ * {@link ProcessorRunner}.
+ */
+public class ProcessorTask {
+    /**
+     * Arguments which are followed by a file the processor writes to, used to work out what each processor outputs
+     * when its install profile doesn't list it.
+     */
+    private static final List<String> OUTPUT_FLAGS = Arrays.asList("--output", "--out", "--out-jar", "--slim",
+            "--extra");
+
+    public final String jar;
+    public final File jarFile;
+    public final List<File> classpath;
+    public final List<String> args;
+    public final Set<File> inputs = new LinkedHashSet<>();
+    public final Set<File> outputs = new LinkedHashSet<>();
+
+    private final BooleanSupplier needToRun;
+
+    /**
+     * @param fileArgs the arguments which were resolved from files, either inputs or outputs of the processor
+     * @param declaredOutputs the output files listed for this processor in the install profile
+     */
+    public ProcessorTask(String jar, File jarFile, List<File> classpath, List<String> args, Set<String> fileArgs,
+            List<File> declaredOutputs, BooleanSupplier needToRun) {
+        this.jar = jar;
+        this.jarFile = jarFile;
+        this.classpath = classpath;
+        this.args = args;
+        this.needToRun = needToRun;
+
+        this.outputs.addAll(declaredOutputs);
+
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+
+            if (i != 0 && OUTPUT_FLAGS.contains(args.get(i - 1))) {
+                this.outputs.add(new File(arg).getAbsoluteFile());
+            } else if (fileArgs.contains(arg)) {
+                this.inputs.add(new File(arg).getAbsoluteFile());
+            }
+        }
+
+        this.inputs.removeAll(this.outputs);
+    }
+
+    public boolean needToRun() {
+        return needToRun.getAsBoolean();
+    }
+
+    /**
+     * Checks if this processor has to run after the given earlier one, because one writes to something the other
+     * uses. Processors which don't say what they write could touch anything, so they always run in order.
+     */
+    public boolean dependsOn(ProcessorTask earlier) {
+        if (this.outputs.isEmpty() || earlier.outputs.isEmpty()) {
+            return true;
+        }
+
+        List<File> touched = new ArrayList<>(this.inputs);
+        touched.addAll(this.outputs);
+
+        return touched.stream().anyMatch(earlier.outputs::contains)
+                || this.outputs.stream().anyMatch(earlier.inputs::contains);
+    }
+}
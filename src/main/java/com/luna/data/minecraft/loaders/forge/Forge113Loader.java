@@ -32,6 +32,8 @@ import com.luna.Gsons;
 import com.luna.data.minecraft.ArgumentRule;
 import com.luna.data.minecraft.Arguments;
 import com.luna.data.minecraft.Library;
+import com.luna.data.minecraft.loaders.ProcessorRunner;
+import com.luna.data.minecraft.loaders.ProcessorTask;
 import com.luna.managers.LogManager;
 import com.luna.utils.FileUtils;
 import com.luna.utils.Utils;
@@ -95,17 +97,23 @@ public class Forge113Loader extends ForgeLoader {
     public void runProcessors() {
         ForgeInstallProfile installProfile = this.getInstallProfile();
 
-        installProfile.processors.forEach(processor -> {
-            if (!instanceInstaller.isCancelled()) {
-                try {
-                    processor.process(installProfile, this.tempDir, instanceInstaller);
-                } catch (IOException e) {
-                    LogManager.logStackTrace(e);
-                    LogManager.error("Failed to process processor with jar " + processor.getJar());
-                    instanceInstaller.cancel(true);
-                }
+        List<ProcessorTask> tasks = new ArrayList<>();
+
+        for (Processor processor : installProfile.processors) {
+            if (!processor.isForSide(instanceInstaller)) {
+                continue;
             }
-        });
+
+            ProcessorTask task = processor.createTask(installProfile, this.tempDir, instanceInstaller);
+
+            if (task == null || instanceInstaller.isCancelled()) {
+                return;
+            }
+
+            tasks.add(task);
+        }
+
+        ProcessorRunner.runAll(tasks, instanceInstaller);
     }
 
     public List<Library> getInstallLibraries() {
@@ -35,6 +35,7 @@ import com.luna.data.minecraft.loaders.LoaderVersion;
 import com.luna.managers.LogManager;
 import com.luna.network.Download;
 import com.luna.network.DownloadPool;
+import com.luna.network.DownloadScheduler;
 import com.luna.utils.Pair;
 import com.luna.utils.Utils;
 import com.luna.workers.InstanceInstaller;
@@ -166,7 +167,7 @@ public class LegacyForgeLoader implements Loader {
     @Override
     public void downloadAndExtractInstaller() throws Exception {
         OkHttpClient httpClient = Network.createProgressClient(instanceInstaller);
-        DownloadPool pool = new DownloadPool();
+        DownloadPool pool = new DownloadPool(DownloadScheduler.Priority.HIGH);
 
         // first download the universal/client/server zip
         Download forgeDownload = Download.build().setUrl(this.downloadUrl).downloadTo(downloadPath)
@@ -18,23 +18,19 @@
 package com.luna.data.minecraft.loaders.forge;
 
 import java.io.File;
-import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.jar.Attributes;
-import java.util.jar.JarFile;
+import java.util.Set;
 
 import com.luna.FileSystem;
 import com.luna.annot.Json;
+import com.luna.data.minecraft.loaders.ProcessorTask;
 import com.luna.managers.LogManager;
-import com.luna.utils.Hashing;
+import com.luna.utils.FileHashIndex;
 import com.luna.utils.Utils;
 import com.luna.workers.InstanceInstaller;
 
@@ -66,13 +62,16 @@ public class Processor {
         return this.outputs != null && this.outputs.size() != 0;
     }
 
-    public void process(ForgeInstallProfile installProfile, File extractedDir, InstanceInstaller instanceInstaller)
-            throws IOException {
-        // delete any outputs that are invalid. They still need to run
-        if (!this.needToRun(installProfile, extractedDir, instanceInstaller)) {
-            return;
-        }
+    public boolean isForSide(InstanceInstaller instanceInstaller) {
+        return this.sides == null || this.sides.contains(instanceInstaller.isServer ? "server" : "client");
+    }
 
+    /**
+     * Resolves this processors jar, classpath and arguments into a task for the {@link ProcessorRunner}. Returns null
+     * (and cancels the install) if any of them can't be resolved.
+     */
+    public ProcessorTask createTask(ForgeInstallProfile installProfile, File extractedDir,
+            InstanceInstaller instanceInstaller) {
         File librariesDirectory = instanceInstaller.isServer ? instanceInstaller.root.resolve("libraries").toFile()
                 : FileSystem.LIBRARIES.toFile();
 
@@ -81,22 +80,10 @@ public class Processor {
         if (!jarPath.exists() || !jarPath.isFile()) {
             LogManager.error("Failed to process processor with jar " + this.jar + " as the jar doesn't exist");
             instanceInstaller.cancel(true);
-            return;
-        }
-
-        JarFile jarFile = new JarFile(jarPath);
-        String mainClass = jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
-        jarFile.close();
-        LogManager.debug("Found mainclass of " + mainClass);
-
-        if (mainClass == null || mainClass.isEmpty()) {
-            LogManager.error("Failed to process processor with jar " + this.jar + " as the mainclass wasn't found");
-            instanceInstaller.cancel(true);
-            return;
+            return null;
         }
 
-        List<URL> classpath = new ArrayList<>();
-        classpath.add(jarPath.toURI().toURL());
+        List<File> classpath = new ArrayList<>();
 
         for (String classpathItem : this.getClasspath()) {
             LogManager.debug("Adding classpath " + classpathItem);
@@ -106,13 +93,14 @@ public class Processor {
                 LogManager.error("Failed to process processor with jar " + this.jar
                         + " as the classpath item with file " + classpathFile.getAbsolutePath() + " doesn't exist");
                 instanceInstaller.cancel(true);
-                return;
+                return null;
             }
 
-            classpath.add(classpathFile.toURI().toURL());
+            classpath.add(classpathFile);
         }
 
         List<String> args = new ArrayList<>();
+        Set<String> fileArgs = new HashSet<>();
 
         for (String arg : this.getArgs()) {
             if (arg.contains("{ROOT}")) {
@@ -133,7 +121,7 @@ public class Processor {
                     LogManager.error("Failed to process processor with jar " + this.jar + " as the argument with name "
                             + arg + " as the data item with key " + key + " was empty or null");
                     instanceInstaller.cancel(true);
-                    return;
+                    return null;
                 }
 
                 LogManager.debug("Got value of " + value);
@@ -145,6 +133,7 @@ public class Processor {
                         // if the value starts with our base launcher dir, then it's likely already
                         // resolved (such as {INSTALLER})
                         args.add(value);
+                        fileArgs.add(value);
                     } else {
                         File localFile = new File(extractedDir, value);
                         LogManager.debug("Got argument with local file of " + localFile.getAbsolutePath());
@@ -153,27 +142,27 @@ public class Processor {
                             LogManager.error("Failed to process argument with value of " + value + " as the local file "
                                     + localFile.getAbsolutePath() + " doesn't exist");
                             instanceInstaller.cancel(true);
-                            return;
+                            return null;
                         }
 
                         args.add(localFile.getAbsolutePath());
+                        fileArgs.add(localFile.getAbsolutePath());
                     }
                 } else {
                     args.add(value);
+
+                    if (new File(value).isAbsolute()) {
+                        fileArgs.add(value);
+                    }
                 }
             } else if (start == '[' && end == ']') {
                 String artifact = arg.substring(1, arg.length() - 1);
                 File artifactFile = Utils.convertMavenIdentifierToFile(artifact, FileSystem.LIBRARIES.toFile());
                 LogManager.debug("Got argument with file of " + artifactFile.getAbsolutePath());
 
-                if (!artifactFile.exists() || !artifactFile.isFile()) {
-                    LogManager.error("Failed to process argument with value of " + arg + " as the file "
-                            + artifactFile.getAbsolutePath() + " doesn't exist");
-                    instanceInstaller.cancel(true);
-                    return;
-                }
-
+                // an earlier processor may be what creates this, so the runner checks it exists before running
                 args.add(artifactFile.getAbsolutePath());
+                fileArgs.add(artifactFile.getAbsolutePath());
             } else {
                 args.add(arg);
             }
@@ -188,42 +177,28 @@ public class Processor {
             args.add(FileSystem.LIBRARIES.toFile().getAbsolutePath());
         }
 
-        ClassLoader parentClassLoader = null;
-        try {
-            Method getPlatform = ClassLoader.class.getDeclaredMethod("getPlatformClassLoader");
-            parentClassLoader = (ClassLoader) getPlatform.invoke(null);
-        } catch (Exception e) {
-        }
+        List<File> declaredOutputs = new ArrayList<>();
+        if (this.hasOutputs()) {
+            for (String key : this.outputs.keySet()) {
+                if (key.charAt(0) == '{' && key.charAt(key.length() - 1) == '}') {
+                    Data data = installProfile.data.get(key.substring(1, key.length() - 1));
+                    String dataItem = data == null ? null : data.getValue(!instanceInstaller.isServer,
+                            librariesDirectory);
 
-        ClassLoader cl = new URLClassLoader(classpath.toArray(new URL[0]), parentClassLoader);
-        Thread currentThread = Thread.currentThread();
-        ClassLoader threadClassloader = currentThread.getContextClassLoader();
-        currentThread.setContextClassLoader(cl);
-
-        try {
-            LogManager.debug("Running processor with args \"" + String.join(" ", args) + "\"");
-            Class<?> cls = Class.forName(mainClass, true, cl);
-            Method main = cls.getDeclaredMethod("main", String[].class);
-            main.invoke(null, (Object) args.toArray(new String[args.size()]));
-        } catch (InvocationTargetException ite) {
-            Throwable e = ite.getCause();
-            LogManager.logStackTrace(e);
-            LogManager.error(
-                    "Failed to process processor with jar " + this.jar + " as there was an error invoking the jar");
-            instanceInstaller.cancel(true);
-        } catch (Throwable e) {
-            LogManager.logStackTrace(e);
-            LogManager.error(
-                    "Failed to process processor with jar " + this.jar + " as there was an error invoking the jar");
-            instanceInstaller.cancel(true);
-        } finally {
-            currentThread.setContextClassLoader(threadClassloader);
+                    if (dataItem != null && !dataItem.isEmpty()) {
+                        declaredOutputs.add(new File(dataItem).getAbsoluteFile());
+                    }
+                }
+            }
         }
+
+        return new ProcessorTask(this.jar, jarPath, classpath, args, fileArgs, declaredOutputs,
+                () -> this.needToRun(installProfile, extractedDir, instanceInstaller));
     }
 
     public boolean needToRun(ForgeInstallProfile installProfile, File extractedDir,
             InstanceInstaller instanceInstaller) {
-        if (this.sides != null && !this.sides.contains(instanceInstaller.isServer ? "server" : "client")) {
+        if (!this.isForSide(instanceInstaller)) {
             LogManager.debug("No need to run processor " + this.jar + " since it's not needed for this side");
             return false;
         }
@@ -274,7 +249,7 @@ public class Processor {
                         return true;
                     }
 
-                    String sha1Hash = Hashing.sha1(outputFile.toPath()).toString();
+                    String sha1Hash = FileHashIndex.sha1(outputFile.toPath()).toString();
                     String expectedHash = valueDataItem.charAt(0) == '\''
                             ? valueDataItem.substring(1, valueDataItem.length() - 1)
                             : valueDataItem;
@@ -37,6 +37,8 @@ import com.luna.data.minecraft.Arguments;
 import com.luna.data.minecraft.Library;
 import com.luna.data.minecraft.loaders.Loader;
 import com.luna.data.minecraft.loaders.LoaderVersion;
+import com.luna.data.minecraft.loaders.ProcessorRunner;
+import com.luna.data.minecraft.loaders.ProcessorTask;
 import com.luna.graphql.GetNeoForgeLoaderVersionsForMinecraftVersionQuery;
 import com.luna.managers.ConfigManager;
 import com.luna.managers.LogManager;
@@ -203,17 +205,23 @@ public class NeoForgeLoader implements Loader {
     public void runProcessors() {
         NeoForgeInstallProfile installProfile = this.getInstallProfile();
 
-        installProfile.processors.forEach(processor -> {
-            if (!instanceInstaller.isCancelled()) {
-                try {
-                    processor.process(installProfile, this.tempDir, instanceInstaller);
-                } catch (IOException e) {
-                    LogManager.logStackTrace(e);
-                    LogManager.error("Failed to process processor with jar " + processor.getJar());
-                    instanceInstaller.cancel(true);
-                }
+        List<ProcessorTask> tasks = new ArrayList<>();
+
+        for (NeoForgeProcessor processor : installProfile.processors) {
+            if (!processor.isForSide(instanceInstaller)) {
+                continue;
             }
-        });
+
+            ProcessorTask task = processor.createTask(installProfile, this.tempDir, instanceInstaller);
+
+            if (task == null || instanceInstaller.isCancelled()) {
+                return;
+            }
+
+            tasks.add(task);
+        }
+
+        ProcessorRunner.runAll(tasks, instanceInstaller);
     }
 
     @Override
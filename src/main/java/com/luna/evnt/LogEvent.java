@@ -18,6 +18,7 @@
 package com.luna.evnt;
 
 import java.awt.Color;
+import java.util.List;
 
 import javax.swing.UIManager;
 
@@ -56,13 +57,26 @@ public final class LogEvent {
         this.meta = meta;
     }
 
-    public void post(Logger logger) {
-        if ((this.meta & CONSOLE) == CONSOLE) {
-            Console c = App.console.console;
-            c.setColor(this.type.color()).setBold(true).write("[" + Timestamper.now() + "] ");
-            c.setColor(UIManager.getColor("EditorPane.foreground")).setBold(false).write(this.body);
+    public boolean isForConsole() {
+        return (this.meta & CONSOLE) == CONSOLE;
+    }
+
+    /**
+     * Writes a batch of events to the console. The logging thread calls this on the event dispatch thread so each
+     * batch is one UI update rather than one per line.
+     */
+    public static void postToConsole(List<LogEvent> events) {
+        Console c = App.console.console;
+        Color foreground = UIManager.getColor("EditorPane.foreground");
+        String timestamp = Timestamper.now();
+
+        for (LogEvent event : events) {
+            c.setColor(event.type.color()).setBold(true).write("[" + timestamp + "] ");
+            c.setColor(foreground).setBold(false).write(event.body);
         }
+    }
 
+    public void post(Logger logger) {
         if ((this.meta & LOG4J) == LOG4J) {
             switch (type) {
                 case WARN: {
@@ -17,20 +17,38 @@
  */
 package com.luna.managers;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+import com.luna.App;
 import com.luna.FileSystem;
 import com.luna.Gsons;
 import com.luna.data.Instance;
+import com.luna.data.InstanceSummary;
+import com.luna.data.LaunchFingerprint;
 import com.luna.data.Pack;
 import com.luna.exceptions.InvalidPack;
 import com.luna.utils.CurseForgeApi;
@@ -50,6 +68,11 @@ public class InstanceManager {
      */
     private static final BehaviorSubject<List<Instance>> INSTANCES = BehaviorSubject.createDefault(new LinkedList<>());
 
+    /**
+     * Indexes of {@link #INSTANCES}, rebuilt whenever the instances change or one is renamed.
+     */
+    private static volatile InstanceIndex instanceIndex = new InstanceIndex(new LinkedList<>());
+
     /**
      * @return Observable list of instances.
      */
@@ -67,75 +90,77 @@ public class InstanceManager {
     }
 
     /**
-     * Loads the user installed Instances
+     * Summaries from the snapshot of the user installed Instances which are still loading. Empty once
+     * {@link #INSTANCES} has been published.
      */
-    public static void loadInstances() {
-        PerformanceManager.start();
-        LogManager.debug("Loading instances");
-        List<Instance> newInstances = new LinkedList<>();
+    private static final BehaviorSubject<List<InstanceSummary>> INSTANCE_SUMMARIES = BehaviorSubject
+            .createDefault(new ArrayList<>());
 
-        for (String folder : Optional.of(FileSystem.INSTANCES.toFile().list(Utils.getInstanceFileFilter()))
-                .orElse(new String[0])) {
-            File instanceDir = FileSystem.INSTANCES.resolve(folder).toFile();
+    private static final int SNAPSHOT_VERSION = 2;
 
-            Instance instance = null;
+    /**
+     * Instances being loaded by {@link #loadInstances()}, keyed by folder, so an instance asked for by
+     * {@link #getInstance(InstanceSummary)} in the meantime is only loaded once.
+     */
+    private static final Map<String, Instance> LOADING_INSTANCES = new ConcurrentHashMap<>();
 
-            try {
-                try (InputStreamReader fileReader = new InputStreamReader(
-                        new FileInputStream(new File(instanceDir, "instance.json")), StandardCharsets.UTF_8)) {
-                    instance = Gsons.DEFAULT.fromJson(fileReader, Instance.class);
-                    instance.ROOT = instanceDir.toPath();
-                    LogManager.debug("Loaded instance from " + instanceDir);
-
-                    if (instance.launcher == null) {
-                        instance = null;
-                        throw new JsonSyntaxException("Error parsing instance.json as Instance");
-                    }
-                } catch (JsonIOException | JsonSyntaxException e) {
-                    LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e);
-                    continue;
-                }
+    /**
+     * Summaries reflect the instances as of the last time they were loaded, and are only emitted until
+     * {@link #getInstancesObservable()} has emitted the loaded instances, after which this emits an empty list.
+     *
+     * @return Observable list of instance summaries.
+     */
+    public static Observable<List<InstanceSummary>> getInstanceSummariesObservable() {
+        return INSTANCE_SUMMARIES;
+    }
 
-                if (instance.launcher.curseForgeManifest != null
-                        && instance.launcher.curseForgeManifest.projectID != null
-                        && instance.launcher.curseForgeManifest.fileID != null) {
-                    LogManager.info(String.format("Converting instance \"%s\" CurseForge information",
-                            instance.launcher.name));
-                    instance.launcher.curseForgeProject = CurseForgeApi
-                            .getProjectById(instance.launcher.curseForgeManifest.projectID);
-                    instance.launcher.curseForgeFile = CurseForgeApi.getFileForProject(
-                            instance.launcher.curseForgeManifest.projectID,
-                            instance.launcher.curseForgeManifest.fileID);
-                    instance.launcher.curseForgeManifest = null;
-
-                    instance.save();
-                }
+    /**
+     * Gets the full instance for a summary, loading it now if the instances haven't finished loading yet. This reads
+     * the instances instance.json, so shouldn't be called on the event dispatch thread.
+     *
+     * @param summary Summary to get the instance for
+     * @return The instance, or null if it couldn't be loaded
+     */
+    public static Instance getInstance(InstanceSummary summary) {
+        Path root = summary.getRoot();
 
-                if (instance.launcher.numPlays == null) {
-                    LogManager.info(String.format("Converting instance \"%s\" numPlays/lastPlayed",
-                            instance.launcher.name));
-                    instance.launcher.numPlays = instance.numPlays;
-                    instance.launcher.lastPlayed = instance.lastPlayed;
+        // locked so the instances can't be published between checking them and loading into LOADING_INSTANCES
+        synchronized (LOADING_INSTANCES) {
+            Optional<Instance> loaded = getInstances().stream().filter(instance -> root.equals(instance.getRoot()))
+                    .findFirst();
 
-                    instance.save();
-                }
+            if (loaded.isPresent()) {
+                return loaded.get();
+            }
 
-                if (instance.launcher.account != null
-                        && !AccountManager.isAccountByName(instance.launcher.account)) {
-                    LogManager.warn(
-                            String.format("No account with name of %s, so setting instance account back to default",
-                                    instance.launcher.account));
-                    instance.launcher.account = null;
-                    instance.save();
-                }
+            return LOADING_INSTANCES.computeIfAbsent(summary.folder, InstanceManager::loadInstance);
+        }
+    }
 
-                newInstances.add(instance);
-            } catch (Exception e2) {
-                LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e2);
-                continue;
-            }
+    /**
+     * Loads the user installed Instances
+     */
+    public static void loadInstances() {
+        PerformanceManager.start();
+        LogManager.debug("Loading instances");
+
+        String[] folders = Optional.ofNullable(FileSystem.INSTANCES.toFile().list(Utils.getInstanceFileFilter()))
+                .orElse(new String[0]);
+
+        // show what we knew about the instances last time straight away, while the real ones load. When reloading
+        // the previously loaded instances are still shown, so there's no need
+        if (getInstances().isEmpty()) {
+            Map<String, InstanceSummary> snapshot = readSnapshot();
+            INSTANCE_SUMMARIES.onNext(Arrays.stream(folders).map(folder -> {
+                InstanceSummary summary = snapshot.get(folder);
+                return summary != null && isSnapshotValid(summary) ? summary : null;
+            }).filter(Objects::nonNull).collect(Collectors.toList()));
         }
 
+        List<Instance> newInstances = Arrays.stream(folders).parallel()
+                .map(folder -> LOADING_INSTANCES.computeIfAbsent(folder, InstanceManager::loadInstance))
+                .filter(Objects::nonNull).collect(Collectors.toCollection(LinkedList::new));
+
         List<Map<String, String>> movedPacks = ConfigManager.getConfigItem("movedPacks", new ArrayList<>());
 
         newInstances.forEach(instance -> {
@@ -175,11 +200,168 @@ public class InstanceManager {
             }
         });
 
-        INSTANCES.onNext(newInstances);
+        synchronized (LOADING_INSTANCES) {
+            publish(newInstances);
+            LOADING_INSTANCES.clear();
+        }
+        INSTANCE_SUMMARIES.onNext(new ArrayList<>());
+        updateSnapshot(newInstances);
+
+        // these need to hit the CurseForge API, so do them after the instances are shown rather than blocking startup
+        List<Instance> curseForgeConversions = newInstances.stream()
+                .filter(instance -> instance.launcher.curseForgeManifest != null
+                        && instance.launcher.curseForgeManifest.projectID != null
+                        && instance.launcher.curseForgeManifest.fileID != null)
+                .collect(Collectors.toList());
+        if (!curseForgeConversions.isEmpty()) {
+            App.TASKPOOL.execute(() -> curseForgeConversions.forEach(InstanceManager::convertCurseForgeManifest));
+        }
+
         LogManager.debug("Finished loading instances");
         PerformanceManager.end();
     }
 
+    private static Instance loadInstance(String folder) {
+        File instanceDir = FileSystem.INSTANCES.resolve(folder).toFile();
+
+        Instance instance = null;
+
+        try {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    new FileInputStream(new File(instanceDir, "instance.json")), StandardCharsets.UTF_8)) {
+                instance = Gsons.DEFAULT.fromJson(fileReader, Instance.class);
+                instance.ROOT = instanceDir.toPath();
+                LogManager.debug("Loaded instance from " + instanceDir);
+
+                if (instance.launcher == null) {
+                    instance = null;
+                    throw new JsonSyntaxException("Error parsing instance.json as Instance");
+                }
+            } catch (JsonIOException | JsonSyntaxException e) {
+                LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e);
+                return null;
+            }
+
+            if (instance.launcher.numPlays == null) {
+                LogManager.info(String.format("Converting instance \"%s\" numPlays/lastPlayed",
+                        instance.launcher.name));
+                instance.launcher.numPlays = instance.numPlays;
+                instance.launcher.lastPlayed = instance.lastPlayed;
+
+                instance.save();
+            }
+
+            if (instance.launcher.account != null
+                    && !AccountManager.isAccountByName(instance.launcher.account)) {
+                LogManager.warn(
+                        String.format("No account with name of %s, so setting instance account back to default",
+                                instance.launcher.account));
+                instance.launcher.account = null;
+                instance.save();
+            }
+
+            return instance;
+        } catch (Exception e2) {
+            LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e2);
+            return null;
+        }
+    }
+
+    private static void convertCurseForgeManifest(Instance instance) {
+        try {
+            LogManager.info(String.format("Converting instance \"%s\" CurseForge information",
+                    instance.launcher.name));
+            instance.launcher.curseForgeProject = CurseForgeApi
+                    .getProjectById(instance.launcher.curseForgeManifest.projectID);
+            instance.launcher.curseForgeFile = CurseForgeApi.getFileForProject(
+                    instance.launcher.curseForgeManifest.projectID,
+                    instance.launcher.curseForgeManifest.fileID);
+            instance.launcher.curseForgeManifest = null;
+
+            instance.save();
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to convert CurseForge information for " + instance.launcher.name, e);
+        }
+    }
+
+    private static boolean isSnapshotValid(InstanceSummary summary) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(summary.getRoot().resolve("instance.json"),
+                    BasicFileAttributes.class);
+
+            return attributes.lastModifiedTime().toMillis() == summary.jsonLastModified
+                    && attributes.size() == summary.jsonSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, InstanceSummary> readSnapshot() {
+        Map<String, InstanceSummary> snapshot = new HashMap<>();
+
+        if (!Files.exists(FileSystem.INSTANCES_SNAPSHOT)) {
+            return snapshot;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(FileSystem.INSTANCES_SNAPSHOT)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return snapshot;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                InstanceSummary summary = InstanceSummary.read(in);
+                snapshot.put(summary.folder, summary);
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to read instances snapshot", e, false);
+            snapshot.clear();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Saves summaries of the given instances, so they can be shown straight away on next startup.
+     */
+    private static void updateSnapshot(List<Instance> instances) {
+        List<InstanceSummary> summaries = new ArrayList<>();
+
+        for (Instance instance : instances) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(instance.getRoot().resolve("instance.json"),
+                        BasicFileAttributes.class);
+
+                summaries.add(new InstanceSummary(instance, instance.getRoot().getFileName().toString(),
+                        attributes.lastModifiedTime().toMillis(), attributes.size()));
+            } catch (IOException e) {
+                LogManager.logStackTrace("Failed to read instance.json for " + instance.getName(), e, false);
+            }
+        }
+
+        Path tempFile = FileSystem.INSTANCES_SNAPSHOT
+                .resolveSibling(FileSystem.INSTANCES_SNAPSHOT.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(summaries.size());
+
+            for (InstanceSummary summary : summaries) {
+                summary.write(out);
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save instances snapshot", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, FileSystem.INSTANCES_SNAPSHOT, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save instances snapshot", e, false);
+        }
+    }
+
     public static void setInstanceVisbility(Instance instance, boolean collapsed) {
         if (collapsed) {
             // Closed It
@@ -202,7 +384,12 @@ public class InstanceManager {
         List<Instance> instances = INSTANCES.getValue();
         if (instances.remove(instance)) {
             FileUtils.delete(instance.getRoot(), true);
-            INSTANCES.onNext(instances);
+
+            if (instance.uuid != null) {
+                LaunchFingerprint.delete(instance.uuid);
+            }
+
+            publish(instances);
         }
     }
 
@@ -213,8 +400,7 @@ public class InstanceManager {
      * @return True if there is an instance with the same name already
      */
     public static boolean isInstance(String name) {
-        return INSTANCES.getValue().stream()
-                .anyMatch(i -> i.getSafeName().equalsIgnoreCase(name.replaceAll("[^A-Za-z0-9]", "")));
+        return getInstanceBySafeName(name.replaceAll("[^A-Za-z0-9]", "")) != null;
     }
 
     /**
@@ -224,7 +410,7 @@ public class InstanceManager {
      * @return True if the instance is found from the name
      */
     public static boolean isInstanceByName(String name) {
-        return INSTANCES.getValue().stream().anyMatch(i -> i.launcher.name.equalsIgnoreCase(name));
+        return getInstanceByName(name) != null;
     }
 
     /**
@@ -234,7 +420,7 @@ public class InstanceManager {
      * @return True if the instance is found from the name
      */
     public static boolean isInstanceBySafeName(String name) {
-        return INSTANCES.getValue().stream().anyMatch(i -> i.getSafeName().equalsIgnoreCase(name));
+        return getInstanceBySafeName(name) != null;
     }
 
     /**
@@ -244,8 +430,7 @@ public class InstanceManager {
      * @return Instance if the instance is found from the name
      */
     public static Instance getInstanceByName(String name) {
-        return INSTANCES.getValue().stream().filter(i -> i.launcher.name.equalsIgnoreCase(name)).findFirst()
-                .orElse(null);
+        return instanceIndex.byName.get(name.toLowerCase(Locale.ENGLISH));
     }
 
     /**
@@ -255,8 +440,24 @@ public class InstanceManager {
      * @return Instance if the instance is found from the name
      */
     public static Instance getInstanceBySafeName(String name) {
-        return INSTANCES.getValue().stream().filter(i -> i.getSafeName().equalsIgnoreCase(name)).findFirst()
-                .orElse(null);
+        return instanceIndex.bySafeName.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Finds an Instance from the given UUID
+     *
+     * @param uuid UUID of the Instance to find
+     * @return Instance if the instance is found from the UUID
+     */
+    public static Instance getInstanceByUUID(UUID uuid) {
+        return instanceIndex.byUuid.get(uuid);
+    }
+
+    /**
+     * Rebuilds the indexes of the instances, which needs to be done when an instance's name changes.
+     */
+    public static void reindexInstances() {
+        instanceIndex = new InstanceIndex(INSTANCES.getValue());
     }
 
     public static void cloneInstance(Instance instance, String clonedName) {
@@ -273,14 +474,14 @@ public class InstanceManager {
             clonedInstance.save();
             List<Instance> instances = INSTANCES.getValue();
             instances.add(clonedInstance);
-            INSTANCES.onNext(instances);
+            publish(instances);
         }
     }
 
     public static void addInstance(Instance instance) {
         List<Instance> instances = INSTANCES.getValue();
         instances.add(instance);
-        INSTANCES.onNext(instances);
+        publish(instances);
     }
 
     /**
@@ -292,6 +493,32 @@ public class InstanceManager {
         List<Instance> instances = INSTANCES.getValue();
         instances.removeIf(it -> it.getUUID().equals(instance.getUUID()));
         instances.add(instance);
+        publish(instances);
+    }
+
+    private static void publish(List<Instance> instances) {
+        instanceIndex = new InstanceIndex(instances);
         INSTANCES.onNext(instances);
     }
+
+    private static final class InstanceIndex {
+        private final Map<String, Instance> byName = new HashMap<>();
+        private final Map<String, Instance> bySafeName = new HashMap<>();
+        private final Map<UUID, Instance> byUuid = new HashMap<>();
+
+        private InstanceIndex(List<Instance> instances) {
+            // when there are duplicates, the first one wins, which is the same one a search through the list would
+            // find
+            for (Instance instance : instances) {
+                if (instance.launcher.name != null) {
+                    byName.putIfAbsent(instance.launcher.name.toLowerCase(Locale.ENGLISH), instance);
+                    bySafeName.putIfAbsent(instance.getSafeName().toLowerCase(Locale.ENGLISH), instance);
+                }
+
+                if (instance.uuid != null) {
+                    byUuid.putIfAbsent(instance.uuid, instance);
+                }
+            }
+        }
+    }
 }
@@ -20,11 +20,17 @@ package com.luna.managers;
 import java.io.CharArrayWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.luna.App;
 import com.luna.Gsons;
 import com.luna.evnt.LogEvent;
 import com.luna.evnt.LogEvent.LogType;
@@ -32,10 +38,11 @@ import com.luna.exceptions.LocalException;
 import com.luna.network.DownloadException;
 import com.luna.network.ErrorReporting;
 import com.luna.thread.LoggingThread;
+import com.luna.utils.MultiStringMatcher;
 import com.luna.utils.SystemOutInterceptor;
 
 public final class LogManager {
-    private static final BlockingQueue<LogEvent> queue = new ArrayBlockingQueue<>(128);
+    private static final BlockingQueue<LogEvent> queue = new ArrayBlockingQueue<>(1024);
     public static boolean showDebug = false;
 
     private static final Pattern LOG4J_THREAD_REGEX = Pattern.compile("<log4j:Event.*?thread=\"(.*?)\".*?>");
@@ -43,6 +50,27 @@ public final class LogManager {
     private static final Pattern LOG4J_MESSAGE_REGEX = Pattern
             .compile("<log4j:Message><!\\[CDATA\\[(.*?)\\]\\]></log4j:Message>");
 
+    // checked in this order, with the first one found in the line deciding its level
+    private static final String[] MINECRAFT_LEVEL_NAMES = { "[INFO] [STDERR]", "[INFO]", "[WARNING]", "WARNING:",
+            "INFO:", "Exception", "[SEVERE]", "[Sound Library Loader/ERROR]", "[Sound Library Loader/WARN]",
+            "[Sound Library Loader/INFO]", "[MCO Availability Checker #1/ERROR]", "[MCO Availability Checker #1/WARN]",
+            "[MCO Availability Checker #1/INFO]", "[Client thread/ERROR]", "[Client thread/WARN]",
+            "[Client thread/INFO]", "[Server thread/ERROR]", "[Server thread/WARN]", "[Server thread/INFO]",
+            "[main/ERROR]", "[main/WARN]", "[main/INFO]" };
+    private static final LogType[] MINECRAFT_LEVELS = { LogType.WARN, LogType.INFO, LogType.WARN, LogType.WARN,
+            LogType.INFO, LogType.ERROR, LogType.ERROR, LogType.ERROR, LogType.WARN, LogType.INFO, LogType.ERROR,
+            LogType.WARN, LogType.INFO, LogType.ERROR, LogType.WARN, LogType.INFO, LogType.ERROR, LogType.WARN,
+            LogType.INFO, LogType.ERROR, LogType.WARN, LogType.INFO };
+    private static final int MINECRAFT_LEVEL_INFO = 1;
+    private static final int MINECRAFT_LEVEL_EXCEPTION = 5;
+    private static final int MINECRAFT_LEVEL_CONFLICT = MINECRAFT_LEVEL_NAMES.length;
+    private static final int MINECRAFT_LEVEL_OVERWRITING = MINECRAFT_LEVEL_NAMES.length + 1;
+    private static final List<String> MINECRAFT_LEVEL_PATTERNS = Collections.unmodifiableList(Stream
+            .concat(Arrays.stream(MINECRAFT_LEVEL_NAMES), Stream.of("CONFLICT", "overwriting existing item"))
+            .collect(Collectors.toList()));
+    private static final MultiStringMatcher MINECRAFT_LEVEL_MATCHER = new MultiStringMatcher(
+            MINECRAFT_LEVEL_PATTERNS);
+
     public static void start() {
         new LoggingThread(queue).start();
 
@@ -64,21 +92,21 @@ public final class LogManager {
     public static int debugLevel = 0;
 
     public static void info(String message) {
-        queue.offer(new LogEvent(LogType.INFO, message));
+        queueEvent(new LogEvent(LogType.INFO, message));
     }
 
     public static void debug(String message) {
         if (showDebug) {
-            queue.offer(new LogEvent(LogType.DEBUG, message));
+            queueEvent(new LogEvent(LogType.DEBUG, message));
         }
     }
 
     public static void warn(String message) {
-        queue.offer(new LogEvent(LogType.WARN, message));
+        queueEvent(new LogEvent(LogType.WARN, message));
     }
 
     public static void error(String message) {
-        queue.offer(new LogEvent(LogType.ERROR, message));
+        queueEvent(new LogEvent(LogType.ERROR, message));
     }
 
     public static void debugObject(Object object) {
@@ -91,9 +119,40 @@ public final class LogManager {
         }
     }
 
-    public static void minecraft(String message) {
+    public static boolean minecraft(String message) {
         Object[] value = prepareMessageForMinecraftLog(message);
-        queue.offer(new LogEvent((LogType) value[0], (String) value[1], LogEvent.CONSOLE));
+        return minecraft((LogType) value[0], (String) value[1]);
+    }
+
+    /**
+     * Queues a line of Minecraft output for the console.
+     *
+     * @return false if the line was dropped because the console couldn't keep up
+     */
+    public static boolean minecraft(LogType type, String message) {
+        return queueMinecraftEvent(new LogEvent(type, message, LogEvent.CONSOLE));
+    }
+
+    private static boolean queueEvent(LogEvent event) {
+        return queue.offer(event);
+    }
+
+    /**
+     * Lines from Minecraft are dropped if the console falls behind unless lossless logs are enabled, in which case
+     * reading the games output waits for the console to catch up instead.
+     */
+    private static boolean queueMinecraftEvent(LogEvent event) {
+        if (App.settings == null || !App.settings.losslessMinecraftLogs) {
+            return queueEvent(event);
+        }
+
+        try {
+            queue.put(event);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     public static void logStackTrace(Throwable t) {
@@ -137,91 +196,56 @@ public final class LogManager {
         logStackTrace(t, sendRemote);
     }
 
+    /**
+     * Returns the patterns used to work out the level of a line from Minecraft, in the order they need to be matched
+     * in for {@link #prepareMessageForMinecraftLog(String, int[], int[])}.
+     */
+    public static List<String> getMinecraftLevelPatterns() {
+        return MINECRAFT_LEVEL_PATTERNS;
+    }
+
     public static Object[] prepareMessageForMinecraftLog(String text) {
-        LogType type; // The log message type
-        String message; // The log message
-
-        if (text.contains("[INFO] [STDERR]")) {
-            message = text.substring(text.indexOf("[INFO] [STDERR]"));
-            type = LogType.WARN;
-        } else if (text.contains("[INFO]")) {
-            message = text.substring(text.indexOf("[INFO]"));
-            if (message.contains("CONFLICT")) {
-                type = LogType.ERROR;
-            } else if (message.contains("overwriting existing item")) {
-                type = LogType.WARN;
-            } else {
-                type = LogType.INFO;
+        int[] first = new int[MINECRAFT_LEVEL_PATTERNS.size()];
+        int[] last = new int[MINECRAFT_LEVEL_PATTERNS.size()];
+        MINECRAFT_LEVEL_MATCHER.findFirstAndLast(text, first, last);
+
+        return prepareMessageForMinecraftLog(text, first, last);
+    }
+
+    /**
+     * Works out the level and message of a line from Minecraft, given where each of the
+     * {@link #getMinecraftLevelPatterns()} first and last appear in it.
+     */
+    public static Object[] prepareMessageForMinecraftLog(String text, int[] first, int[] last) {
+        for (int i = 0; i < MINECRAFT_LEVELS.length; i++) {
+            int start = first[i];
+
+            if (start == -1) {
+                continue;
             }
-        } else if (text.contains("[WARNING]")) {
-            message = text.substring(text.indexOf("[WARNING]"));
-            type = LogType.WARN;
-        } else if (text.contains("WARNING:")) {
-            message = text.substring(text.indexOf("WARNING:"));
-            type = LogType.WARN;
-        } else if (text.contains("INFO:")) {
-            message = text.substring(text.indexOf("INFO:"));
-            type = LogType.INFO;
-        } else if (text.contains("Exception")) {
-            message = text;
-            type = LogType.ERROR;
-        } else if (text.contains("[SEVERE]")) {
-            message = text.substring(text.indexOf("[SEVERE]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[Sound Library Loader/ERROR]")) {
-            message = text.substring(text.indexOf("[Sound Library Loader/ERROR]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[Sound Library Loader/WARN]")) {
-            message = text.substring(text.indexOf("[Sound Library Loader/WARN]"));
-            type = LogType.WARN;
-        } else if (text.contains("[Sound Library Loader/INFO]")) {
-            message = text.substring(text.indexOf("[Sound Library Loader/INFO]"));
-            type = LogType.INFO;
-        } else if (text.contains("[MCO Availability Checker #1/ERROR]")) {
-            message = text.substring(text.indexOf("[MCO Availability Checker #1/ERROR]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[MCO Availability Checker #1/WARN]")) {
-            message = text.substring(text.indexOf("[MCO Availability Checker #1/WARN]"));
-            type = LogType.WARN;
-        } else if (text.contains("[MCO Availability Checker #1/INFO]")) {
-            message = text.substring(text.indexOf("[MCO Availability Checker #1/INFO]"));
-            type = LogType.INFO;
-        } else if (text.contains("[Client thread/ERROR]")) {
-            message = text.substring(text.indexOf("[Client thread/ERROR]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[Client thread/WARN]")) {
-            message = text.substring(text.indexOf("[Client thread/WARN]"));
-            type = LogType.WARN;
-        } else if (text.contains("[Client thread/INFO]")) {
-            message = text.substring(text.indexOf("[Client thread/INFO]"));
-            type = LogType.INFO;
-        } else if (text.contains("[Server thread/ERROR]")) {
-            message = text.substring(text.indexOf("[Server thread/ERROR]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[Server thread/WARN]")) {
-            message = text.substring(text.indexOf("[Server thread/WARN]"));
-            type = LogType.WARN;
-        } else if (text.contains("[Server thread/INFO]")) {
-            message = text.substring(text.indexOf("[Server thread/INFO]"));
-            type = LogType.INFO;
-        } else if (text.contains("[main/ERROR]")) {
-            message = text.substring(text.indexOf("[main/ERROR]"));
-            type = LogType.ERROR;
-        } else if (text.contains("[main/WARN]")) {
-            message = text.substring(text.indexOf("[main/WARN]"));
-            type = LogType.WARN;
-        } else if (text.contains("[main/INFO]")) {
-            message = text.substring(text.indexOf("[main/INFO]"));
-            type = LogType.INFO;
-        } else {
-            message = text;
-            type = LogType.INFO;
+
+            // exceptions can be anywhere in the line, so keep the whole thing
+            if (i == MINECRAFT_LEVEL_EXCEPTION) {
+                return new Object[] { LogType.ERROR, text };
+            }
+
+            LogType type = MINECRAFT_LEVELS[i];
+
+            if (i == MINECRAFT_LEVEL_INFO) {
+                if (last[MINECRAFT_LEVEL_CONFLICT] >= start) {
+                    type = LogType.ERROR;
+                } else if (last[MINECRAFT_LEVEL_OVERWRITING] >= start) {
+                    type = LogType.WARN;
+                }
+            }
+
+            return new Object[] { type, text.substring(start) };
         }
 
-        return new Object[] { type, message };
+        return new Object[] { LogType.INFO, text };
     }
 
-    public static void minecraftLog4j(String string) {
+    public static boolean minecraftLog4j(String string) {
         String thread = "";
         String message = "";
         String levelString = "";
@@ -250,7 +274,7 @@ public final class LogManager {
             message = messageMatcher.group(1);
         }
 
-        queue.offer(new LogEvent(level, String.format("[%s/%s] %s", thread, levelString, message),
+        return queueMinecraftEvent(new LogEvent(level, String.format("[%s/%s] %s", thread, levelString, message),
                 LogEvent.CONSOLE));
     }
 }
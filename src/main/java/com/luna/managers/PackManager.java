@@ -36,6 +36,7 @@ import com.luna.Data;
 import com.luna.FileSystem;
 import com.luna.Gsons;
 import com.luna.data.Pack;
+import com.luna.data.PackCatalogue;
 import com.luna.data.PackUsers;
 import com.luna.exceptions.InvalidPack;
 import com.luna.utils.Hashing;
@@ -45,7 +46,7 @@ import com.google.gson.reflect.TypeToken;
 
 public class PackManager {
     public static List<Pack> getPacks() {
-        return Data.PACKS;
+        return Data.PACKS.getPacks();
     }
 
     /**
@@ -54,16 +55,19 @@ public class PackManager {
     public static void loadPacks() {
         PerformanceManager.start();
         LogManager.debug("Loading packs");
-        Data.PACKS.clear();
+        List<Pack> packs = new ArrayList<>();
         try (InputStreamReader fileReader = new InputStreamReader(
                 new FileInputStream(FileSystem.JSON.resolve("packsnew.json").toFile()),
                 StandardCharsets.UTF_8)) {
             java.lang.reflect.Type type = new TypeToken<List<Pack>>() {
             }.getType();
-            Data.PACKS.addAll(Gsons.DEFAULT.fromJson(fileReader, type));
+            packs.addAll(Gsons.DEFAULT.fromJson(fileReader, type));
         } catch (JsonSyntaxException | IOException | JsonIOException e) {
             LogManager.logStackTrace(e);
         }
+
+        // swap in all the packs at once, so nothing ever sees a half loaded list
+        Data.PACKS = new PackCatalogue(packs);
         LogManager.debug("Finished loading packs");
         PerformanceManager.end();
     }
@@ -76,7 +80,7 @@ public class PackManager {
     public static List<Pack> getPacksSortedAlphabetically(boolean isFeatured, boolean sortDescending) {
         List<Pack> packs = new LinkedList<>();
 
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (isFeatured) {
                 if (!pack.isFeatured()) {
                     continue;
@@ -105,7 +109,7 @@ public class PackManager {
     public static List<Pack> getPacksSortedPositionally(boolean isFeatured, boolean sortDescending) {
         List<Pack> packs = new LinkedList<>();
 
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (isFeatured) {
                 if (!pack.isFeatured()) {
                     continue;
@@ -143,7 +147,7 @@ public class PackManager {
 
     public static String getPackInstallableCount() {
         int count = 0;
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (pack.canInstall()) {
                 count++;
             }
@@ -159,11 +163,12 @@ public class PackManager {
      * @throws InvalidPack If ID is not found
      */
     public static Pack getPackByID(int id) throws InvalidPack {
-        for (Pack pack : Data.PACKS) {
-            if (pack.getID() == id) {
-                return pack;
-            }
+        Pack pack = Data.PACKS.getById(id);
+
+        if (pack != null) {
+            return pack;
         }
+
         throw new InvalidPack("No pack exists with ID " + id);
     }
 
@@ -174,12 +179,7 @@ public class PackManager {
      * @return True if the pack is found from the name
      */
     public static boolean isPackByName(String name) {
-        for (Pack pack : Data.PACKS) {
-            if (pack.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-        return false;
+        return Data.PACKS.getByName(name) != null;
     }
 
     /**
@@ -189,12 +189,7 @@ public class PackManager {
      * @return Pack if the pack is found from the name
      */
     public static Pack getPackByName(String name) {
-        for (Pack pack : Data.PACKS) {
-            if (pack.getName().equalsIgnoreCase(name)) {
-                return pack;
-            }
-        }
-        return null;
+        return Data.PACKS.getByName(name);
     }
 
     /**
@@ -204,16 +199,11 @@ public class PackManager {
      * @return Pack if the pack is found from the safe name
      */
     public static Pack getPackBySafeName(String name) {
-        for (Pack pack : Data.PACKS) {
-            if (pack.getSafeName().equalsIgnoreCase(name)) {
-                return pack;
-            }
-        }
-        return null;
+        return Data.PACKS.getBySafeName(name);
     }
 
     public static boolean semiPublicPackExistsFromCode(String packCode) {
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (pack.isSemiPublic()) {
                 if (Hashing.toHashCode(pack.getCode()).equals(Hashing.md5(packCode))) {
                     return true;
@@ -224,7 +214,7 @@ public class PackManager {
     }
 
     public static Pack getSemiPublicPackByCode(String packCode) {
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (pack.isSemiPublic()) {
                 if (Hashing.toHashCode(pack.getCode()).equals(Hashing.md5(packCode))) {
                     return pack;
@@ -236,7 +226,7 @@ public class PackManager {
     }
 
     public static boolean addPack(String packCode) {
-        for (Pack pack : Data.PACKS) {
+        for (Pack pack : Data.PACKS.getPacks()) {
             if (pack.isSemiPublic() && !canViewSemiPublicPackByCode(Hashing.md5(packCode).toString())) {
                 if (Hashing.toHashCode(pack.getCode()).equals(Hashing.md5(packCode))) {
                     if (pack.isTester()) {
@@ -292,7 +282,7 @@ public class PackManager {
         PerformanceManager.start();
         File[] files = FileSystem.IMAGES.toFile().listFiles();
 
-        Set<String> packImageFilenames = Data.PACKS.stream()
+        Set<String> packImageFilenames = Data.PACKS.getPacks().stream()
                 .map(p -> p.getSafeName().toLowerCase(Locale.ENGLISH) + ".png")
                 .collect(Collectors.toSet());
         packImageFilenames.add("defaultimage.png");
@@ -17,7 +17,9 @@
  */
 package com.luna.network;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.SocketTimeoutException;
@@ -26,21 +28,29 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.tukaani.xz.LZMAInputStream;
+
 import com.luna.App;
 import com.luna.FileSystem;
 import com.luna.Gsons;
 import com.luna.Network;
 import com.luna.managers.LogManager;
 import com.luna.utils.ArchiveUtils;
+import com.luna.utils.ContentStore;
+import com.luna.utils.FileHashIndex;
 import com.luna.utils.FileUtils;
 import com.luna.utils.Hashing;
 import com.luna.utils.Utils;
 import com.luna.workers.InstanceInstaller;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.HashingInputStream;
 import com.google.gson.Gson;
 
 import okhttp3.CacheControl;
@@ -54,6 +64,9 @@ import okhttp3.Response;
 public final class Download {
     public static final int MAX_ATTEMPTS = 3;
 
+    // anything smaller than this is quicker to just download again than to keep a journal for
+    private static final long MIN_RESUMABLE_SIZE = 4L * 1024 * 1024;
+
     // pre request
     String url;
     private String friendlyFileName;
@@ -68,6 +81,14 @@ public final class Download {
     private Long fingerprint = null;
     public long size = -1L;
     private boolean executable = false;
+    private String lzmaUrl = null;
+    private long lzmaSize = -1L;
+    private boolean useLzma = false;
+    private DownloadJournal journal = null;
+    private String requestedUrl = null;
+    private long resumeFrom = 0L;
+    private long resumedBytesCounted = 0L;
+    private Runnable afterDownload = null;
     public InstanceInstaller instanceInstaller;
     private OkHttpClient httpClient = Network.CLIENT;
     private RequestBody post = null;
@@ -76,6 +97,8 @@ public final class Download {
 
     // generated on/after request
     public Response response;
+    private HashCode computedHash = null;
+    private boolean verified = false;
 
     public Download() {
 
@@ -270,6 +293,37 @@ public final class Download {
         return this;
     }
 
+    /**
+     * Runs the given task once the file is on disk, whether it was just downloaded or was already there. This runs
+     * on the thread that did the download, so anything slow should be handed off elsewhere.
+     */
+    public Download afterDownload(Runnable afterDownload) {
+        this.afterDownload = afterDownload;
+
+        return this;
+    }
+
+    /**
+     * Downloads the LZMA compressed version of the file from the given url instead, decompressing it as it comes in.
+     * The hash and size are still those of the decompressed file. If the compressed version can't be fetched or
+     * doesn't decompress to the right file, then the file is downloaded from the normal url instead.
+     */
+    public Download lzma(String lzmaUrl, long lzmaSize) {
+        this.lzmaUrl = lzmaUrl;
+        this.lzmaSize = lzmaSize;
+        this.useLzma = lzmaUrl != null;
+
+        return this;
+    }
+
+    /**
+     * The number of bytes that will come over the network when downloading this file, which for LZMA compressed
+     * downloads is the size of the compressed file rather than the file on disk.
+     */
+    public long getTransferSize() {
+        return this.useLzma && this.lzmaSize > 0L ? this.lzmaSize : this.size;
+    }
+
     public Download setUrl(String url) {
         this.url = url;
         return this;
@@ -306,12 +360,47 @@ public final class Download {
     }
 
     private void execute() throws IOException {
+        String url = this.useLzma ? this.lzmaUrl : this.url;
+        List<String> candidates = this.canUseMirrors() ? MirrorRegistry.getCandidates(url, this.getTransferSize())
+                : Collections.singletonList(url);
+        IOException failure = null;
+
+        for (String candidate : candidates) {
+            long start = System.nanoTime();
+
+            try {
+                this.execute(candidate);
+                MirrorRegistry.recordResponse(candidate, this.response.code(), System.nanoTime() - start, null);
+                return;
+            } catch (IOException e) {
+                failure = e;
+
+                if (this.response != null) {
+                    MirrorRegistry.recordResponse(candidate, this.response.code(), System.nanoTime() - start,
+                            this.response.header("Retry-After"));
+                } else {
+                    MirrorRegistry.recordFailure(candidate);
+                }
+
+                if (candidates.size() > 1) {
+                    LogManager.warn("Failed to download " + this.getPrintableFileName() + " from " + candidate
+                            + " (" + e.getMessage() + "), trying the next mirror");
+                }
+            }
+        }
+
+        throw failure;
+    }
+
+    private void execute(String url) throws IOException {
         // connection is already open, so close it first
         if (this.response != null) {
             this.response.close();
+            this.response = null;
         }
 
-        Request.Builder builder = new Request.Builder().url(this.url);
+        this.requestedUrl = url;
+        Request.Builder builder = new Request.Builder().url(url);
 
         if (this.post != null) {
             builder.post(this.post);
@@ -325,8 +414,31 @@ public final class Download {
             builder.cacheControl(this.cacheControl);
         }
 
+        this.resumeFrom = 0L;
+        if (this.isResumable()) {
+            if (this.journal == null) {
+                this.journal = DownloadJournal.open(FileSystem.PARTIAL_DOWNLOADS, this.to, this.url, this.size,
+                        this.hash);
+            }
+
+            this.resumeFrom = this.journal.getResumeFrom();
+
+            if (this.resumeFrom > 0L) {
+                builder.header("Range", "bytes=" + this.resumeFrom + "-");
+                builder.header("If-Range", this.journal.getIfRange());
+            }
+        }
+
         this.response = httpClient.newCall(builder.build()).execute();
 
+        // the partial file is longer than what's on the server now, so start again from the beginning, from the same
+        // url so that the outcome is recorded against the mirror it came from
+        if (this.resumeFrom > 0L && this.response.code() == 416) {
+            this.journal.discard();
+            this.execute(url);
+            return;
+        }
+
         if (this.response == null || (!this.ignoreFailures && !this.response.isSuccessful())) {
             if (this.response != null && this.response.code() == 429) {
                 LogManager.info(this.response.headers().toString());
@@ -335,6 +447,22 @@ public final class Download {
         }
     }
 
+    /**
+     * Mirrors can only be trusted when there's a hash to check what they send back against.
+     */
+    private boolean canUseMirrors() {
+        return this.post == null && !this.ignoreFailures && (this.fingerprint != null
+                || (this.hash != null && !this.hash.isEmpty() && !this.hash.equals("-")));
+    }
+
+    /**
+     * Large plain GET downloads keep a journal of how far they got, so they can be resumed rather than restarted.
+     */
+    private boolean isResumable() {
+        return this.to != null && this.post == null && !this.useLzma && this.cacheControl == null
+                && this.httpClient != Network.CACHED_CLIENT && this.size >= MIN_RESUMABLE_SIZE;
+    }
+
     public int code() {
         try {
             if (this.response == null) {
@@ -426,6 +554,22 @@ public final class Download {
     }
 
     public boolean needToDownload() {
+        boolean needToDownload = this.checkNeedToDownload();
+        this.verified = !needToDownload;
+
+        return needToDownload;
+    }
+
+    /**
+     * If the file was found to be what was expected the last time it was checked, either by
+     * {@link #needToDownload()} or once it was downloaded. This doesn't look at the file again, so it's free to call
+     * after downloading, when the file is too new for its hash to be taken from the {@link FileHashIndex}.
+     */
+    public boolean isVerified() {
+        return this.verified;
+    }
+
+    private boolean checkNeedToDownload() {
         if (this.to == null || this.forceDownload) {
             return true;
         }
@@ -438,20 +582,20 @@ public final class Download {
 
             if (this.fingerprint != null) {
                 try {
-                    if (Hashing.murmur(this.to) == this.fingerprint) {
+                    if (FileHashIndex.murmur(this.to) == this.fingerprint) {
                         return false;
                     }
                 } catch (IOException e) {
                     LogManager.error("Error getting murmur hash");
                     return false;
                 }
-            } else if (this.md5() && Hashing.md5(this.to).equals(Hashing.toHashCode(this.getHash()))) {
+            } else if (this.md5() && FileHashIndex.md5(this.to).equals(Hashing.toHashCode(this.getHash()))) {
                 return false;
-            } else if (this.sha256() && Hashing.sha256(this.to).equals(Hashing.toHashCode(this.getHash()))) {
+            } else if (this.sha256() && FileHashIndex.sha256(this.to).equals(Hashing.toHashCode(this.getHash()))) {
                 return false;
-            } else if (this.sha512() && Hashing.sha512(this.to).equals(Hashing.toHashCode(this.getHash()))) {
+            } else if (this.sha512() && FileHashIndex.sha512(this.to).equals(Hashing.toHashCode(this.getHash()))) {
                 return false;
-            } else if (Hashing.sha1(this.to).equals(Hashing.toHashCode(this.getHash()))) {
+            } else if (FileHashIndex.sha1(this.to).equals(Hashing.toHashCode(this.getHash()))) {
                 return false;
             }
 
@@ -464,7 +608,46 @@ public final class Download {
         return true;
     }
 
+    /**
+     * The hash of the downloaded file, calculated as it was written to disk, using the same algorithm as the expected
+     * hash. This is null if the file wasn't downloaded, the download failed or there's nothing to check it against.
+     */
+    public HashCode getComputedHash() {
+        return this.computedHash;
+    }
+
+    private String getHashAlgorithm() {
+        if (this.md5()) {
+            return "md5";
+        } else if (this.sha256()) {
+            return "sha256";
+        } else if (this.sha512()) {
+            return "sha512";
+        }
+
+        return "sha1";
+    }
+
+    private HashFunction getHashFunction() {
+        // murmur mixes the length of the file in first, so it can't be calculated as the file streams in
+        if (this.fingerprint != null || Hashing.toHashCode(this.getHash()).equals(Hashing.EMPTY_HASH_CODE)) {
+            return null;
+        }
+
+        if (this.md5()) {
+            return com.google.common.hash.Hashing.md5();
+        } else if (this.sha256()) {
+            return com.google.common.hash.Hashing.sha256();
+        } else if (this.sha512()) {
+            return com.google.common.hash.Hashing.sha512();
+        }
+
+        return com.google.common.hash.Hashing.sha1();
+    }
+
     private void downloadDirect() {
+        this.computedHash = null;
+
         if (size == -1L) {
             size = this.getFilesize();
 
@@ -472,31 +655,176 @@ public final class Download {
                 instanceInstaller.addBytesToDownload(size);
             }
         }
-        try (FileChannel fc = FileChannel.open(this.to, Utils.WRITE);
-                ReadableByteChannel rbc = Channels.newChannel(this.response.body().byteStream())) {
-            fc.transferFrom(rbc, 0, Long.MAX_VALUE);
+
+        // the size may have only just been worked out from the response, so this may now be resumable
+        if (this.journal == null && this.isResumable() && this.response.code() == 200) {
+            this.journal = DownloadJournal.open(FileSystem.PARTIAL_DOWNLOADS, this.to, this.url, this.size,
+                    this.hash);
+            this.resumeFrom = 0L;
+        }
+
+        if (this.journal != null) {
+            this.downloadResumable();
+            return;
+        }
+
+        HashFunction hashFunction = this.getHashFunction();
+
+        try (InputStream bodyStream = this.useLzma
+                ? new LZMAInputStream(new BufferedInputStream(this.response.body().byteStream()))
+                : this.response.body().byteStream()) {
+            // the hash is of the decompressed file, so it's calculated after decompressing
+            HashingInputStream hashingStream = hashFunction == null ? null
+                    : new HashingInputStream(hashFunction, bodyStream);
+
+            try (FileChannel fc = FileChannel.open(this.to, Utils.WRITE);
+                    ReadableByteChannel rbc = Channels
+                            .newChannel(hashingStream == null ? bodyStream : hashingStream)) {
+                fc.transferFrom(rbc, 0, Long.MAX_VALUE);
+            }
+
+            if (hashingStream != null) {
+                this.computedHash = hashingStream.hash();
+            }
         } catch (Exception e) {
             LogManager.logStackTrace("Failed to download file " + this.to, e, false);
         }
     }
 
+    /**
+     * Downloads into the journal's partial file, carrying on from where it left off if the server sent back just the
+     * rest of the file, and moves it into place once it's all there.
+     */
+    private void downloadResumable() {
+        long position = this.response.code() == 206 ? this.resumeFrom : 0L;
+
+        try {
+            if (position > 0L) {
+                String contentRange = this.response.header("Content-Range", "");
+
+                if (!contentRange.startsWith("bytes " + position + "-")) {
+                    throw new IOException("Expected a range starting at " + position + " but got " + contentRange);
+                }
+
+                LogManager.debug("Resuming download of " + this.to.getFileName() + " from byte " + position);
+
+                // bytes downloaded before the launcher was restarted haven't been counted towards progress yet
+                if (this.instanceInstaller != null && position > this.resumedBytesCounted) {
+                    this.instanceInstaller.addDownloadedBytes(position - this.resumedBytesCounted);
+                }
+            }
+
+            if (this.downloadSegmented(position)) {
+                return;
+            }
+
+            // when resuming, the hash has to be worked out over the whole file once it's in place
+            HashFunction hashFunction = position == 0L ? this.getHashFunction() : null;
+            InputStream bodyStream = this.response.body().byteStream();
+            HashingInputStream hashingStream = hashFunction == null ? null
+                    : new HashingInputStream(hashFunction, bodyStream);
+
+            try (FileChannel fc = this.journal.start(this.response, position);
+                    ReadableByteChannel rbc = Channels.newChannel(hashingStream == null ? bodyStream : hashingStream)) {
+                long lastCheckpoint = position;
+
+                try {
+                    long transferred;
+                    while ((transferred = fc.transferFrom(rbc, position, DownloadJournal.CHECKPOINT_BYTES)) > 0) {
+                        position += transferred;
+
+                        if (position - lastCheckpoint >= DownloadJournal.CHECKPOINT_BYTES) {
+                            this.journal.checkpoint(fc, position);
+                            lastCheckpoint = position;
+                        }
+                    }
+                } finally {
+                    // remember how far we got, so the next attempt can carry on from there
+                    this.journal.checkpoint(fc, position);
+                }
+            }
+
+            if (position < this.size) {
+                throw new IOException("Connection closed after " + position + " of " + this.size + " bytes");
+            }
+
+            if (hashingStream != null) {
+                this.computedHash = hashingStream.hash();
+            }
+
+            this.journal.complete(this.to);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to download file " + this.to, e, false);
+        } finally {
+            this.resumedBytesCounted = Math.max(this.resumedBytesCounted, position);
+        }
+    }
+
+    /**
+     * Downloads the rest of a large file over several connections at once, if the server supports it. Returns false
+     * if the file should be downloaded over the one connection instead. The hash is worked out over the whole file
+     * once it's in place.
+     */
+    private boolean downloadSegmented(long position) throws IOException {
+        if (!SegmentedDownload.shouldUse(this.response, this.size - position)) {
+            return false;
+        }
+
+        try (FileChannel fc = this.journal.start(this.response, position)) {
+            // without a validator there's no way to be sure every range comes from the same file
+            if (this.journal.getIfRange() == null) {
+                return false;
+            }
+
+            SegmentedDownload segmentedDownload = new SegmentedDownload(this.httpClient, this.response.request(),
+                    this.journal.getIfRange(), fc, this.size);
+
+            try {
+                segmentedDownload.run(this.response, position, this.journal);
+            } finally {
+                // remember how far we got, so the next attempt can carry on from there
+                long contiguousPosition = segmentedDownload.getContiguousPosition();
+                this.journal.checkpoint(fc, contiguousPosition);
+                this.resumedBytesCounted = Math.max(this.resumedBytesCounted, contiguousPosition);
+            }
+        }
+
+        this.journal.complete(this.to);
+
+        return true;
+    }
+
     private boolean hashMatches() {
+        this.verified = this.checkHashMatches();
+
+        return this.verified;
+    }
+
+    private boolean checkHashMatches() {
         if (Files.exists(this.to)) {
-            if (this.fingerprint != null) {
+            if (this.computedHash != null) {
+                boolean matches = this.computedHash.equals(Hashing.toHashCode(this.getHash()));
+
+                if (matches) {
+                    FileHashIndex.record(this.to, this.getHashAlgorithm(), this.computedHash.toString());
+                }
+
+                return matches;
+            } else if (this.fingerprint != null) {
                 try {
-                    return Hashing.murmur(this.to) == this.fingerprint;
+                    return FileHashIndex.murmur(this.to) == this.fingerprint;
                 } catch (IOException e) {
                     LogManager.error("Error getting murmur hash");
                     return false;
                 }
             } else if (this.md5()) {
-                return Hashing.md5(this.to).equals(Hashing.toHashCode(this.getHash()));
+                return FileHashIndex.md5(this.to).equals(Hashing.toHashCode(this.getHash()));
             } else if (this.sha256()) {
-                return Hashing.sha256(this.to).equals(Hashing.toHashCode(this.getHash()));
+                return FileHashIndex.sha256(this.to).equals(Hashing.toHashCode(this.getHash()));
             } else if (this.sha512()) {
-                return Hashing.sha512(this.to).equals(Hashing.toHashCode(this.getHash()));
+                return FileHashIndex.sha512(this.to).equals(Hashing.toHashCode(this.getHash()));
             } else {
-                return Hashing.sha1(this.to).equals(Hashing.toHashCode(this.getHash()));
+                return FileHashIndex.sha1(this.to).equals(Hashing.toHashCode(this.getHash()));
             }
         }
 
@@ -509,6 +837,8 @@ public final class Download {
         }
 
         // if file exists, delete it
+        this.computedHash = null;
+        this.verified = false;
         if (Files.exists(this.to)) {
             FileUtils.delete(this.to);
         }
@@ -525,20 +855,43 @@ public final class Download {
                     this.response = null;
                 }
 
+                if (this.useLzma) {
+                    this.stopUsingLzma();
+                    return this.downloadRec(attempt);
+                }
+
                 return false;
             }
         }
 
         // download the file to disk
+        long resumedFrom = this.resumeFrom;
+        long transferStart = System.nanoTime();
         this.downloadDirect();
 
         boolean hashMatches = hashMatches();
 
         // if hash matches we're good
         if (hashMatches) {
+            MirrorRegistry.recordTransfer(this.requestedUrl, this.getTransferSize() - resumedFrom,
+                    System.nanoTime() - transferStart);
             return true;
         }
 
+        // the next attempt should get the file from somewhere else
+        MirrorRegistry.recordFailure(this.requestedUrl);
+
+        // a resumable download that got further this time carries on without using up an attempt
+        if (this.journal != null && this.journal.getResumeFrom() > resumedFrom) {
+            return this.downloadRec(attempt);
+        }
+
+        // try the uncompressed file instead, without using up an attempt
+        if (this.useLzma) {
+            this.stopUsingLzma();
+            return this.downloadRec(attempt);
+        }
+
         // if hash doesn't match but we're ignoring failures, then pass it if not 0 in
         // size and log a warning
         if (this.ignoreFailures && this.to.toFile().length() != 0) {
@@ -554,6 +907,26 @@ public final class Download {
         return this.downloadRec(attempt + 1);
     }
 
+    /**
+     * Gives up on the LZMA compressed version of the file, so that it's downloaded from the normal url from now on.
+     */
+    private void stopUsingLzma() {
+        LogManager.warn("Failed downloading LZMA compressed " + this.to.getFileName() + " from " + this.lzmaUrl
+                + ", downloading it uncompressed instead");
+
+        this.useLzma = false;
+
+        if (this.response != null) {
+            this.response.close();
+            this.response = null;
+        }
+
+        // the uncompressed file is bigger, so make sure progress accounts for the extra bytes
+        if (this.instanceInstaller != null && this.size > this.lzmaSize && this.lzmaSize > 0L) {
+            this.instanceInstaller.addBytesToDownload(this.size - this.lzmaSize);
+        }
+    }
+
     public void copy() {
         if (this.copyTo != null) {
             if (Files.exists(this.copyTo)) {
@@ -568,7 +941,7 @@ public final class Download {
                 FileUtils.createDirectory(this.copyTo.getParent());
             }
 
-            FileUtils.copyFile(this.to, this.copyTo, true);
+            ContentStore.materialize(this.to, this.copyTo);
         }
     }
 
@@ -585,7 +958,7 @@ public final class Download {
             if (this.copyTo != null) {
                 if (this.fingerprint != null) {
                     try {
-                        if (Hashing.murmur(this.copyTo) != this.fingerprint) {
+                        if (FileHashIndex.murmur(this.copyTo) != this.fingerprint) {
                             this.copy();
                         }
                     } catch (IOException ignored) {
@@ -594,13 +967,13 @@ public final class Download {
                     HashCode fileHash = Hashing.EMPTY_HASH_CODE;
                     if (Files.exists(this.copyTo)) {
                         if (this.md5()) {
-                            fileHash = Hashing.md5(this.copyTo);
+                            fileHash = FileHashIndex.md5(this.copyTo);
                         } else if (this.sha256()) {
-                            fileHash = Hashing.sha256(this.copyTo);
+                            fileHash = FileHashIndex.sha256(this.copyTo);
                         } else if (this.sha512()) {
-                            fileHash = Hashing.sha512(this.copyTo);
+                            fileHash = FileHashIndex.sha512(this.copyTo);
                         } else {
-                            fileHash = Hashing.sha1(this.copyTo);
+                            fileHash = FileHashIndex.sha1(this.copyTo);
                         }
                     }
 
@@ -627,6 +1000,12 @@ public final class Download {
                     return;
                 }
 
+                if (this.useLzma) {
+                    this.stopUsingLzma();
+                    downloadFile(tries);
+                    return;
+                }
+
                 if (this.instanceInstaller != null) {
                     this.instanceInstaller.cancel(true);
                 }
@@ -682,9 +1061,11 @@ public final class Download {
                 } else {
                     LogManager.error("Error downloading " + this.to.getFileName() + " from " + this.url + ". Expected"
                             + " hash of " + expected.toString() + " (" + (this.size == 0 ? "with unknown size": "with size of" + this.size) + ") but got "
-                            + (this.md5() ? Hashing.md5(this.to)
-                                    : (this.sha256() ? Hashing.sha256(this.to)
-                                            : (this.sha512() ? Hashing.sha512(this.to) : Hashing.sha1(this.to))))
+                            + (this.computedHash != null ? this.computedHash
+                                    : (this.md5() ? Hashing.md5(this.to)
+                                            : (this.sha256() ? Hashing.sha256(this.to)
+                                                    : (this.sha512() ? Hashing.sha512(this.to)
+                                                            : Hashing.sha1(this.to)))))
                             + " (with size of " + (Files.exists(this.to) ? Files.size(this.to) : 0)
                             + ") instead. Copied to FailedDownloads folder & cancelling install! ("
                             + App.settings.connectionTimeout + "/" + App.settings.concurrentConnections + ")");
@@ -697,7 +1078,7 @@ public final class Download {
             if (downloaded && this.copyTo != null) {
                 if (this.fingerprint != null) {
                     try {
-                        if (Hashing.murmur(this.copyTo) != this.fingerprint) {
+                        if (FileHashIndex.murmur(this.copyTo) != this.fingerprint) {
                             this.copy();
                         }
                     } catch (IOException ignored) {
@@ -706,13 +1087,13 @@ public final class Download {
                     HashCode fileHash2 = Hashing.EMPTY_HASH_CODE;
                     if (Files.exists(this.copyTo)) {
                         if (this.md5()) {
-                            fileHash2 = Hashing.md5(this.copyTo);
+                            fileHash2 = FileHashIndex.md5(this.copyTo);
                         } else if (this.sha256()) {
-                            fileHash2 = Hashing.sha256(this.copyTo);
+                            fileHash2 = FileHashIndex.sha256(this.copyTo);
                         } else if (this.sha512()) {
-                            fileHash2 = Hashing.sha512(this.copyTo);
+                            fileHash2 = FileHashIndex.sha512(this.copyTo);
                         } else {
-                            fileHash2 = Hashing.sha1(this.copyTo);
+                            fileHash2 = FileHashIndex.sha1(this.copyTo);
                         }
                     }
 
@@ -742,12 +1123,17 @@ public final class Download {
 
             if (this.deleteAfterExtract) {
                 FileUtils.delete(this.to);
+                this.computedHash = null;
             }
         }
 
         if (Files.exists(this.to) && this.executable) {
             this.to.toFile().setExecutable(this.executable);
         }
+
+        if (this.afterDownload != null) {
+            this.afterDownload.run();
+        }
     }
 
     public String getPrintableFileName() {
@@ -0,0 +1,210 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.luna.utils.FileUtils;
+import com.luna.utils.Hashing;
+
+import okhttp3.Response;
+
+/**
+ * Keeps track of a download that didn't finish, so that it can carry on from where it left off with a Range request
+ * rather than starting again from the beginning, whether that's on the next attempt or after the launcher restarts.
+ *
+ * The partially downloaded file lives next to a small json journal of what it's a download of (the url, expected
+ * size and hash) and what the server said about it (the ETag and Last-Modified headers). If any of that no longer
+ * matches, the partial file is thrown away and the download starts from scratch.
+ */
+final class DownloadJournal {
+    // save where we're up to every so often, so a crash or the launcher being closed doesn't lose much
+    static final long CHECKPOINT_BYTES = 8L * 1024 * 1024;
+
+    private String url;
+    private long size;
+    private String hash;
+    private long bytesWritten;
+    private String etag;
+    private String lastModified;
+
+    private transient Path partialPath;
+    private transient Path journalPath;
+
+    private DownloadJournal() {
+    }
+
+    /**
+     * Opens the journal for downloading the given url to the given path, picking up whatever was already downloaded
+     * of it as long as it's still the same download.
+     */
+    static DownloadJournal open(Path directory, Path to, String url, long size, String hash) {
+        String name = Hashing.md5(to.toAbsolutePath().toString()).toString();
+        Path partialPath = directory.resolve(name + ".part");
+        Path journalPath = directory.resolve(name + ".json");
+
+        DownloadJournal journal = read(journalPath);
+
+        if (journal == null || !Objects.equals(journal.url, url) || journal.size != size
+                || !Objects.equals(journal.hash, hash) || !Files.exists(partialPath)
+                || partialPath.toFile().length() < journal.bytesWritten) {
+            journal = new DownloadJournal();
+            journal.url = url;
+            journal.size = size;
+            journal.hash = hash;
+        }
+
+        journal.partialPath = partialPath;
+        journal.journalPath = journalPath;
+
+        if (journal.bytesWritten == 0L) {
+            journal.etag = null;
+            journal.lastModified = null;
+        }
+
+        return journal;
+    }
+
+    Path getPartialPath() {
+        return partialPath;
+    }
+
+    /**
+     * How far into the file the download can carry on from, or 0 if it needs to start from the beginning.
+     */
+    long getResumeFrom() {
+        // without something to tell if the file on the server has changed, there's no safe way to resume
+        if (getIfRange() == null) {
+            return 0L;
+        }
+
+        return bytesWritten;
+    }
+
+    /**
+     * The value for the If-Range header, so that the server sends the whole file again if it's changed since the
+     * partial file was downloaded. Weak ETags can't be used for this, so Last-Modified is used instead of those.
+     */
+    String getIfRange() {
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+
+        return lastModified;
+    }
+
+    /**
+     * Gets the partial file ready to be written to from the given position, which is where the response that's
+     * about to be read starts from.
+     */
+    FileChannel start(Response response, long position) throws IOException {
+        FileUtils.createDirectory(partialPath.getParent());
+
+        if (position == 0L) {
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+        }
+
+        bytesWritten = position;
+        save();
+
+        FileChannel channel = FileChannel.open(partialPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(position);
+        channel.position(position);
+
+        return channel;
+    }
+
+    /**
+     * Records that everything up to the given position has been written to the partial file.
+     */
+    void checkpoint(FileChannel channel, long position) throws IOException {
+        channel.force(false);
+
+        bytesWritten = position;
+        save();
+    }
+
+    /**
+     * Moves the finished file into place and forgets about the download.
+     */
+    void complete(Path to) throws IOException {
+        Files.move(partialPath, to, StandardCopyOption.REPLACE_EXISTING);
+        discard();
+    }
+
+    /**
+     * Throws away anything downloaded so far, so the next attempt starts from the beginning.
+     */
+    void discard() {
+        bytesWritten = 0L;
+        etag = null;
+        lastModified = null;
+
+        if (Files.exists(partialPath)) {
+            FileUtils.delete(partialPath);
+        }
+
+        if (Files.exists(journalPath)) {
+            FileUtils.delete(journalPath);
+        }
+    }
+
+    private void save() {
+        Path tempPath = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+
+        try (OutputStreamWriter writer = new OutputStreamWriter(Files.newOutputStream(tempPath),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT_SLIM.toJson(this, writer);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save download journal", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save download journal", e, false);
+        }
+    }
+
+    private static DownloadJournal read(Path journalPath) {
+        if (!Files.exists(journalPath)) {
+            return null;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(journalPath),
+                StandardCharsets.UTF_8)) {
+            return Gsons.DEFAULT_SLIM.fromJson(reader, DownloadJournal.class);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read download journal", e, false);
+            return null;
+        }
+    }
+}
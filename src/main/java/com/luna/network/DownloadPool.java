@@ -20,20 +20,30 @@ package com.luna.network;
 import java.nio.file.Files;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import com.luna.App;
 import com.luna.managers.LogManager;
+import com.luna.network.DownloadScheduler.Priority;
+import com.luna.utils.FileHashIndex;
 import com.luna.utils.FileUtils;
 
 @SuppressWarnings("serial")
 public final class DownloadPool extends LinkedList<Download> {
     private final boolean wait;
+    private final Priority priority;
 
-    public DownloadPool(boolean wait) {
+    public DownloadPool(boolean wait, Priority priority) {
         this.wait = wait;
+        this.priority = priority;
+    }
+
+    public DownloadPool(boolean wait) {
+        this(wait, Priority.NORMAL);
+    }
+
+    public DownloadPool(Priority priority) {
+        this(true, priority);
     }
 
     public DownloadPool() {
@@ -47,16 +57,15 @@ public final class DownloadPool extends LinkedList<Download> {
             }
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool(App.settings.concurrentConnections);
+        List<CompletableFuture<Void>> futures = new LinkedList<>();
         synchronized (this) {
             for (Download dl : this) {
-                executor.execute(new Downloader(dl));
+                futures.add(DownloadScheduler.submit(dl, this.priority, new Downloader(dl)));
             }
         }
-        executor.shutdown();
+
         if (this.wait) {
-            while (!executor.isTerminated()) {
-            }
+            DownloadScheduler.awaitAll(futures);
         }
     }
 
@@ -65,7 +74,7 @@ public final class DownloadPool extends LinkedList<Download> {
         synchronized (this) {
             for (Download dl : this) {
                 if (dl.needToDownload()) {
-                    size += dl.size;
+                    size += dl.getTransferSize();
                 }
             }
         }
@@ -73,12 +82,13 @@ public final class DownloadPool extends LinkedList<Download> {
     }
 
     public DownloadPool downsize() {
-        final DownloadPool pool = new DownloadPool(this.wait);
+        final DownloadPool pool = new DownloadPool(this.wait, this.priority);
         final List<Download> downloads = this.stream().distinct().collect(Collectors.toList());
 
-        ExecutorService executor = Executors.newFixedThreadPool(App.settings.concurrentConnections);
+        // checking what's already on disk doesn't hit the network, so isn't limited per host
+        List<CompletableFuture<Void>> futures = new LinkedList<>();
         for (final Download dl : downloads) {
-            executor.submit(() -> {
+            futures.add(DownloadScheduler.submit((String) null, this.priority, () -> {
                 if (dl.needToDownload()) {
                     synchronized (pool) {
                         pool.add(dl);
@@ -87,12 +97,12 @@ public final class DownloadPool extends LinkedList<Download> {
                     dl.copy();
                     dl.runPostProcessors();
                 }
-            });
+            }));
         }
 
-        executor.shutdown();
-        while (!executor.isTerminated()) {
-        }
+        DownloadScheduler.awaitAll(futures);
+
+        FileHashIndex.saveIfDirty();
 
         return pool;
     }
@@ -0,0 +1,268 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.luna.App;
+import com.luna.managers.LogManager;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Launcher wide scheduler that all {@link DownloadPool}s submit their work into.
+ *
+ * Work is run on a single long lived pool sized by the concurrent connections setting, ordered by
+ * {@link Priority} so that libraries and the client jar get through before bulk assets, and limited per host so
+ * that one slow server can't take up every connection. Hosts that speak HTTP/2 are given a higher limit, since their
+ * requests share a connection. Callers wait on the returned futures rather than spinning.
+ */
+public final class DownloadScheduler {
+    public static final int MAX_CONNECTIONS_PER_HOST = Integer
+            .parseInt(System.getProperty("com.luna.network.DownloadScheduler.maxConnectionsPerHost", "6"));
+
+    // hosts speaking HTTP/2 run requests as streams over the one connection, so they can take more at once
+    public static final int MAX_STREAMS_PER_MULTIPLEXED_HOST = Integer
+            .parseInt(System.getProperty("com.luna.network.DownloadScheduler.maxStreamsPerMultiplexedHost", "16"));
+
+    private static final String THREAD_NAME_PREFIX = "DownloadScheduler-";
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final Map<String, HostLane> LANES = new HashMap<>();
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private DownloadScheduler() {
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * Schedules the given download task, limiting it against the host the download is fetched from.
+     */
+    public static CompletableFuture<Void> submit(Download download, Priority priority, Runnable task) {
+        return submit(getHost(download.url), priority, task);
+    }
+
+    /**
+     * Schedules the given task. If host is null then the task isn't limited per host, which is what should be used
+     * for local work such as checking hashes of files already on disk.
+     */
+    public static CompletableFuture<Void> submit(String host, Priority priority, Runnable task) {
+        // work scheduled from within the scheduler is run inline, otherwise waiting on it could starve the pool
+        if (isSchedulerThread()) {
+            return runInline(task);
+        }
+
+        ensureConcurrentConnections();
+
+        ScheduledTask scheduledTask = new ScheduledTask(host, priority, task);
+
+        if (host == null) {
+            EXECUTOR.execute(scheduledTask);
+            return scheduledTask.future;
+        }
+
+        synchronized (LANES) {
+            HostLane lane = LANES.computeIfAbsent(host, h -> new HostLane());
+            lane.queue.add(scheduledTask);
+            dispatch(host, lane);
+        }
+
+        return scheduledTask.future;
+    }
+
+    /**
+     * Waits for all the given futures to complete, logging any failures.
+     */
+    public static void awaitAll(Collection<CompletableFuture<Void>> futures) {
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                LogManager.logStackTrace("Error running scheduled download task", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Takes one of the host's connections for extra work alongside a download that's already running (such as
+     * another range of a {@link SegmentedDownload}), returning if one was free. Queued downloads for the host come
+     * first, so nothing is taken while any are waiting. Anything taken must be given back with {@link #release}.
+     */
+    static boolean tryAcquire(String host) {
+        synchronized (LANES) {
+            HostLane lane = LANES.computeIfAbsent(host, h -> new HostLane());
+            if (lane.active < getLimit(host) && lane.queue.isEmpty()) {
+                lane.active++;
+                return true;
+            }
+
+            if (lane.active == 0 && lane.queue.isEmpty()) {
+                LANES.remove(host);
+            }
+
+            return false;
+        }
+    }
+
+    public static boolean isSchedulerThread() {
+        return Thread.currentThread().getName().startsWith(THREAD_NAME_PREFIX);
+    }
+
+    private static CompletableFuture<Void> runInline(Runnable task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            task.run();
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        return future;
+    }
+
+    private static void dispatch(String host, HostLane lane) {
+        int limit = getLimit(host);
+
+        while (lane.active < limit && !lane.queue.isEmpty()) {
+            lane.active++;
+            EXECUTOR.execute(lane.queue.poll());
+        }
+    }
+
+    private static int getLimit(String host) {
+        return HostStats.isMultiplexed(host) ? MAX_STREAMS_PER_MULTIPLEXED_HOST : MAX_CONNECTIONS_PER_HOST;
+    }
+
+    static void release(String host) {
+        synchronized (LANES) {
+            HostLane lane = LANES.get(host);
+
+            if (lane == null) {
+                return;
+            }
+
+            lane.active--;
+            dispatch(host, lane);
+
+            if (lane.active == 0 && lane.queue.isEmpty()) {
+                LANES.remove(host);
+            }
+        }
+    }
+
+    private static String getHost(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        HttpUrl httpUrl = HttpUrl.parse(url);
+
+        return httpUrl == null ? null : httpUrl.host();
+    }
+
+    private static synchronized void ensureConcurrentConnections() {
+        int concurrentConnections = App.settings == null ? 8 : Math.max(1, App.settings.concurrentConnections);
+
+        if (EXECUTOR.getMaximumPoolSize() == concurrentConnections) {
+            return;
+        }
+
+        // core size can't be above max size, so the order we change them in matters
+        if (concurrentConnections > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(concurrentConnections);
+            EXECUTOR.setCorePoolSize(concurrentConnections);
+        } else {
+            EXECUTOR.setCorePoolSize(concurrentConnections);
+            EXECUTOR.setMaximumPoolSize(concurrentConnections);
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int concurrentConnections = App.settings == null ? 8 : Math.max(1, App.settings.concurrentConnections);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrentConnections, concurrentConnections, 30L,
+                TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // let the threads die off when the launcher isn't downloading anything
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static final class HostLane {
+        private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+        private int active = 0;
+    }
+
+    private static final class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+        private final String host;
+        private final Priority priority;
+        private final long sequence = SEQUENCE.getAndIncrement();
+        private final Runnable task;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private ScheduledTask(String host, Priority priority, Runnable task) {
+            this.host = host;
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                if (host != null) {
+                    release(host);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            if (this.priority != other.priority) {
+                return this.priority.compareTo(other.priority);
+            }
+
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.luna.managers.LogManager;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * Keeps count of how each host the launcher talks to is doing: how many connections were opened to it versus reused,
+ * which protocol it speaks, how long connecting and waiting for the first byte of a response takes, and how many
+ * calls failed.
+ *
+ * This is fed by {@link #FACTORY} which is set on all the clients in {@link com.luna.Network}, and is what the
+ * download scheduler uses to know which hosts can take more requests at once because they multiplex them.
+ */
+public final class HostStats {
+    public static final EventListener.Factory FACTORY = call -> new Listener();
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private HostStats() {
+    }
+
+    public static Stats get(String host) {
+        return STATS.computeIfAbsent(host, h -> new Stats());
+    }
+
+    /**
+     * The stats for every host that's been called so far, sorted by host.
+     */
+    public static Map<String, Stats> getAll() {
+        return Collections.unmodifiableMap(new TreeMap<>(STATS));
+    }
+
+    /**
+     * If the host has been seen to speak HTTP/2, in which case many requests share the one connection.
+     */
+    public static boolean isMultiplexed(String host) {
+        Stats stats = host == null ? null : STATS.get(host);
+
+        return stats != null && stats.protocol == Protocol.HTTP_2;
+    }
+
+    public static void logSummary() {
+        getAll().forEach((host, stats) -> LogManager.debug(host + ": " + stats));
+    }
+
+    public static final class Stats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failedCalls = new AtomicLong();
+        private final AtomicLong connectionsOpened = new AtomicLong();
+        private final AtomicLong connectionsAcquired = new AtomicLong();
+        private final AtomicLong connectNanos = new AtomicLong();
+        private final AtomicLong responses = new AtomicLong();
+        private final AtomicLong timeToFirstByteNanos = new AtomicLong();
+        private volatile Protocol protocol = null;
+
+        public long getCalls() {
+            return calls.get();
+        }
+
+        public long getFailedCalls() {
+            return failedCalls.get();
+        }
+
+        public long getConnectionsOpened() {
+            return connectionsOpened.get();
+        }
+
+        /**
+         * How many calls were made over a connection that was already open, rather than opening a new one.
+         */
+        public long getConnectionsReused() {
+            return Math.max(0L, connectionsAcquired.get() - connectionsOpened.get());
+        }
+
+        public Protocol getProtocol() {
+            return protocol;
+        }
+
+        public double getAverageConnectMillis() {
+            long opened = connectionsOpened.get();
+
+            return opened == 0 ? 0d : connectNanos.get() / 1e6d / opened;
+        }
+
+        /**
+         * The average time between sending a request and getting back the start of the response.
+         */
+        public double getAverageTimeToFirstByteMillis() {
+            long count = responses.get();
+
+            return count == 0 ? 0d : timeToFirstByteNanos.get() / 1e6d / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "%s, %d calls (%d failed), %d connections opened (%.1fms avg), %d reused, %.1fms avg to first byte",
+                    protocol, getCalls(), getFailedCalls(), getConnectionsOpened(), getAverageConnectMillis(),
+                    getConnectionsReused(), getAverageTimeToFirstByteMillis());
+        }
+    }
+
+    /**
+     * Created for each call, so it can hold onto when each part of the call started.
+     */
+    private static final class Listener extends EventListener {
+        private long connectStart;
+        private long connectDuration = -1L;
+        private long requestStart;
+        private String host;
+
+        @Override
+        public void callStart(Call call) {
+            host = call.request().url().host();
+            get(host).calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectDuration = System.nanoTime() - connectStart;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            // redirects can take a call to another host, so go by the host that was actually connected to
+            host = connection.route().address().url().host();
+
+            Stats stats = get(host);
+            stats.connectionsAcquired.incrementAndGet();
+            stats.protocol = connection.protocol();
+
+            if (connectDuration != -1L) {
+                stats.connectionsOpened.incrementAndGet();
+                stats.connectNanos.addAndGet(connectDuration);
+                connectDuration = -1L;
+            }
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            Stats stats = get(host);
+            stats.responses.incrementAndGet();
+            stats.timeToFirstByteNanos.addAndGet(System.nanoTime() - requestStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            get(host).failedCalls.incrementAndGet();
+        }
+    }
+}
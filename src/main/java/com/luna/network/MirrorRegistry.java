@@ -0,0 +1,346 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Alternate bases that downloads can be fetched from instead of the usual one, such as a mirror of the Minecraft
+ * resources or libraries that's closer to the user.
+ *
+ * Mirrors are configured in configs/mirrors.json as a map of each base url to a list of the bases which mirror it.
+ * Each base is scored as downloads go through it, by how long it takes to start responding and how fast it sends, and
+ * downloads go to whichever base should get the file there the quickest. Bases that fail, rate limit or send back the
+ * wrong file are left alone for a while, with the wait growing each time it happens in a row.
+ *
+ * Mirrors are only ever used for downloads that have a hash to check against, so a mirror can't get anything onto
+ * disk that isn't exactly what would have come from the usual base.
+ */
+public final class MirrorRegistry {
+    private static final Type MIRRORS_TYPE = new TypeToken<Map<String, List<String>>>() {
+    }.getType();
+
+    static final long BASE_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_COOLDOWN_MS = TimeUnit.MINUTES.toMillis(10);
+
+    // every so often a base other than the best is tried, so that scores don't go stale
+    private static final int EXPLORE_EVERY = 20;
+    // how much each new measurement moves a score
+    private static final double WEIGHT = 0.3d;
+    // transfers smaller than this are over too quickly to say anything about throughput
+    private static final long MIN_THROUGHPUT_BYTES = 256 * 1024;
+
+    private static final Map<String, List<String>> MIRRORS = new ConcurrentHashMap<>();
+    private static final Map<String, Score> SCORES = new ConcurrentHashMap<>();
+    private static final AtomicLong LOOKUPS = new AtomicLong();
+    private static volatile boolean loaded = false;
+
+    private MirrorRegistry() {
+    }
+
+    /**
+     * Sets the bases which mirror the given base, replacing any set before. An empty list removes the mirrors.
+     */
+    public static void setMirrors(String base, List<String> mirrorBases) {
+        String normalisedBase = normalise(base);
+
+        if (mirrorBases == null || mirrorBases.isEmpty()) {
+            MIRRORS.remove(normalisedBase);
+            return;
+        }
+
+        MIRRORS.put(normalisedBase, Collections.unmodifiableList(
+                mirrorBases.stream().map(MirrorRegistry::normalise).distinct().collect(Collectors.toList())));
+    }
+
+    public static Map<String, List<String>> getMirrors() {
+        ensureLoaded();
+
+        return Collections.unmodifiableMap(new TreeMap<>(MIRRORS));
+    }
+
+    /**
+     * The scores of every base that's been used so far, sorted by base.
+     */
+    public static Map<String, Score> getScores() {
+        return Collections.unmodifiableMap(new TreeMap<>(SCORES));
+    }
+
+    /**
+     * Gets the urls the given url can be downloaded from, best first. If there are no mirrors for it, then this is
+     * just the url itself. Bases that are being left alone after failing are put last, rather than left out, so that
+     * there's always something to try.
+     */
+    public static List<String> getCandidates(String url, long size) {
+        ensureLoaded();
+
+        String base = findMirroredBase(url);
+        if (base == null) {
+            return Collections.singletonList(url);
+        }
+
+        List<String> bases = new ArrayList<>();
+        bases.add(base);
+        bases.addAll(MIRRORS.get(base));
+
+        long now = System.currentTimeMillis();
+        Score baseScore = getScore(base);
+        List<String> available = bases.stream().filter(b -> !getScore(b).isCoolingDown(now))
+                .sorted(Comparator.comparingDouble(b -> getScore(b).getExpectedMillis(size, baseScore)))
+                .collect(Collectors.toList());
+        List<String> coolingDown = bases.stream().filter(b -> getScore(b).isCoolingDown(now))
+                .sorted(Comparator.comparingLong(b -> getScore(b).coolDownUntil)).collect(Collectors.toList());
+
+        if (available.size() > 1 && LOOKUPS.incrementAndGet() % EXPLORE_EVERY == 0) {
+            String leastSampled = available.stream().min(Comparator.comparingLong(b -> getScore(b).samples)).get();
+            available.remove(leastSampled);
+            available.add(0, leastSampled);
+        }
+
+        List<String> candidates = new ArrayList<>();
+        String path = url.substring(base.length());
+        available.forEach(b -> candidates.add(b + path));
+        coolingDown.forEach(b -> candidates.add(b + path));
+
+        return candidates;
+    }
+
+    /**
+     * Records what came back when a request was made to the given url. Rate limiting and server errors count as
+     * failures, with the Retry-After header (in seconds) respected if there was one. A missing file only says
+     * something about that file, so the base isn't held against it.
+     */
+    public static void recordResponse(String url, int code, long latencyNanos, String retryAfter) {
+        Score score = getScoreForUrl(url);
+        if (score == null) {
+            return;
+        }
+
+        if (code >= 200 && code < 300) {
+            score.recordLatency(latencyNanos / 1e6d);
+            return;
+        }
+
+        if (code == 404 || code == 410) {
+            return;
+        }
+
+        long retryAfterMs = 0L;
+        if (retryAfter != null) {
+            try {
+                retryAfterMs = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                // it can also be a date, in which case the usual cooldown will do
+            }
+        }
+
+        LogManager.debug("Request to " + url + " failed with code " + code + ", trying elsewhere for a while");
+        score.recordFailure(retryAfterMs);
+    }
+
+    /**
+     * Records that a request to the given url failed, such as the connection dropping or the file not matching its
+     * hash.
+     */
+    public static void recordFailure(String url) {
+        Score score = getScoreForUrl(url);
+
+        if (score != null) {
+            score.recordFailure(0L);
+        }
+    }
+
+    /**
+     * Records that a file was downloaded from the given url, taking the given time to send the given number of bytes.
+     */
+    public static void recordTransfer(String url, long bytes, long nanos) {
+        Score score = getScoreForUrl(url);
+
+        if (score != null && bytes >= MIN_THROUGHPUT_BYTES && nanos > 0L) {
+            score.recordThroughput(bytes / (nanos / 1e9d));
+        }
+    }
+
+    /**
+     * Forgets all mirrors and scores, and reads the mirrors from the config again the next time they're needed.
+     */
+    static void reset() {
+        MIRRORS.clear();
+        SCORES.clear();
+        LOOKUPS.set(0L);
+        loaded = false;
+    }
+
+    /**
+     * Reads the mirrors from the given file, adding to any already set.
+     */
+    static void load(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            Map<String, List<String>> mirrors = Gsons.DEFAULT_SLIM.fromJson(reader, MIRRORS_TYPE);
+
+            if (mirrors != null) {
+                mirrors.forEach(MirrorRegistry::setMirrors);
+                LogManager.info("Loaded mirrors for " + mirrors.size() + " download bases");
+            }
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read mirrors from " + path, e, false);
+        }
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (MirrorRegistry.class) {
+            if (!loaded) {
+                load(FileSystem.MIRRORS);
+                loaded = true;
+            }
+        }
+    }
+
+    private static String normalise(String base) {
+        return base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    private static boolean isUnder(String url, String base) {
+        return url.startsWith(base) && (url.length() == base.length() || url.charAt(base.length()) == '/');
+    }
+
+    /**
+     * Finds the longest base with mirrors that the url is under.
+     */
+    private static String findMirroredBase(String url) {
+        String found = null;
+
+        for (String base : MIRRORS.keySet()) {
+            if (isUnder(url, base) && (found == null || base.length() > found.length())) {
+                found = base;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the score for the base (usual or mirror) the url is under, or null if it's not under any of them.
+     */
+    private static Score getScoreForUrl(String url) {
+        String found = null;
+
+        for (Map.Entry<String, List<String>> entry : MIRRORS.entrySet()) {
+            List<String> bases = new ArrayList<>(entry.getValue());
+            bases.add(entry.getKey());
+
+            for (String base : bases) {
+                if (isUnder(url, base) && (found == null || base.length() > found.length())) {
+                    found = base;
+                }
+            }
+        }
+
+        return found == null ? null : getScore(found);
+    }
+
+    private static Score getScore(String base) {
+        return SCORES.computeIfAbsent(base, b -> new Score());
+    }
+
+    public static final class Score {
+        private double latencyMillis = -1d;
+        private double bytesPerSecond = -1d;
+        private long samples = 0L;
+        private int consecutiveFailures = 0;
+        private volatile long coolDownUntil = 0L;
+
+        public synchronized double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public synchronized double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public boolean isCoolingDown(long now) {
+            return coolDownUntil > now;
+        }
+
+        /**
+         * How long a file of the given size is expected to take to download from this base. Anything not measured
+         * yet is assumed to be the same as the usual base, so that mirrors have to prove themselves faster.
+         */
+        synchronized double getExpectedMillis(long size, Score fallback) {
+            double latency = latencyMillis >= 0 ? latencyMillis : Math.max(0d, fallback.getLatencyMillis());
+            double throughput = bytesPerSecond > 0 ? bytesPerSecond : fallback.getBytesPerSecond();
+
+            return latency + (throughput > 0 && size > 0 ? size * 1000d / throughput : 0d);
+        }
+
+        private synchronized void recordLatency(double millis) {
+            latencyMillis = latencyMillis < 0 ? millis : latencyMillis + WEIGHT * (millis - latencyMillis);
+            samples++;
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void recordThroughput(double bytesPerSecond) {
+            this.bytesPerSecond = this.bytesPerSecond < 0 ? bytesPerSecond
+                    : this.bytesPerSecond + WEIGHT * (bytesPerSecond - this.bytesPerSecond);
+        }
+
+        private synchronized void recordFailure(long retryAfterMs) {
+            consecutiveFailures++;
+            samples++;
+
+            long coolDown = Math.min(MAX_COOLDOWN_MS, BASE_COOLDOWN_MS << Math.min(consecutiveFailures - 1, 10));
+            coolDownUntil = System.currentTimeMillis() + Math.max(coolDown, Math.min(retryAfterMs, MAX_COOLDOWN_MS));
+        }
+
+        @Override
+        public synchronized String toString() {
+            boolean coolingDown = isCoolingDown(System.currentTimeMillis());
+
+            return String.format(Locale.ENGLISH, "%.1fms latency, %.1fKB/s, %d samples%s", latencyMillis,
+                    bytesPerSecond / 1024d, samples, coolingDown ? ", cooling down" : "");
+        }
+    }
+}
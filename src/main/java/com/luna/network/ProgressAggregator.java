@@ -0,0 +1,262 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.luna.interfaces.NetworkProgressable;
+import com.luna.managers.LogManager;
+
+/**
+ * Collects download progress from any number of threads without locking, and passes it on to a listener at a fixed
+ * rate rather than on every read.
+ *
+ * Downloads add to a {@link LongAdder} which is cheap to update from many threads at once. A single shared sampler
+ * thread then reads the totals every {@link #SAMPLE_INTERVAL_MS}ms and tells the listener if anything changed, so
+ * the UI gets at most 10 updates a second no matter how many connections are running. The sampler stops itself
+ * once nothing has changed for a while and starts again on the next update.
+ */
+public class ProgressAggregator implements NetworkProgressable {
+    public static final long SAMPLE_INTERVAL_MS = 100;
+
+    // how many samples in a row with nothing changing before we stop sampling
+    private static final int IDLE_SAMPLES_BEFORE_STOPPING = 10;
+
+    // how much each new sample counts towards the speed, lower values give a smoother but slower to react speed
+    private static final double SPEED_SMOOTHING = 0.3;
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProgressSampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder downloaded = new LongAdder();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicBoolean sampling = new AtomicBoolean(false);
+    private final Consumer<Snapshot> listener;
+
+    // only used while holding the lock on this object
+    private ScheduledFuture<?> samplerFuture;
+    private Snapshot lastSnapshot;
+    private long lastSampledAt;
+    private double bytesPerSecond;
+    private int idleSamples;
+
+    public ProgressAggregator(Consumer<Snapshot> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Creates an aggregator which passes on the progress to the given progressable, such as a progress dialog, at a
+     * fixed rate and always from the same thread.
+     */
+    public static ProgressAggregator forwardingTo(NetworkProgressable progressable) {
+        return new ProgressAggregator(new Consumer<Snapshot>() {
+            private Snapshot last = null;
+
+            @Override
+            public void accept(Snapshot snapshot) {
+                if (last == null || last.resets != snapshot.resets) {
+                    progressable.setTotalBytes(snapshot.totalBytes);
+
+                    if (snapshot.downloadedBytes > 0) {
+                        progressable.addDownloadedBytes(snapshot.downloadedBytes);
+                    }
+                } else {
+                    if (snapshot.totalBytes > last.totalBytes) {
+                        progressable.addBytesToDownload(snapshot.totalBytes - last.totalBytes);
+                    }
+
+                    if (snapshot.downloadedBytes > last.downloadedBytes) {
+                        progressable.addDownloadedBytes(snapshot.downloadedBytes - last.downloadedBytes);
+                    }
+                }
+
+                last = snapshot;
+            }
+        });
+    }
+
+    @Override
+    public void setTotalBytes(long bytes) {
+        synchronized (this) {
+            downloaded.reset();
+            total.set(bytes);
+            resets.incrementAndGet();
+            bytesPerSecond = 0;
+        }
+
+        // this only happens when starting on something new, so show it straight away
+        SAMPLER.execute(this::sample);
+    }
+
+    @Override
+    public void addDownloadedBytes(long bytes) {
+        downloaded.add(bytes);
+        startSampling();
+    }
+
+    @Override
+    public void addBytesToDownload(long bytes) {
+        total.addAndGet(bytes);
+        startSampling();
+    }
+
+    public long getDownloadedBytes() {
+        return downloaded.sum();
+    }
+
+    public long getTotalBytes() {
+        return total.get();
+    }
+
+    /**
+     * Passes on the current progress now rather than waiting for the next sample, such as when a download finishes.
+     * This waits until the listener has been told, but the listener is still called from the sampler thread.
+     */
+    public void flush() {
+        try {
+            SAMPLER.submit(this::sample).get();
+        } catch (ExecutionException e) {
+            LogManager.logStackTrace("Failed to pass on download progress", e, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startSampling() {
+        if (!sampling.get() && sampling.compareAndSet(false, true)) {
+            synchronized (this) {
+                idleSamples = 0;
+                samplerFuture = SAMPLER.scheduleAtFixedRate(this::sampleOrStop, SAMPLE_INTERVAL_MS,
+                        SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void sampleOrStop() {
+        if (sample()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (++idleSamples < IDLE_SAMPLES_BEFORE_STOPPING) {
+                return;
+            }
+
+            samplerFuture.cancel(false);
+            samplerFuture = null;
+        }
+
+        sampling.set(false);
+
+        // something may have been added after we last looked but before we stopped, which wouldn't have restarted us
+        if (hasChanged()) {
+            startSampling();
+        }
+    }
+
+    private synchronized boolean hasChanged() {
+        return lastSnapshot == null || lastSnapshot.resets != resets.get()
+                || lastSnapshot.downloadedBytes != downloaded.sum() || lastSnapshot.totalBytes != total.get();
+    }
+
+    /**
+     * Takes a sample and tells the listener about it if anything changed, returning if it did. This is only ever run
+     * on the sampler thread, so the listener is always called from the same thread and never twice at once.
+     */
+    private boolean sample() {
+        Snapshot snapshot;
+
+        synchronized (this) {
+            if (!hasChanged()) {
+                return false;
+            }
+
+            long now = System.nanoTime();
+            long downloadedBytes = downloaded.sum();
+            long resetCount = resets.get();
+
+            if (lastSnapshot != null && lastSnapshot.resets == resetCount && now > lastSampledAt) {
+                double seconds = (now - lastSampledAt) / 1_000_000_000.0;
+                double currentSpeed = Math.max(0, downloadedBytes - lastSnapshot.downloadedBytes) / seconds;
+
+                bytesPerSecond = bytesPerSecond == 0 ? currentSpeed
+                        : (SPEED_SMOOTHING * currentSpeed) + ((1 - SPEED_SMOOTHING) * bytesPerSecond);
+            }
+
+            idleSamples = 0;
+            lastSampledAt = now;
+            lastSnapshot = snapshot = new Snapshot(downloadedBytes, total.get(), bytesPerSecond, resetCount);
+        }
+
+        // the listener can be slow (such as updating the UI), so don't hold up the downloads while it runs
+        listener.accept(snapshot);
+
+        return true;
+    }
+
+    public static final class Snapshot {
+        public final long downloadedBytes;
+        public final long totalBytes;
+        public final double bytesPerSecond;
+        private final long resets;
+
+        private Snapshot(long downloadedBytes, long totalBytes, double bytesPerSecond, long resets) {
+            this.downloadedBytes = downloadedBytes;
+            this.totalBytes = totalBytes;
+            this.bytesPerSecond = bytesPerSecond;
+            this.resets = resets;
+        }
+
+        public double getPercent() {
+            if (totalBytes <= 0) {
+                return 0.0;
+            }
+
+            return Math.min(100.0, (downloadedBytes / (double) totalBytes) * 100.0);
+        }
+
+        /**
+         * Gets how many seconds until the download should be done going by the current speed, or -1 if we can't
+         * tell.
+         */
+        public long getSecondsRemaining() {
+            if (bytesPerSecond <= 0 || totalBytes <= downloadedBytes) {
+                return -1;
+            }
+
+            return (long) Math.ceil((totalBytes - downloadedBytes) / bytesPerSecond);
+        }
+
+        public String getSpeedText() {
+            return String.format(Locale.ENGLISH, "%.2f MB/s", bytesPerSecond / 1024.0 / 1024.0);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.luna.managers.LogManager;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads the rest of a large file over several connections at once, each fetching its own byte range and writing
+ * it straight into place in the file.
+ *
+ * The number of connections adapts to how the download goes. When a connection finishes its range it takes half of
+ * what's left of the biggest remaining range, so faster connections end up doing more of the work. When a connection
+ * fails (such as a server that limits how many connections it allows) its range is picked up by the others instead.
+ * The download only fails once there are no connections left to carry on with.
+ *
+ * The extra connections count against the host's limit in {@link DownloadScheduler}, and are only opened when the
+ * host has connections to spare. Ranges that don't get a connection of their own are picked up as others finish.
+ */
+final class SegmentedDownload {
+    // files smaller than this aren't worth opening extra connections for
+    static final long THRESHOLD = Long
+            .parseLong(System.getProperty("com.luna.network.SegmentedDownload.threshold", "16777216"));
+    static final int MAX_SEGMENTS = Integer
+            .parseInt(System.getProperty("com.luna.network.SegmentedDownload.maxSegments", "4"));
+    static final long MIN_SEGMENT_SIZE = 2L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DownloadSegment-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OkHttpClient httpClient;
+    private final Request request;
+    private final String ifRange;
+    private final FileChannel channel;
+    private final long size;
+    private final List<Segment> segments = new ArrayList<>();
+    private volatile IOException failure = null;
+    private volatile boolean stopped = false;
+
+    /**
+     * @param request the request the file was first fetched with, which each range request is made from
+     * @param ifRange the validator sent with each range request, so that every range comes from the same file
+     * @param channel the file being written to, which is filled in at the same positions as in the download
+     */
+    SegmentedDownload(OkHttpClient httpClient, Request request, String ifRange, FileChannel channel, long size) {
+        this.httpClient = httpClient;
+        this.request = request;
+        this.ifRange = ifRange;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * If a download should be split up, which is when there's enough of it left and the server said it accepts
+     * range requests. HTTP/2 downloads aren't split, as the ranges would all share the one connection anyway.
+     */
+    static boolean shouldUse(Response response, long remaining) {
+        return MAX_SEGMENTS > 1 && remaining >= THRESHOLD && response.protocol() != Protocol.HTTP_2
+                && (response.code() == 206 || "bytes".equalsIgnoreCase(response.header("Accept-Ranges")));
+    }
+
+    /**
+     * Downloads everything from the given position to the end of the file, with the given response (which is
+     * already open at that position) used for the first range. Checkpoints the journal as the start of the file
+     * fills in. Throws the last failure if the download couldn't be finished.
+     */
+    void run(Response firstResponse, long start, DownloadJournal journal) throws IOException {
+        // make the file its full size up front, so each range is written into a file that's already there
+        if (channel.size() < size) {
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        }
+
+        int segmentCount = (int) Math.max(1, Math.min(MAX_SEGMENTS, (size - start) / MIN_SEGMENT_SIZE));
+        long segmentSize = (size - start) / segmentCount;
+
+        synchronized (this) {
+            for (int i = 0; i < segmentCount; i++) {
+                long segmentStart = start + i * segmentSize;
+                segments.add(new Segment(segmentStart, i == segmentCount - 1 ? size : segmentStart + segmentSize));
+            }
+        }
+
+        // the first range carries on with the connection the download already has, the rest need one from the host
+        String host = request.url().host();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        workers.add(CompletableFuture.runAsync(() -> work(segments.get(0), firstResponse), EXECUTOR));
+
+        for (int i = 1; i < segmentCount; i++) {
+            Segment segment = segments.get(i);
+
+            if (!DownloadScheduler.tryAcquire(host)) {
+                synchronized (this) {
+                    segment.owned = false;
+                }
+                continue;
+            }
+
+            workers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    work(segment, null);
+                } finally {
+                    DownloadScheduler.release(host);
+                }
+            }, EXECUTOR));
+        }
+
+        LogManager.debug("Downloading " + request.url() + " in " + segmentCount + " segments over " + workers.size()
+                + " connections");
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]));
+        long lastCheckpoint = start;
+
+        try {
+            while (true) {
+                try {
+                    all.get(1, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    long position = getContiguousPosition();
+
+                    if (position - lastCheckpoint >= DownloadJournal.CHECKPOINT_BYTES) {
+                        journal.checkpoint(channel, position);
+                        lastCheckpoint = position;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading " + request.url(), e);
+                } catch (ExecutionException e) {
+                    failure = new IOException(e.getCause());
+                    break;
+                }
+            }
+        } finally {
+            // workers check this between reads, so any still going stop once they notice
+            stopped = true;
+        }
+
+        // a failed connection doesn't matter if the others picked up its range
+        if (getContiguousPosition() < size) {
+            throw failure != null ? failure
+                    : new IOException("Connections closed before " + request.url() + " finished downloading");
+        }
+    }
+
+    /**
+     * Everything before this position has been written to the file, so a download can carry on from here.
+     */
+    synchronized long getContiguousPosition() {
+        long position = size;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                if (segment.position < segment.end) {
+                    position = Math.min(position, segment.position);
+                }
+            }
+        }
+
+        return position;
+    }
+
+    private void work(Segment firstSegment, Response firstResponse) {
+        Segment segment = firstSegment;
+        Response response = firstResponse;
+
+        while (segment != null) {
+            try {
+                if (response == null) {
+                    response = open(segment);
+                }
+
+                transfer(segment, response);
+            } catch (IOException e) {
+                LogManager.debug("Segment of " + request.url() + " failed, leaving it to the other connections: "
+                        + e.getMessage());
+                failure = e;
+
+                synchronized (this) {
+                    segment.owned = false;
+                }
+
+                return;
+            } finally {
+                if (response != null) {
+                    response.close();
+                    response = null;
+                }
+            }
+
+            segment = next();
+        }
+    }
+
+    private Response open(Segment segment) throws IOException {
+        long start;
+        long end;
+        synchronized (segment) {
+            start = segment.position;
+            end = segment.end;
+        }
+
+        Request rangeRequest = request.newBuilder().header("Range", "bytes=" + start + "-" + (end - 1))
+                .header("If-Range", ifRange).build();
+        Response response = httpClient.newCall(rangeRequest).execute();
+
+        String contentRange = response.header("Content-Range", "");
+        if (response.code() != 206 || !contentRange.startsWith("bytes " + start + "-")) {
+            response.close();
+            throw new IOException("Expected a range starting at " + start + " but got " + response.code() + " "
+                    + contentRange);
+        }
+
+        return response;
+    }
+
+    private void transfer(Segment segment, Response response) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream inputStream = response.body().byteStream()) {
+            while (true) {
+                if (stopped) {
+                    throw new IOException("Download was stopped");
+                }
+
+                int read = inputStream.read(buffer);
+
+                if (read == -1) {
+                    throw new IOException("Connection closed before the segment was finished");
+                }
+
+                long position;
+                int length;
+                synchronized (segment) {
+                    position = segment.position;
+                    length = (int) Math.min(read, segment.end - position);
+                }
+
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer, position + byteBuffer.position());
+                }
+
+                synchronized (segment) {
+                    segment.position += length;
+
+                    if (segment.position >= segment.end) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the next range for a connection that's finished its own. Ranges left behind by failed connections are
+     * picked up first, otherwise the biggest range still being downloaded is split in half.
+     */
+    private synchronized Segment next() {
+        Segment largest = null;
+        long largestRemaining = 0L;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                long remaining = segment.end - segment.position;
+
+                if (remaining <= 0) {
+                    continue;
+                }
+
+                if (!segment.owned) {
+                    segment.owned = true;
+                    return segment;
+                }
+
+                if (remaining > largestRemaining) {
+                    largest = segment;
+                    largestRemaining = remaining;
+                }
+            }
+        }
+
+        if (largest == null || largestRemaining < MIN_SEGMENT_SIZE * 2) {
+            return null;
+        }
+
+        Segment split;
+        synchronized (largest) {
+            // the connection on the largest range is at most one buffer past its position, which this is well beyond
+            long splitAt = largest.position + (largest.end - largest.position) / 2;
+
+            split = new Segment(splitAt, largest.end);
+            largest.end = splitAt;
+        }
+
+        segments.add(split);
+
+        return split;
+    }
+
+    private static final class Segment {
+        private long position;
+        private long end;
+        private boolean owned = true;
+
+        private Segment(long position, long end) {
+            this.position = position;
+            this.end = end;
+        }
+    }
+}
@@ -17,13 +17,22 @@
  */
 package com.luna.thread;
 
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
 
 import com.luna.evnt.LogEvent;
 
 import org.apache.logging.log4j.Logger;
 
 public final class LoggingThread extends Thread {
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long FLUSH_INTERVAL_MS = 100;
+
     private final BlockingQueue<LogEvent> queue;
     private static final Logger logger = org.apache.logging.log4j.LogManager.getLogger(LoggingThread.class);
 
@@ -34,18 +43,70 @@ public final class LoggingThread extends Thread {
 
     @Override
     public void run() {
+        List<LogEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        List<LogEvent> pending = new ArrayList<>(MAX_BATCH_SIZE);
+        long pendingSince = 0;
+
         while (true) {
-            LogEvent next;
             try {
-                next = this.queue.take();
+                if (pending.isEmpty()) {
+                    batch.add(this.queue.take());
+                } else {
+                    long wait = FLUSH_INTERVAL_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingSince);
+                    LogEvent next = this.queue.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
             } catch (InterruptedException ignored) {
                 Thread.currentThread().interrupt();
                 return;
             }
-            if (next != null) {
+
+            // take whatever else has built up so busy logs are handled in batches rather than one wake up per line
+            this.queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+
+            for (LogEvent next : batch) {
                 next.post(logger);
+
+                if (next.isForConsole()) {
+                    if (pending.isEmpty()) {
+                        pendingSince = System.nanoTime();
+                    }
+
+                    pending.add(next);
+                }
+            }
+
+            batch.clear();
+
+            // the console is only written to every so often or once enough has built up, as each write is a UI update
+            if (!pending.isEmpty() && (pending.size() >= MAX_BATCH_SIZE
+                    || System.nanoTime() - pendingSince >= TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS))) {
+                if (!flush(pending)) {
+                    return;
+                }
             }
         }
     }
 
+    /**
+     * Writes the pending lines to the console and waits for it, so a slow console pushes back on the queue rather
+     * than piling up work on the event dispatch thread.
+     */
+    private boolean flush(List<LogEvent> pending) {
+        try {
+            SwingUtilities.invokeAndWait(() -> LogEvent.postToConsole(pending));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (InvocationTargetException e) {
+            logger.error("Failed to write to the console", e.getCause());
+        }
+
+        pending.clear();
+        return true;
+    }
+
 }
@@ -0,0 +1,546 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+import org.zeroturnaround.zip.NameMapper;
+
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+
+/**
+ * Stores backups of instances incrementally, so that backing up the same instance again only stores what changed.
+ *
+ * Each file is split into fixed size chunks which are stored compressed and named by their hash, so a chunk that's
+ * the same between files or between backups is only ever stored once, and each backup is a snapshot listing the
+ * chunks that make up each of its files. Files with the same size and modified time as in the last snapshot reuse its
+ * chunks without being read again, so backing up a big world where a handful of region files changed only reads and
+ * stores those region files.
+ */
+public class BackupStore {
+    /**
+     * Region files are made of 4KiB sectors with each of Minecraft's chunks stored in its own sectors, so using a
+     * multiple of that means a change to one part of the world only changes the chunks around it.
+     */
+    public static final int CHUNK_SIZE = 128 * 1024;
+
+    /**
+     * Like git's index, a file modified this close to when the last snapshot was taken may have changed again
+     * without its modified time changing, so it's read again rather than trusted.
+     */
+    private static final long RACY_WINDOW_MS = TimeUnit.SECONDS.toMillis(2);
+
+    /**
+     * The first byte of each stored chunk, saying if the rest of it is deflated or not.
+     */
+    private static final int CHUNK_STORED = 0;
+    private static final int CHUNK_DEFLATED = 1;
+
+    private static final DateTimeFormatter SNAPSHOT_ID_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd_HH-mm-ss-SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * Backups and restores take the read lock and pruning takes the write lock, so that chunks written by a backup
+     * still in progress are never seen as unused, and chunks aren't removed while a restore is reading them.
+     */
+    private static final ReadWriteLock LOCK = new ReentrantReadWriteLock();
+
+    private final Path chunksDir;
+    private final Path snapshotsDir;
+
+    public BackupStore(Path storeDir) {
+        this.chunksDir = storeDir.resolve("chunks");
+        this.snapshotsDir = storeDir.resolve("snapshots");
+    }
+
+    /**
+     * Takes a snapshot of the files within the root directory which the filter maps to a name, storing any chunks
+     * which aren't already in the store.
+     *
+     * @param key the key to store the snapshot under, such as the instances UUID
+     */
+    public Snapshot backup(String key, Path root, NameMapper filter) throws IOException {
+        LOCK.readLock().lock();
+
+        try {
+            Snapshot previous = getLatestSnapshot(key);
+            Map<String, FileEntry> previousFiles = new HashMap<>();
+            if (previous != null) {
+                previous.files.forEach(file -> previousFiles.put(file.path, file));
+            }
+
+            Snapshot snapshot = new Snapshot();
+            snapshot.created = System.currentTimeMillis();
+            snapshot.id = SNAPSHOT_ID_FORMAT.format(Instant.ofEpochMilli(snapshot.created));
+            snapshot.files = Collections.synchronizedList(new ArrayList<>());
+
+            List<Path> files = new ArrayList<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    // only back up files, no symbolic links or directories
+                    if (attributes.isRegularFile()
+                            && filter.map(root.relativize(file).toString().replace('\\', '/')) != null) {
+                        files.add(file);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            AtomicLong bytesRead = new AtomicLong();
+            AtomicLong bytesStored = new AtomicLong();
+
+            try {
+                files.parallelStream().forEach(file -> {
+                    try {
+                        String path = root.relativize(file).toString().replace('\\', '/');
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        FileEntry previousFile = previousFiles.get(path);
+
+                        if (previousFile != null && previousFile.size == attributes.size()
+                                && previousFile.lastModified == attributes.lastModifiedTime().toMillis()
+                                && previousFile.lastModified < previous.created - RACY_WINDOW_MS) {
+                            snapshot.files.add(previousFile);
+                            return;
+                        }
+
+                        FileEntry entry = new FileEntry();
+                        entry.path = path;
+                        entry.lastModified = attributes.lastModifiedTime().toMillis();
+                        entry.chunks = new ArrayList<>();
+
+                        try (InputStream in = Files.newInputStream(file)) {
+                            byte[] buffer = new byte[CHUNK_SIZE];
+                            int read;
+
+                            while ((read = readChunk(in, buffer)) > 0) {
+                                String hash = com.google.common.hash.Hashing.sha1().hashBytes(buffer, 0, read)
+                                        .toString();
+                                bytesStored.addAndGet(storeChunk(hash, buffer, read));
+                                entry.chunks.add(hash);
+                                entry.size += read;
+                            }
+                        }
+
+                        bytesRead.addAndGet(entry.size);
+                        snapshot.files.add(entry);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            snapshot.files.sort((a, b) -> a.path.compareTo(b.path));
+            snapshot.bytesRead = bytesRead.get();
+            snapshot.bytesStored = bytesStored.get();
+
+            writeSnapshot(key, snapshot);
+
+            return snapshot;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the target directory back to how it was when a snapshot was taken. Files from the snapshot are written over
+     * anything already there, and any other files within the top level files and folders the snapshot has (such as a
+     * world created since the backup, or newer region files) are removed. Anything outside of those, such as folders
+     * which weren't backed up, is left alone.
+     */
+    public void restore(String key, String snapshotId, Path target) throws IOException {
+        // pruning takes the write lock, so holding this means no chunks are removed while they're being read back
+        LOCK.readLock().lock();
+
+        try {
+            Snapshot snapshot = getSnapshot(key, snapshotId);
+
+            if (snapshot == null) {
+                throw new IOException("No backup " + snapshotId + " exists");
+            }
+
+            try {
+                snapshot.files.parallelStream().forEach(file -> {
+                    Path to = target.resolve(file.path).normalize();
+
+                    try {
+                        if (!to.startsWith(target.normalize())) {
+                            throw new IOException("Backup file " + file.path + " is outside of " + target);
+                        }
+
+                        Files.createDirectories(to.getParent());
+
+                        try (OutputStream out = Files.newOutputStream(to)) {
+                            for (String hash : file.chunks) {
+                                out.write(readChunk(hash));
+                            }
+                        }
+
+                        Files.setLastModifiedTime(to, FileTime.fromMillis(file.lastModified));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // only removed once everything is written back, so a restore that fails part way doesn't lose anything
+            removeFilesNotInSnapshot(snapshot, target);
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the files within the top level files and folders of the snapshot which aren't in it, along with any
+     * folders left empty by that.
+     */
+    private static void removeFilesNotInSnapshot(Snapshot snapshot, Path target) throws IOException {
+        Set<String> paths = new HashSet<>();
+        Set<String> roots = new HashSet<>();
+        for (FileEntry file : snapshot.files) {
+            int slash = file.path.indexOf('/');
+
+            paths.add(file.path);
+            roots.add(slash == -1 ? file.path : file.path.substring(0, slash));
+        }
+
+        for (String root : roots) {
+            Path rootPath = target.resolve(root);
+
+            // a single file at the top level was just written over, so there's nothing else to remove
+            if (!Files.isDirectory(rootPath, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+
+            Set<Path> emptied = new HashSet<>();
+            Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    // backups only have regular files in them, so leave anything else (such as links) alone
+                    if (attributes.isRegularFile()
+                            && !paths.contains(target.relativize(file).toString().replace('\\', '/'))) {
+                        Files.delete(file);
+                        emptied.add(file.getParent());
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+
+                    if (emptied.contains(dir) && !dir.equals(rootPath)) {
+                        try (Stream<Path> stream = Files.list(dir)) {
+                            if (!stream.findAny().isPresent()) {
+                                Files.delete(dir);
+                                emptied.add(dir.getParent());
+                            }
+                        }
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes all but the newest snapshots for the given key, and then removes any chunks no longer used by any
+     * snapshot. Returns the number of bytes freed.
+     */
+    public long prune(String key, int snapshotsToKeep) throws IOException {
+        LOCK.writeLock().lock();
+
+        try {
+            List<String> snapshotIds = getSnapshotIds(key);
+
+            for (int i = 0; i < snapshotIds.size() - snapshotsToKeep; i++) {
+                Files.deleteIfExists(snapshotsDir.resolve(key).resolve(snapshotIds.get(i) + ".json"));
+            }
+
+            return removeUnusedChunks();
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the ids of the snapshots for the given key, from oldest to newest.
+     */
+    public List<String> getSnapshotIds(String key) throws IOException {
+        Path keyDir = snapshotsDir.resolve(key);
+
+        if (!Files.isDirectory(keyDir)) {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> stream = Files.list(keyDir)) {
+            return stream.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(".json"))
+                    .map(name -> name.substring(0, name.length() - ".json".length())).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public Snapshot getSnapshot(String key, String snapshotId) {
+        Path snapshotPath = snapshotsDir.resolve(key).resolve(snapshotId + ".json");
+
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(snapshotPath),
+                StandardCharsets.UTF_8)) {
+            return Gsons.DEFAULT_SLIM.fromJson(reader, Snapshot.class);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read backup " + snapshotPath, e);
+            return null;
+        }
+    }
+
+    private Snapshot getLatestSnapshot(String key) throws IOException {
+        List<String> snapshotIds = getSnapshotIds(key);
+
+        return snapshotIds.isEmpty() ? null : getSnapshot(key, snapshotIds.get(snapshotIds.size() - 1));
+    }
+
+    private void writeSnapshot(String key, Snapshot snapshot) throws IOException {
+        Path keyDir = snapshotsDir.resolve(key);
+        Files.createDirectories(keyDir);
+
+        Path tempPath = keyDir.resolve(snapshot.id + ".json.tmp");
+        try (OutputStreamWriter writer = new OutputStreamWriter(Files.newOutputStream(tempPath),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT_SLIM.toJson(snapshot, writer);
+        }
+
+        Files.move(tempPath, keyDir.resolve(snapshot.id + ".json"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stores the chunk if it's not already in the store, returning how many bytes were written.
+     */
+    private long storeChunk(String hash, byte[] buffer, int length) throws IOException {
+        Path chunkPath = getChunkPath(hash);
+
+        if (Files.exists(chunkPath)) {
+            return 0;
+        }
+
+        Files.createDirectories(chunkPath.getParent());
+
+        // much of a world is already compressed, in which case the chunk is stored as is
+        byte[] deflated = deflate(buffer, length);
+        boolean compressed = deflated.length < length;
+
+        // written to a temp file first so that a partially written chunk is never mistaken for a stored one
+        Path tempPath = chunkPath
+                .resolveSibling(hash + "." + UUID.randomUUID().toString().replace("-", "") + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            out.write(compressed ? CHUNK_DEFLATED : CHUNK_STORED);
+
+            if (compressed) {
+                out.write(deflated);
+            } else {
+                out.write(buffer, 0, length);
+            }
+        }
+
+        long size = Files.size(tempPath);
+        Files.move(tempPath, chunkPath, StandardCopyOption.ATOMIC_MOVE);
+
+        return size;
+    }
+
+    private static byte[] deflate(byte[] buffer, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            deflater.setInput(buffer, 0, length);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+            byte[] deflateBuffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+
+                // no point carrying on once it's clear it won't end up any smaller
+                if (out.size() >= length) {
+                    break;
+                }
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] readChunk(String hash) throws IOException {
+        Path chunkPath = getChunkPath(hash);
+
+        if (!Files.isRegularFile(chunkPath)) {
+            throw new IOException("Backup chunk " + hash + " is missing");
+        }
+
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read;
+        try (InputStream in = Files.newInputStream(chunkPath)) {
+            int type = in.read();
+
+            if (type == CHUNK_DEFLATED) {
+                read = readChunk(new InflaterInputStream(in), buffer);
+            } else if (type == CHUNK_STORED) {
+                read = readChunk(in, buffer);
+            } else {
+                throw new IOException("Backup chunk " + hash + " is corrupt");
+            }
+        }
+
+        if (!com.google.common.hash.Hashing.sha1().hashBytes(buffer, 0, read).toString().equals(hash)) {
+            throw new IOException("Backup chunk " + hash + " is corrupt");
+        }
+
+        byte[] chunk = new byte[read];
+        System.arraycopy(buffer, 0, chunk, 0, read);
+
+        return chunk;
+    }
+
+    private Path getChunkPath(String hash) {
+        return chunksDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Reads from the stream until the buffer is full or the stream ends, returning how many bytes were read.
+     */
+    private static int readChunk(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        int read;
+
+        while (total < buffer.length && (read = in.read(buffer, total, buffer.length - total)) != -1) {
+            total += read;
+        }
+
+        return total;
+    }
+
+    private long removeUnusedChunks() throws IOException {
+        if (!Files.isDirectory(chunksDir)) {
+            return 0;
+        }
+
+        Set<String> usedChunks = new HashSet<>();
+
+        if (Files.isDirectory(snapshotsDir)) {
+            try (Stream<Path> keyDirs = Files.list(snapshotsDir)) {
+                for (Path keyDir : keyDirs.collect(Collectors.toList())) {
+                    String key = keyDir.getFileName().toString();
+
+                    for (String snapshotId : getSnapshotIds(key)) {
+                        Snapshot snapshot = getSnapshot(key, snapshotId);
+
+                        // if a snapshot can't be read, we can't tell which chunks are still needed
+                        if (snapshot == null) {
+                            throw new IOException("Failed to read backup " + snapshotId + " for " + key);
+                        }
+
+                        snapshot.files.forEach(file -> usedChunks.addAll(file.chunks));
+                    }
+                }
+            }
+        }
+
+        AtomicLong freed = new AtomicLong();
+        Files.walkFileTree(chunksDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (!usedChunks.contains(file.getFileName().toString())) {
+                    freed.addAndGet(attributes.size());
+                    Files.delete(file);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return freed.get();
+    }
+
+    public static class Snapshot {
+        public String id;
+        public long created;
+        public List<FileEntry> files;
+
+        /**
+         * How many bytes were read from changed files and how many were newly written to the store when this
+         * snapshot was taken.
+         */
+        public transient long bytesRead;
+        public transient long bytesStored;
+    }
+
+    public static class FileEntry {
+        public String path;
+        public long size;
+        public long lastModified;
+        public List<String> chunks;
+    }
+}
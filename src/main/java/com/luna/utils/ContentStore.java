@@ -0,0 +1,268 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.google.common.hash.HashCode;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Content addressed store of files keyed by their SHA1 hash, used to share identical mods and libraries between
+ * instances.
+ *
+ * Files are materialized into instances as hard links to the blob in the store, falling back to a normal copy when
+ * the file system doesn't support links or the instance lives on a different drive. Since every instance file is its
+ * own link, removing a blob from the store never breaks an instance, it just means future installs of it aren't
+ * shared.
+ */
+public final class ContentStore {
+    private static final Type REFERENCES_TYPE = new TypeToken<HashMap<String, Set<String>>>() {
+    }.getType();
+
+    private static Map<String, Set<String>> references = null;
+    private static boolean referencesDirty = false;
+
+    private ContentStore() {
+    }
+
+    /**
+     * Places the contents of the source file at the target path, linking it to the shared copy in the store when
+     * possible.
+     */
+    public static boolean materialize(Path source, Path target) {
+        if (!Files.isRegularFile(source)) {
+            return FileUtils.copyFile(source, target, true);
+        }
+
+        HashCode hash = FileHashIndex.sha1(source);
+        if (hash.equals(Hashing.EMPTY_HASH_CODE)) {
+            return FileUtils.copyFile(source, target, true);
+        }
+
+        Path blob = getBlobPath(hash.toString());
+
+        try {
+            if (!Files.isDirectory(target.getParent())) {
+                FileUtils.createDirectory(target.getParent());
+            }
+
+            // links can't cross drives, so there's no point putting it in the store
+            if (!Files.getFileStore(FileSystem.STORE).equals(Files.getFileStore(target.getParent()))) {
+                return FileUtils.copyFile(source, target, true);
+            }
+
+            storeBlob(source, blob, hash);
+
+            if (!Files.exists(target) || !Files.isSameFile(target, blob)) {
+                Files.deleteIfExists(target);
+                Files.createLink(target, blob);
+            }
+
+            addReference(hash.toString(), target);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LogManager.debug("Couldn't link " + target + " to the content store, copying it instead: " + e);
+            return FileUtils.copyFile(source, target, true);
+        }
+    }
+
+    /**
+     * Removes blobs from the store which are no longer linked into any instance and returns the number of bytes
+     * reclaimed.
+     */
+    public static long collectGarbage() {
+        if (!Files.isDirectory(FileSystem.STORE_OBJECTS)) {
+            return 0L;
+        }
+
+        List<Path> blobs;
+        try (Stream<Path> stream = Files.walk(FileSystem.STORE_OBJECTS, 2)) {
+            blobs = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error listing the content store", e, false);
+            return 0L;
+        }
+
+        long reclaimed = 0L;
+        int removed = 0;
+
+        synchronized (ContentStore.class) {
+            Map<String, Set<String>> allReferences = getReferences();
+            Set<String> seen = new HashSet<>();
+
+            for (Path blob : blobs) {
+                String key = blob.getFileName().toString();
+
+                // left over from an interrupted store
+                if (key.endsWith(".tmp")) {
+                    FileUtils.delete(blob);
+                    continue;
+                }
+
+                seen.add(key);
+
+                Set<String> liveReferences = new HashSet<>();
+                for (String reference : allReferences.getOrDefault(key, new HashSet<>())) {
+                    if (isLinkedTo(Paths.get(reference), blob)) {
+                        liveReferences.add(reference);
+                    }
+                }
+
+                if (liveReferences.isEmpty()) {
+                    try {
+                        long size = Files.size(blob);
+                        Files.delete(blob);
+                        reclaimed += size;
+                        removed++;
+                    } catch (IOException e) {
+                        LogManager.logStackTrace("Error removing " + blob + " from the content store", e, false);
+                    }
+
+                    allReferences.remove(key);
+                } else {
+                    allReferences.put(key, liveReferences);
+                }
+            }
+
+            allReferences.keySet().retainAll(seen);
+            referencesDirty = true;
+            saveReferences();
+        }
+
+        if (removed != 0) {
+            LogManager.info(String.format("Removed %d unused files (%d bytes) from the content store", removed,
+                    reclaimed));
+        }
+
+        return reclaimed;
+    }
+
+    public static synchronized void saveIfDirty() {
+        if (referencesDirty) {
+            saveReferences();
+        }
+    }
+
+    private static Path getBlobPath(String hash) {
+        return FileSystem.STORE_OBJECTS.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static void storeBlob(Path source, Path blob, HashCode hash) throws IOException {
+        if (Files.exists(blob)) {
+            if (FileHashIndex.sha1(blob).equals(hash)) {
+                return;
+            }
+
+            // something has written to the blob through one of its links, so it can't be shared anymore
+            LogManager.warn("Content store file " + blob + " has been modified, replacing it");
+            Files.delete(blob);
+        }
+
+        FileUtils.createDirectory(blob.getParent());
+
+        Path temp = blob.resolveSibling(blob.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createLink(temp, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean isLinkedTo(Path path, Path blob) {
+        try {
+            return Files.exists(path) && Files.isSameFile(path, blob);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static synchronized void addReference(String hash, Path target) {
+        getReferences().computeIfAbsent(hash, h -> new HashSet<>()).add(target.toAbsolutePath().toString());
+        referencesDirty = true;
+    }
+
+    private static Map<String, Set<String>> getReferences() {
+        if (references != null) {
+            return references;
+        }
+
+        if (Files.exists(FileSystem.STORE_REFERENCES)) {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    Files.newInputStream(FileSystem.STORE_REFERENCES), StandardCharsets.UTF_8)) {
+                references = Gsons.DEFAULT.fromJson(fileReader, REFERENCES_TYPE);
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error loading content store references", e, false);
+            }
+        }
+
+        if (references == null) {
+            references = new HashMap<>();
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(ContentStore::saveIfDirty));
+
+        return references;
+    }
+
+    private static void saveReferences() {
+        if (references == null) {
+            return;
+        }
+
+        // no point keeping hashes which nothing links to anymore
+        Iterator<Map.Entry<String, Set<String>>> iterator = references.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isEmpty()) {
+                iterator.remove();
+            }
+        }
+
+        FileUtils.createDirectory(FileSystem.STORE);
+
+        try (OutputStreamWriter fileWriter = new OutputStreamWriter(
+                Files.newOutputStream(FileSystem.STORE_REFERENCES), StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT.toJson(references, REFERENCES_TYPE, fileWriter);
+            referencesDirty = false;
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error saving content store references", e, false);
+        }
+    }
+}
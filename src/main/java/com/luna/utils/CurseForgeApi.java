@@ -36,6 +36,7 @@ import com.luna.data.curseforge.CurseForgeCategoryForGame;
 import com.luna.data.curseforge.CurseForgeCoreApiResponse;
 import com.luna.data.curseforge.CurseForgeFile;
 import com.luna.data.curseforge.CurseForgeFingerprint;
+import com.luna.data.curseforge.CurseForgeFingerprintedMod;
 import com.luna.data.curseforge.CurseForgeProject;
 import com.luna.managers.ConfigManager;
 import com.luna.managers.LogManager;
@@ -401,31 +402,62 @@ public class CurseForgeApi {
         return null;
     }
 
+    /**
+     * Looks up mods by their murmur fingerprints. Fingerprints that have been looked up recently are answered from
+     * the {@link HashLookupCache}, so only the ones we don't know about are sent to CurseForge.
+     */
     public static CurseForgeFingerprint checkFingerprints(Long[] murmurHashes) {
+        List<String> fingerprints = Arrays.stream(murmurHashes).map(String::valueOf).collect(Collectors.toList());
+
+        Map<String, CurseForgeFingerprintedMod> matches = HashLookupCache.lookup(HashLookupCache.CURSEFORGE,
+                fingerprints, CurseForgeFingerprintedMod.class, CurseForgeApi::fetchFingerprints);
+
+        if (matches == null) {
+            return null;
+        }
+
+        CurseForgeFingerprint fingerprint = new CurseForgeFingerprint();
+        fingerprint.isCacheBuilt = true;
+        fingerprint.exactMatches = new ArrayList<>(matches.values());
+        fingerprint.exactFingerprints = matches.keySet().stream().map(Long::valueOf).collect(Collectors.toList());
+
+        return fingerprint;
+    }
+
+    private static Map<String, CurseForgeFingerprintedMod> fetchFingerprints(List<String> fingerprints) {
         Download download = Download.build();
 
         String url = String.format("%s/fingerprints", Constants.CURSEFORGE_CORE_API_URL);
 
         Map<String, Long[]> body = new HashMap<>();
-        body.put("fingerprints", murmurHashes);
+        body.put("fingerprints", fingerprints.stream().map(Long::valueOf).toArray(Long[]::new));
 
         download = download
                 .post(RequestBody.create(Gsons.DEFAULT.toJson(body),
                         MediaType.get("application/json; charset=utf-8")));
 
-        download = download.setUrl(url).header("x-api-key", Constants.CURSEFORGE_CORE_API_KEY)
-                .cached(new CacheControl.Builder().maxStale(10, TimeUnit.MINUTES).build());
+        download = download.setUrl(url).header("x-api-key", Constants.CURSEFORGE_CORE_API_KEY);
 
         java.lang.reflect.Type type = new TypeToken<CurseForgeCoreApiResponse<CurseForgeFingerprint>>() {
         }.getType();
 
         CurseForgeCoreApiResponse<CurseForgeFingerprint> response = download.asType(type);
 
-        if (response != null) {
-            return response.data;
+        if (response == null || response.data == null) {
+            return null;
         }
 
-        return null;
+        Map<String, CurseForgeFingerprintedMod> matches = new HashMap<>();
+
+        if (response.data.exactMatches != null) {
+            for (CurseForgeFingerprintedMod match : response.data.exactMatches) {
+                if (match != null && match.file != null) {
+                    matches.put(String.valueOf(match.file.packageFingerprint), match);
+                }
+            }
+        }
+
+        return matches;
     }
 
     public static List<CurseForgeCategoryForGame> getCategories() {
@@ -0,0 +1,273 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.google.common.hash.HashCode;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Persistent index of file hashes keyed by the files size, modified time and file key, so that files which haven't
+ * changed since they were last hashed don't need to be read from disk again.
+ *
+ * Like git's index, an entry is only trusted when the file was last modified well before it was hashed, otherwise a
+ * file rewritten within the file systems timestamp granularity could be mistaken for the one we hashed.
+ */
+public final class FileHashIndex {
+    private static final long RACY_WINDOW_MS = TimeUnit.SECONDS.toMillis(2);
+    private static final Type INDEX_TYPE = new TypeToken<ConcurrentHashMap<String, Entry>>() {
+    }.getType();
+
+    private static volatile ConcurrentHashMap<String, Entry> index = null;
+    private static volatile boolean dirty = false;
+
+    private FileHashIndex() {
+    }
+
+    public static HashCode md5(Path file) {
+        return hash(file, "md5", Hashing::md5);
+    }
+
+    public static HashCode sha1(Path file) {
+        return hash(file, "sha1", Hashing::sha1);
+    }
+
+    public static HashCode sha256(Path file) {
+        return hash(file, "sha256", Hashing::sha256);
+    }
+
+    public static HashCode sha512(Path file) {
+        return hash(file, "sha512", Hashing::sha512);
+    }
+
+    public static long murmur(Path file) throws IOException {
+        Stat stat = Stat.of(file);
+        String cached = lookup(file, stat, "murmur");
+
+        if (cached != null) {
+            return Long.parseLong(cached);
+        }
+
+        long murmur = Hashing.murmur(file);
+
+        if (stat != null) {
+            record(file, stat, "murmur", Long.toString(murmur));
+        }
+
+        return murmur;
+    }
+
+    /**
+     * Records a hash that was computed elsewhere (such as while the file was being downloaded) for the file as it
+     * currently is on disk.
+     */
+    public static void record(Path file, String algorithm, String hash) {
+        Stat stat = Stat.of(file);
+
+        if (stat != null) {
+            record(file, stat, algorithm, hash);
+        }
+    }
+
+    public static void invalidate(Path file) {
+        if (getIndex().remove(getKey(file)) != null) {
+            dirty = true;
+        }
+    }
+
+    public static void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    public static synchronized void save() {
+        if (index == null) {
+            return;
+        }
+
+        dirty = false;
+
+        Path tempFile = FileSystem.FILE_HASH_INDEX.resolveSibling(FileSystem.FILE_HASH_INDEX.getFileName() + ".tmp");
+        try (OutputStreamWriter fileWriter = new OutputStreamWriter(Files.newOutputStream(tempFile),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT.toJson(index, INDEX_TYPE, fileWriter);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error saving file hash index", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, FileSystem.FILE_HASH_INDEX, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error saving file hash index", e, false);
+        }
+    }
+
+    private static HashCode hash(Path file, String algorithm, Function<Path, HashCode> hasher) {
+        Stat stat = Stat.of(file);
+        String cached = lookup(file, stat, algorithm);
+
+        if (cached != null) {
+            return HashCode.fromString(cached);
+        }
+
+        HashCode hash = hasher.apply(file);
+
+        if (stat != null && !hash.equals(Hashing.EMPTY_HASH_CODE)) {
+            record(file, stat, algorithm, hash.toString());
+        }
+
+        return hash;
+    }
+
+    private static String lookup(Path file, Stat stat, String algorithm) {
+        if (stat == null) {
+            return null;
+        }
+
+        Entry entry = getIndex().get(getKey(file));
+
+        if (entry == null || !entry.matches(stat) || !entry.isTrusted()) {
+            return null;
+        }
+
+        return entry.hashes.get(algorithm);
+    }
+
+    private static void record(Path file, Stat stat, String algorithm, String hash) {
+        String key = getKey(file);
+
+        getIndex().compute(key, (k, existing) -> {
+            Entry entry = new Entry(stat);
+
+            // keep hashes from other algorithms if they were for this same version of the file
+            if (existing != null && existing.hashes != null && existing.matches(stat)) {
+                entry.hashes.putAll(existing.hashes);
+            }
+
+            entry.hashes.put(algorithm, hash);
+            return entry;
+        });
+
+        dirty = true;
+    }
+
+    private static String getKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static ConcurrentHashMap<String, Entry> getIndex() {
+        if (index != null) {
+            return index;
+        }
+
+        return loadIndex();
+    }
+
+    private static synchronized ConcurrentHashMap<String, Entry> loadIndex() {
+        if (index != null) {
+            return index;
+        }
+
+        ConcurrentHashMap<String, Entry> loaded = null;
+        if (Files.exists(FileSystem.FILE_HASH_INDEX)) {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    Files.newInputStream(FileSystem.FILE_HASH_INDEX), StandardCharsets.UTF_8)) {
+                loaded = Gsons.DEFAULT.fromJson(fileReader, INDEX_TYPE);
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error loading file hash index, starting with an empty one", e, false);
+            }
+        }
+
+        index = loaded == null ? new ConcurrentHashMap<>() : loaded;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(FileHashIndex::saveIfDirty));
+
+        return index;
+    }
+
+    private static final class Stat {
+        private final long size;
+        private final long lastModified;
+        private final String fileKey;
+
+        private Stat(long size, long lastModified, String fileKey) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        private static Stat of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+
+                return new Stat(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                        attributes.fileKey() == null ? null : attributes.fileKey().toString());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String fileKey;
+        private final long verifiedAt;
+        private final Map<String, String> hashes = new HashMap<>();
+
+        private Entry(Stat stat) {
+            this.size = stat.size;
+            this.lastModified = stat.lastModified;
+            this.fileKey = stat.fileKey;
+            this.verifiedAt = System.currentTimeMillis();
+        }
+
+        private boolean matches(Stat stat) {
+            return this.size == stat.size && this.lastModified == stat.lastModified
+                    && Objects.equals(this.fileKey, stat.fileKey);
+        }
+
+        private boolean isTrusted() {
+            return this.hashes != null && this.lastModified + RACY_WINDOW_MS < this.verifiedAt;
+        }
+    }
+}
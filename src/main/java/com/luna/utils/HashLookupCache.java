@@ -0,0 +1,216 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Persistent cache of what the CurseForge and Modrinth hash lookups returned for each hash, so that scanning the
+ * same mods again doesn't need to ask for them again. Those lookups are POST requests, so the http cache never
+ * applies to them.
+ *
+ * Hashes which weren't found are remembered too (for a shorter time) since most of the mods in an instance that
+ * aren't on one platform won't suddenly show up on it. Only the hashes we don't know about are sent off, and they're
+ * sent in chunks so a large instance doesn't end up in one giant request.
+ */
+public final class HashLookupCache {
+    public static final String CURSEFORGE = "curseforge";
+    public static final String MODRINTH_SHA1 = "modrinth-sha1";
+    public static final String MODRINTH_SHA512 = "modrinth-sha512";
+
+    private static final int CHUNK_SIZE = 500;
+    private static final long FOUND_TTL_MS = TimeUnit.HOURS.toMillis(24);
+    private static final long NOT_FOUND_TTL_MS = TimeUnit.HOURS.toMillis(6);
+    private static final Type CACHE_TYPE = new TypeToken<ConcurrentHashMap<String, Entry>>() {
+    }.getType();
+
+    private static volatile ConcurrentHashMap<String, Entry> cache = null;
+    private static volatile boolean dirty = false;
+
+    private HashLookupCache() {
+    }
+
+    /**
+     * Looks up the given hashes, returning what was found for each of them keyed by the hash. Anything not in the
+     * cache (or which has expired) is passed to the fetcher in chunks, which should return what it found keyed by
+     * hash, or null if the request failed. Returns null if a request failed and nothing at all was found.
+     */
+    public static <T> Map<String, T> lookup(String namespace, Collection<String> hashes, Type type,
+            Function<List<String>, Map<String, T>> fetcher) {
+        Map<String, T> found = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String hash : new LinkedHashSet<>(hashes)) {
+            Entry entry = getCache().get(getKey(namespace, hash));
+
+            if (entry == null || entry.isExpired(now)) {
+                unknown.add(hash);
+            } else if (entry.value != null) {
+                try {
+                    found.put(hash, Gsons.DEFAULT.fromJson(entry.value, type));
+                } catch (Exception e) {
+                    // the cached value no longer fits the type, so just ask for it again
+                    unknown.add(hash);
+                }
+            }
+        }
+
+        if (unknown.isEmpty()) {
+            return found;
+        }
+
+        LogManager.debug("Looking up " + unknown.size() + " of " + hashes.size() + " " + namespace + " hashes");
+
+        boolean failed = false;
+        for (int start = 0; start < unknown.size(); start += CHUNK_SIZE) {
+            List<String> chunk = unknown.subList(start, Math.min(unknown.size(), start + CHUNK_SIZE));
+            Map<String, T> fetched = fetcher.apply(chunk);
+
+            // don't remember anything when the request failed, otherwise we'd think none of these exist
+            if (fetched == null) {
+                failed = true;
+                continue;
+            }
+
+            long fetchedAt = System.currentTimeMillis();
+            for (String hash : chunk) {
+                T value = fetched.get(hash);
+
+                if (value != null) {
+                    found.put(hash, value);
+                }
+
+                getCache().put(getKey(namespace, hash),
+                        new Entry(fetchedAt, value == null ? null : Gsons.DEFAULT.toJsonTree(value, type)));
+            }
+
+            dirty = true;
+        }
+
+        saveIfDirty();
+
+        return failed && found.isEmpty() ? null : found;
+    }
+
+    public static void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    public static synchronized void save() {
+        if (cache == null) {
+            return;
+        }
+
+        dirty = false;
+
+        Path tempFile = FileSystem.HASH_LOOKUP_CACHE
+                .resolveSibling(FileSystem.HASH_LOOKUP_CACHE.getFileName() + ".tmp");
+        try (OutputStreamWriter fileWriter = new OutputStreamWriter(Files.newOutputStream(tempFile),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT_SLIM.toJson(cache, CACHE_TYPE, fileWriter);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error saving hash lookup cache", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, FileSystem.HASH_LOOKUP_CACHE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error saving hash lookup cache", e, false);
+        }
+    }
+
+    private static String getKey(String namespace, String hash) {
+        return namespace + ":" + hash;
+    }
+
+    private static ConcurrentHashMap<String, Entry> getCache() {
+        if (cache != null) {
+            return cache;
+        }
+
+        return loadCache();
+    }
+
+    private static synchronized ConcurrentHashMap<String, Entry> loadCache() {
+        if (cache != null) {
+            return cache;
+        }
+
+        ConcurrentHashMap<String, Entry> loaded = null;
+        if (Files.exists(FileSystem.HASH_LOOKUP_CACHE)) {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    Files.newInputStream(FileSystem.HASH_LOOKUP_CACHE), StandardCharsets.UTF_8)) {
+                loaded = Gsons.DEFAULT_SLIM.fromJson(fileReader, CACHE_TYPE);
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error loading hash lookup cache, starting with an empty one", e, false);
+            }
+        }
+
+        if (loaded == null) {
+            loaded = new ConcurrentHashMap<>();
+        } else {
+            // drop anything that's expired so the cache doesn't keep growing with mods that are long gone
+            long now = System.currentTimeMillis();
+            dirty = loaded.values().removeIf(entry -> entry == null || entry.isExpired(now));
+        }
+
+        cache = loaded;
+
+        return cache;
+    }
+
+    private static final class Entry {
+        private final long fetchedAt;
+        private final JsonElement value;
+
+        private Entry(long fetchedAt, JsonElement value) {
+            this.fetchedAt = fetchedAt;
+            this.value = value;
+        }
+
+        private boolean isExpired(long now) {
+            return now - fetchedAt > (value == null ? NOT_FOUND_TTL_MS : FOUND_TTL_MS) || fetchedAt > now;
+        }
+    }
+}
@@ -18,19 +18,22 @@
 package com.luna.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
-import org.apache.commons.lang3.ArrayUtils;
-
 import com.luna.managers.LogManager;
 import com.google.common.hash.HashCode;
-import com.sangupta.murmur.Murmur2;
 
 public final class Hashing {
     public static final HashCode EMPTY_HASH_CODE = HashCode.fromBytes(new byte[1]);
 
+    private static final long MURMUR_SEED = 1L;
+    private static final long MURMUR_M = 0x5bd1e995L;
+    private static final long UINT_MASK = 0xFFFFFFFFL;
+    private static final ThreadLocal<byte[]> MURMUR_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
     public static HashCode md5(String str) {
         if (str == null || str.isEmpty()) {
             return EMPTY_HASH_CODE;
@@ -91,15 +94,88 @@ public final class Hashing {
         }
     }
 
-    // TODO: this is really not efficient or good on memory
+    /**
+     * Calculates the fingerprint CurseForge uses for files, which is a 32 bit Murmur2 hash (seed of 1) of the file
+     * with all tab, new line, carriage return and space bytes removed.
+     *
+     * This streams the file through a reused buffer rather than reading it all into memory. Murmur2 mixes the
+     * length in at the start, so the file is read twice, once to count the bytes we keep and once to hash them. The
+     * output is identical to com.sangupta.murmur.Murmur2 on the filtered bytes.
+     */
     public static long murmur(Path to) throws IOException {
-        byte[] bytes = ArrayUtils
-                .removeAllOccurrences(ArrayUtils.removeAllOccurrences(
-                        ArrayUtils.removeAllOccurrences(
-                                ArrayUtils.removeAllOccurrences(Files.readAllBytes(to), (byte) 9), (byte) 10),
-                        (byte) 13), (byte) 32);
+        byte[] buffer = MURMUR_BUFFER.get();
+
+        long length = 0;
+        try (InputStream is = Files.newInputStream(to)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (!isMurmurWhitespace(buffer[i])) {
+                        length++;
+                    }
+                }
+            }
+        }
+
+        long hash = (MURMUR_SEED ^ (int) length) & UINT_MASK;
+        int pending = 0;
+        byte b0 = 0;
+        byte b1 = 0;
+        byte b2 = 0;
+
+        try (InputStream is = Files.newInputStream(to)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+
+                    if (isMurmurWhitespace(b)) {
+                        continue;
+                    }
+
+                    if (pending == 0) {
+                        b0 = b;
+                        pending = 1;
+                    } else if (pending == 1) {
+                        b1 = b;
+                        pending = 2;
+                    } else if (pending == 2) {
+                        b2 = b;
+                        pending = 3;
+                    } else {
+                        long k = (b0 & 0xFFL) | ((b1 & 0xFFL) << 8) | ((b2 & 0xFFL) << 16) | ((b & 0xFFL) << 24);
+                        k = (k * MURMUR_M) & UINT_MASK;
+                        k ^= (k >>> 24) & UINT_MASK;
+                        k = (k * MURMUR_M) & UINT_MASK;
+
+                        hash = (hash * MURMUR_M) & UINT_MASK;
+                        hash = (hash ^ k) & UINT_MASK;
+                        pending = 0;
+                    }
+                }
+            }
+        }
+
+        // the trailing bytes are sign extended, as they are in the reference implementation
+        switch (pending) {
+            case 3:
+                hash ^= (b2 << 16) & UINT_MASK;
+            case 2:
+                hash ^= (b1 << 8) & UINT_MASK;
+            case 1:
+                hash ^= b0 & UINT_MASK;
+                hash = (hash * MURMUR_M) & UINT_MASK;
+        }
+
+        hash ^= (hash >>> 13) & UINT_MASK;
+        hash = (hash * MURMUR_M) & UINT_MASK;
+        hash ^= hash >>> 15;
+
+        return hash;
+    }
 
-        return Murmur2.hash(bytes, bytes.length, 1L);
+    private static boolean isMurmurWhitespace(byte b) {
+        return b == 9 || b == 10 || b == 13 || b == 32;
     }
 
     public static HashCode toHashCode(String hash) {
@@ -0,0 +1,292 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+import com.luna.managers.LogManager;
+
+/**
+ * Cache of decoded and scaled images from disk, such as instance and pack artwork, so that rebuilding a list of
+ * instances doesn't read and scale every image again.
+ *
+ * Images are keyed by their path, last modified time and size along with the size they were scaled to, so a changed
+ * file is picked up straight away. The cache holds up to {@link #MAX_BYTES} of decoded pixels, dropping the least
+ * recently used images once it's full.
+ */
+public final class ImageCache {
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    // stands in for images which couldn't be read, so we don't keep trying to read them
+    private static final ImageIcon UNREADABLE = new ImageIcon();
+
+    private static final Map<Key, ImageIcon> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<Key, CompletableFuture<ImageIcon>> LOADING = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static long cachedBytes = 0;
+
+    private ImageCache() {
+    }
+
+    /**
+     * Gets the image at the given path scaled to the given size, decoding it now if it's not already cached. A width
+     * and height of 0 leaves the image at its original size. Returns null if the image couldn't be read.
+     *
+     * When scaling, square images are centered at the full height rather than being stretched to fit.
+     */
+    public static ImageIcon get(Path file, int width, int height) {
+        Key key = Key.of(file, width, height);
+
+        if (key == null) {
+            return null;
+        }
+
+        ImageIcon cached = getCached(key);
+
+        if (cached != null) {
+            return cached == UNREADABLE ? null : cached;
+        }
+
+        // if it's already being loaded in the background then wait for that, otherwise there's no point queueing
+        CompletableFuture<ImageIcon> loading = LOADING.get(key);
+        if (loading != null) {
+            return loading.join();
+        }
+
+        return decodeAndCache(key);
+    }
+
+    /**
+     * Gets the image at the given path scaled to the given size if it's already cached, otherwise returns the
+     * placeholder straight away and decodes the image in the background, passing it to the callback on the EDT once
+     * it's ready. The callback isn't called if the image couldn't be read.
+     */
+    public static ImageIcon getOrLoad(Path file, int width, int height, ImageIcon placeholder,
+            Consumer<ImageIcon> onLoaded) {
+        Key key = Key.of(file, width, height);
+
+        if (key == null) {
+            return placeholder;
+        }
+
+        ImageIcon cached = getCached(key);
+
+        if (cached != null) {
+            return cached == UNREADABLE ? placeholder : cached;
+        }
+
+        load(key).thenAccept(icon -> {
+            if (icon != null) {
+                SwingUtilities.invokeLater(() -> onLoaded.accept(icon));
+            }
+        });
+
+        return placeholder;
+    }
+
+    /**
+     * Removes all cached versions of the image at the given path, such as when it's been replaced.
+     */
+    public static synchronized void invalidate(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+
+        Iterator<Map.Entry<Key, ImageIcon>> iterator = CACHE.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, ImageIcon> entry = iterator.next();
+
+            if (entry.getKey().path.equals(path)) {
+                cachedBytes -= getBytes(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static synchronized ImageIcon getCached(Key key) {
+        return CACHE.get(key);
+    }
+
+    private static synchronized void put(Key key, ImageIcon icon) {
+        ImageIcon previous = CACHE.put(key, icon);
+        if (previous != null) {
+            cachedBytes -= getBytes(previous);
+        }
+        cachedBytes += getBytes(icon);
+
+        Iterator<ImageIcon> iterator = CACHE.values().iterator();
+        while (cachedBytes > MAX_BYTES && iterator.hasNext()) {
+            ImageIcon eldest = iterator.next();
+
+            // never evict what we just added, even if it's bigger than the whole cache
+            if (eldest == icon) {
+                break;
+            }
+
+            cachedBytes -= getBytes(eldest);
+            iterator.remove();
+        }
+    }
+
+    private static CompletableFuture<ImageIcon> load(Key key) {
+        CompletableFuture<ImageIcon> future = LOADING.computeIfAbsent(key,
+                k -> CompletableFuture.supplyAsync(() -> decodeAndCache(k), EXECUTOR));
+        future.whenComplete((icon, e) -> LOADING.remove(key, future));
+
+        return future;
+    }
+
+    private static ImageIcon decodeAndCache(Key key) {
+        ImageIcon icon = decode(key);
+        put(key, icon == null ? UNREADABLE : icon);
+
+        return icon;
+    }
+
+    private static ImageIcon decode(Key key) {
+        try {
+            BufferedImage img = ImageIO.read(key.path.toFile());
+
+            if (img == null) {
+                LogManager.warn("Couldn't read the image " + key.path);
+                return null;
+            }
+
+            if (key.width <= 0 || key.height <= 0) {
+                return new ImageIcon(img);
+            }
+
+            return new ImageIcon(scale(img, key.width, key.height));
+        } catch (Exception e) {
+            LogManager.warn("Error reading the image " + key.path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage img, int width, int height) {
+        // if a square image, then draw it centered at the full height (without stretching)
+        int drawWidth = img.getWidth() == img.getHeight() ? height : width;
+        int x = (width - drawWidth) / 2;
+
+        // halve the image until it's close to the size we want, which keeps the quality up when shrinking a lot
+        // without the cost of area averaging the whole image
+        BufferedImage source = img;
+        while (source.getWidth() / 2 >= drawWidth && source.getHeight() / 2 >= height) {
+            source = draw(source, source.getWidth() / 2, source.getHeight() / 2, 0,
+                    new BufferedImage(source.getWidth() / 2, source.getHeight() / 2, BufferedImage.TYPE_INT_ARGB));
+        }
+
+        return draw(source, drawWidth, height, x, new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int x, BufferedImage target) {
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(source, x, 0, width, height, null);
+        g2d.dispose();
+
+        return target;
+    }
+
+    private static long getBytes(ImageIcon icon) {
+        return (long) Math.max(0, icon.getIconWidth()) * Math.max(0, icon.getIconHeight()) * 4;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ImageCache-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // let the threads die off when there's nothing to load
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static final class Key {
+        private final Path path;
+        private final long lastModified;
+        private final long size;
+        private final int width;
+        private final int height;
+
+        private Key(Path path, long lastModified, long size, int width, int height) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.width = width;
+            this.height = height;
+        }
+
+        private static Key of(Path file, int width, int height) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+
+                return new Key(file.toAbsolutePath().normalize(), attributes.lastModifiedTime().toMillis(),
+                        attributes.size(), width, height);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) other;
+            return path.equals(key.path) && lastModified == key.lastModified && size == key.size
+                    && width == key.width && height == key.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, size, width, height);
+        }
+    }
+}
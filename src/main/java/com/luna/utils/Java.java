@@ -17,11 +17,8 @@
  */
 package com.luna.utils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -47,6 +44,7 @@ import com.luna.managers.LogManager;
 import com.luna.managers.PerformanceManager;
 import com.luna.utils.javafinder.JavaFinder;
 import com.luna.utils.javafinder.JavaInfo;
+import com.luna.utils.javafinder.JavaInventory;
 
 import okhttp3.tls.Certificates;
 
@@ -69,31 +67,10 @@ public class Java {
 
     public static String getVersionForJavaPath(File folder) {
         String executablePath = Java.getPathToJavaExecutable(folder.toPath());
-        ProcessBuilder processBuilder = new ProcessBuilder(executablePath, "-version");
-        processBuilder.directory(folder.getAbsoluteFile());
-        processBuilder.redirectErrorStream(true);
+        JavaInventory.Entry entry = JavaInventory.get(executablePath);
+        JavaInventory.saveIfDirty();
 
-        String version = "Unknown";
-
-        try {
-            Process process = processBuilder.start();
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                Pattern p = Pattern.compile("(java|openjdk) version \"([^\"]*)\"");
-
-                while ((line = br.readLine()) != null) {
-                    // Extract version information
-                    Matcher m = p.matcher(line);
-
-                    if (m.find()) {
-                        version = m.group(2);
-                        break;
-                    }
-                }
-            }
-        } catch (IOException e) {
-            LogManager.logStackTrace(e);
-        }
+        String version = entry == null || entry.version == null ? "Unknown" : entry.version;
 
         LogManager.debug(String.format("Got version \"%s\" for Java at path \"%s\"", version, executablePath));
 
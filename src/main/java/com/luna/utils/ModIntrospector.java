@@ -0,0 +1,456 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.data.minecraft.FabricMod;
+import com.luna.data.minecraft.MCMod;
+import com.luna.data.minecraft.ModMetadata;
+import com.luna.managers.LogManager;
+import com.google.common.hash.HashCode;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Reads the metadata out of mod jars.
+ *
+ * Each jar is opened once and only the entries we care about are read using the zips central directory, rather than
+ * streaming through the whole jar once for every metadata file we look for. What was found is cached by the jars
+ * hash, and reading is done on a small dedicated pool so scanning a large mods folder doesn't tie up the common pool.
+ */
+public final class ModIntrospector {
+    private static final String MCMOD_INFO = "mcmod.info";
+    private static final String FABRIC_MOD_JSON = "fabric.mod.json";
+    private static final String QUILT_MOD_JSON = "quilt.mod.json";
+    private static final String MODS_TOML = "META-INF/mods.toml";
+    private static final String NEOFORGE_MODS_TOML = "META-INF/neoforge.mods.toml";
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    // in the order they're checked, the first one with anything in it wins
+    private static final List<String> METADATA_FILES = Arrays.asList(MCMOD_INFO, FABRIC_MOD_JSON, QUILT_MOD_JSON,
+            MODS_TOML, NEOFORGE_MODS_TOML);
+
+    private static final Type CACHE_TYPE = new TypeToken<ConcurrentHashMap<String, ModMetadata>>() {
+    }.getType();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static volatile ConcurrentHashMap<String, ModMetadata> cache = null;
+    private static volatile boolean dirty = false;
+
+    private ModIntrospector() {
+    }
+
+    /**
+     * Gets the metadata for the given mod file. If nothing could be found in it, then an empty ModMetadata is
+     * returned.
+     */
+    public static ModMetadata introspect(Path file) {
+        String key = null;
+
+        try {
+            HashCode hash = FileHashIndex.sha1(file);
+
+            if (!hash.equals(Hashing.EMPTY_HASH_CODE)) {
+                key = hash.toString();
+            }
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to hash " + file, e, false);
+        }
+
+        if (key != null) {
+            ModMetadata cached = getCache().get(key);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        ModMetadata metadata = read(file);
+
+        if (key != null) {
+            getCache().put(key, metadata);
+            dirty = true;
+        }
+
+        return metadata;
+    }
+
+    public static CompletableFuture<ModMetadata> introspectAsync(Path file) {
+        return CompletableFuture.supplyAsync(() -> introspect(file), EXECUTOR);
+    }
+
+    /**
+     * Gets the metadata for all the given mod files, reading a few of them at a time. The returned map is in the
+     * same order as the files given.
+     */
+    public static Map<Path, ModMetadata> introspectAll(Collection<Path> files) {
+        Map<Path, CompletableFuture<ModMetadata>> futures = new LinkedHashMap<>();
+        files.forEach(file -> futures.put(file, introspectAsync(file)));
+
+        Map<Path, ModMetadata> metadata = new LinkedHashMap<>();
+        futures.forEach((file, future) -> metadata.put(file, future.join()));
+
+        saveIfDirty();
+
+        return metadata;
+    }
+
+    /**
+     * Reads the metadata straight out of the given jar, without looking at the cache.
+     */
+    static ModMetadata read(Path file) {
+        Map<String, String> contents = readEntries(file);
+        ModMetadata metadata = null;
+
+        for (String name : METADATA_FILES) {
+            String content = contents.get(name);
+
+            if (content == null) {
+                continue;
+            }
+
+            try {
+                metadata = parse(name, content, contents.get(MANIFEST));
+            } catch (Exception e) {
+                LogManager.debug("Failed to parse " + name + " in " + file + ": " + e.getMessage());
+            }
+
+            if (metadata != null && !metadata.isEmpty()) {
+                return metadata;
+            }
+        }
+
+        return new ModMetadata();
+    }
+
+    private static Map<String, String> readEntries(Path file) {
+        Map<String, String> contents = new HashMap<>();
+
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            for (String name : METADATA_FILES) {
+                ZipEntry entry = zipFile.getEntry(name);
+
+                if (entry != null && !entry.isDirectory()) {
+                    try (InputStream is = zipFile.getInputStream(entry)) {
+                        contents.put(name, toString(is));
+                    }
+                }
+            }
+
+            // only needed to fill in the version for mods.toml files that take it from the manifest
+            if (contents.containsKey(MODS_TOML) || contents.containsKey(NEOFORGE_MODS_TOML)) {
+                ZipEntry manifest = zipFile.getEntry(MANIFEST);
+
+                if (manifest != null) {
+                    try (InputStream is = zipFile.getInputStream(manifest)) {
+                        contents.put(MANIFEST, toString(is));
+                    }
+                }
+            }
+
+            return contents;
+        } catch (IOException e) {
+            LogManager.debug("Couldn't open " + file + " as a zip, trying to stream it instead: " + e.getMessage());
+        }
+
+        // some jars have a broken central directory which ZipFile won't read, so go through it entry by entry once
+        contents.clear();
+        try (InputStream is = Files.newInputStream(file);
+                ZipArchiveInputStream zais = new ZipArchiveInputStream(is, "UTF8", true, true)) {
+            ZipArchiveEntry entry;
+            while ((entry = zais.getNextZipEntry()) != null) {
+                if (zais.canReadEntryData(entry) && !entry.isDirectory()
+                        && (METADATA_FILES.contains(entry.getName()) || MANIFEST.equals(entry.getName()))) {
+                    contents.put(entry.getName(), toString(zais));
+                }
+            }
+        } catch (IOException e) {
+            LogManager.debug("Failed to read mod metadata from " + file + ": " + e.getMessage());
+        }
+
+        return contents;
+    }
+
+    private static ModMetadata parse(String name, String content, String manifest) {
+        ModMetadata metadata = new ModMetadata();
+
+        if (MCMOD_INFO.equals(name)) {
+            JsonElement root = JsonParser.parseString(content);
+
+            // version 2 of the format wraps the list of mods in an object
+            if (root.isJsonObject() && root.getAsJsonObject().has("modList")) {
+                root = root.getAsJsonObject().get("modList");
+            }
+
+            List<MCMod> mods = Gsons.DEFAULT.fromJson(root, new TypeToken<List<MCMod>>() {
+            }.getType());
+
+            if (mods == null || mods.isEmpty() || mods.get(0) == null) {
+                return null;
+            }
+
+            metadata.id = mods.get(0).modid;
+            metadata.name = mods.get(0).name;
+            metadata.version = mods.get(0).version;
+            metadata.description = mods.get(0).description;
+        } else if (FABRIC_MOD_JSON.equals(name)) {
+            FabricMod mod = Gsons.DEFAULT.fromJson(content, FabricMod.class);
+
+            if (mod == null) {
+                return null;
+            }
+
+            metadata.id = mod.id;
+            metadata.name = mod.name;
+            metadata.version = mod.version;
+            metadata.description = mod.description;
+        } else if (QUILT_MOD_JSON.equals(name)) {
+            JsonObject loader = JsonParser.parseString(content).getAsJsonObject().getAsJsonObject("quilt_loader");
+
+            if (loader == null) {
+                return null;
+            }
+
+            metadata.id = getString(loader, "id");
+            metadata.version = getString(loader, "version");
+
+            if (loader.has("metadata") && loader.get("metadata").isJsonObject()) {
+                metadata.name = getString(loader.getAsJsonObject("metadata"), "name");
+                metadata.description = getString(loader.getAsJsonObject("metadata"), "description");
+            }
+        } else {
+            Map<String, String> mod = parseFirstModFromToml(content);
+
+            metadata.id = mod.get("modId");
+            metadata.name = mod.get("displayName");
+            metadata.version = mod.get("version");
+            metadata.description = mod.get("description");
+
+            if (metadata.version != null && metadata.version.contains("${file.jarVersion}")) {
+                String jarVersion = getImplementationVersion(manifest);
+                metadata.version = jarVersion == null ? null
+                        : metadata.version.replace("${file.jarVersion}", jarVersion);
+            }
+        }
+
+        return metadata;
+    }
+
+    private static String getString(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    /**
+     * Pulls the simple string values out of the first [[mods]] table in a mods.toml file. This isn't a full toml
+     * parser, but it handles the basic, literal and multi line strings that these files use.
+     */
+    static Map<String, String> parseFirstModFromToml(String content) {
+        Map<String, String> values = new HashMap<>();
+        String[] lines = content.split("\\r?\\n");
+        boolean inMods = false;
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+
+            if (line.startsWith("[")) {
+                if (inMods) {
+                    break;
+                }
+
+                inMods = line.replace(" ", "").equals("[[mods]]");
+                continue;
+            }
+
+            int equals = line.indexOf('=');
+            if (!inMods || line.startsWith("#") || equals == -1) {
+                continue;
+            }
+
+            String key = line.substring(0, equals).trim();
+            String value = line.substring(equals + 1).trim();
+
+            if (value.startsWith("'''") || value.startsWith("\"\"\"")) {
+                String quote = value.substring(0, 3);
+                StringBuilder sb = new StringBuilder(value.substring(3));
+
+                while (sb.indexOf(quote) == -1 && i + 1 < lines.length) {
+                    sb.append('\n').append(lines[++i]);
+                }
+
+                int end = sb.indexOf(quote);
+                values.put(key, (end == -1 ? sb.toString() : sb.substring(0, end)).trim());
+            } else if (value.startsWith("\"")) {
+                int end = value.indexOf('"', 1);
+                while (end != -1 && value.charAt(end - 1) == '\\') {
+                    end = value.indexOf('"', end + 1);
+                }
+
+                if (end != -1) {
+                    values.put(key, value.substring(1, end).replace("\\\"", "\"").replace("\\n", "\n"));
+                }
+            } else if (value.startsWith("'")) {
+                int end = value.indexOf('\'', 1);
+
+                if (end != -1) {
+                    values.put(key, value.substring(1, end));
+                }
+            }
+        }
+
+        return values;
+    }
+
+    private static String getImplementationVersion(String manifest) {
+        if (manifest == null) {
+            return null;
+        }
+
+        try {
+            return new Manifest(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+                    .getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String toString(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = is.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public static void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    public static synchronized void save() {
+        if (cache == null) {
+            return;
+        }
+
+        dirty = false;
+
+        Path tempFile = FileSystem.MOD_METADATA_CACHE
+                .resolveSibling(FileSystem.MOD_METADATA_CACHE.getFileName() + ".tmp");
+        try (OutputStreamWriter fileWriter = new OutputStreamWriter(Files.newOutputStream(tempFile),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT_SLIM.toJson(cache, CACHE_TYPE, fileWriter);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error saving mod metadata cache", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, FileSystem.MOD_METADATA_CACHE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error saving mod metadata cache", e, false);
+        }
+    }
+
+    private static ConcurrentHashMap<String, ModMetadata> getCache() {
+        if (cache != null) {
+            return cache;
+        }
+
+        return loadCache();
+    }
+
+    private static synchronized ConcurrentHashMap<String, ModMetadata> loadCache() {
+        if (cache != null) {
+            return cache;
+        }
+
+        ConcurrentHashMap<String, ModMetadata> loaded = null;
+        if (Files.exists(FileSystem.MOD_METADATA_CACHE)) {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    Files.newInputStream(FileSystem.MOD_METADATA_CACHE), StandardCharsets.UTF_8)) {
+                loaded = Gsons.DEFAULT_SLIM.fromJson(fileReader, CACHE_TYPE);
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error loading mod metadata cache, starting with an empty one", e, false);
+            }
+        }
+
+        cache = loaded == null ? new ConcurrentHashMap<>() : loaded;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(ModIntrospector::saveIfDirty));
+
+        return cache;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        // reading jars is mostly waiting on the disk, so a few threads is plenty and more just fight over it
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ModIntrospector-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // let the threads die off when nothing is being scanned
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+}
@@ -334,18 +334,30 @@ public class ModrinthApi {
     }
 
     public static Map<String, ModrinthVersion> getVersionsFromSha1Hashes(String[] hashes) {
-        return getVersionsFromHashes(hashes, "sha1");
+        return getVersionsFromHashes(hashes, "sha1", HashLookupCache.MODRINTH_SHA1);
     }
 
     public static Map<String, ModrinthVersion> getVersionsFromSha512Hashes(String[] hashes) {
-        return getVersionsFromHashes(hashes, "sha512");
+        return getVersionsFromHashes(hashes, "sha512", HashLookupCache.MODRINTH_SHA512);
     }
 
-    private static Map<String, ModrinthVersion> getVersionsFromHashes(String[] hashes, String algorithm) {
+    /**
+     * Looks up versions by the hashes of their files. Hashes that have been looked up recently are answered from
+     * the {@link HashLookupCache}, so only the ones we don't know about are sent to Modrinth.
+     */
+    private static Map<String, ModrinthVersion> getVersionsFromHashes(String[] hashes, String algorithm,
+            String namespace) {
         if (hashes.length == 0) {
             return new HashMap<>();
         }
 
+        Map<String, ModrinthVersion> versions = HashLookupCache.lookup(namespace, Arrays.asList(hashes),
+                ModrinthVersion.class, chunk -> fetchVersionsFromHashes(chunk, algorithm));
+
+        return versions == null ? new HashMap<>() : versions;
+    }
+
+    private static Map<String, ModrinthVersion> fetchVersionsFromHashes(List<String> hashes, String algorithm) {
         try {
             Map<String, Object> body = new HashMap<>();
             body.put("hashes", hashes);
@@ -360,7 +372,7 @@ public class ModrinthApi {
                             MediaType.get("application/json; charset=utf-8")))
                     .asTypeWithThrow(type);
         } catch (Exception e) {
-            return new HashMap<>();
+            return null;
         }
     }
 
@@ -0,0 +1,236 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds every occurrence of a fixed set of strings in a single pass over the text, using the Aho-Corasick
+ * algorithm.
+ *
+ * This is built once up front and is then safe to use from multiple threads, so that checking a line against dozens
+ * of strings costs one scan of the line rather than one scan per string.
+ */
+public final class MultiStringMatcher {
+    private final String[] patterns;
+
+    /**
+     * Maps each distinct character in the patterns to a column in the transition table, with column 0 used for any
+     * character not in the patterns. ASCII is looked up directly, anything else goes through the map.
+     */
+    private final int[] asciiColumns = new int[128];
+    private final Map<Character, Integer> otherColumns = new HashMap<>();
+
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    public MultiStringMatcher(List<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+
+        int columns = 1;
+        for (String pattern : this.patterns) {
+            for (char c : pattern.toCharArray()) {
+                if (getColumn(c) == 0) {
+                    if (c < 128) {
+                        asciiColumns[c] = columns++;
+                    } else {
+                        otherColumns.put(c, columns++);
+                    }
+                }
+            }
+        }
+
+        // build the trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new int[columns]);
+        trieOutputs.add(new ArrayList<>());
+
+        for (int i = 0; i < this.patterns.length; i++) {
+            String pattern = this.patterns[i];
+
+            // empty patterns would match everywhere, which is never what's wanted
+            if (pattern.isEmpty()) {
+                continue;
+            }
+
+            int state = 0;
+            for (char c : pattern.toCharArray()) {
+                int column = getColumn(c);
+
+                if (trie.get(state)[column] == 0) {
+                    trie.get(state)[column] = trie.size();
+                    trie.add(new int[columns]);
+                    trieOutputs.add(new ArrayList<>());
+                }
+
+                state = trie.get(state)[column];
+            }
+
+            trieOutputs.get(state).add(i);
+        }
+
+        // breadth first over the trie to fill in the failure transitions, turning it into a full automaton
+        int[] failures = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int column = 0; column < columns; column++) {
+            int next = trie.get(0)[column];
+
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            trieOutputs.get(state).addAll(trieOutputs.get(failures[state]));
+
+            for (int column = 0; column < columns; column++) {
+                int next = trie.get(state)[column];
+
+                if (next == 0) {
+                    trie.get(state)[column] = trie.get(failures[state])[column];
+                } else {
+                    failures[next] = trie.get(failures[state])[column];
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.outputs = new int[trieOutputs.size()][];
+        for (int i = 0; i < trieOutputs.size(); i++) {
+            this.outputs[i] = trieOutputs.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int getPatternCount() {
+        return patterns.length;
+    }
+
+    public String getPattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Calls the consumer with the pattern index and start position of every match in the text, ordered by where
+     * the matches end.
+     */
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        int state = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state][getColumn(text.charAt(i))];
+
+            for (int pattern : outputs[state]) {
+                consumer.accept(pattern, i - patterns[pattern].length() + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns if any of the patterns appear in the text.
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state][getColumn(text.charAt(i))];
+
+            if (outputs[state].length != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Fills the given arrays with the start of the first and last match of each pattern in the text, or -1 if the
+     * pattern doesn't appear in it.
+     */
+    public void findFirstAndLast(CharSequence text, int[] first, int[] last) {
+        Arrays.fill(first, -1);
+        Arrays.fill(last, -1);
+
+        forEachMatch(text, (pattern, start) -> {
+            if (first[pattern] == -1 || start < first[pattern]) {
+                first[pattern] = start;
+            }
+
+            if (start > last[pattern]) {
+                last[pattern] = start;
+            }
+        });
+    }
+
+    /**
+     * Replaces each match in the text with the replacement for its pattern, leaving matches of patterns with a null
+     * replacement alone. Where matches overlap the leftmost one wins, and of those starting at the same place the
+     * longest wins.
+     */
+    public String replaceAll(String text, String[] replacements) {
+        List<int[]> matches = new ArrayList<>();
+        forEachMatch(text, (pattern, start) -> {
+            if (replacements[pattern] != null) {
+                matches.add(new int[] { start, patterns[pattern].length(), pattern });
+            }
+        });
+
+        if (matches.isEmpty()) {
+            return text;
+        }
+
+        matches.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+
+        StringBuilder sb = new StringBuilder(text.length());
+        int position = 0;
+
+        for (int[] match : matches) {
+            if (match[0] < position) {
+                continue;
+            }
+
+            sb.append(text, position, match[0]).append(replacements[match[2]]);
+            position = match[0] + match[1];
+        }
+
+        return sb.append(text, position, text.length()).toString();
+    }
+
+    private int getColumn(char c) {
+        if (c < 128) {
+            return asciiColumns[c];
+        }
+
+        Integer column = otherColumns.get(c);
+        return column == null ? 0 : column;
+    }
+
+    @FunctionalInterface
+    public interface MatchConsumer {
+        void accept(int pattern, int start);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.luna.FileSystem;
+import com.luna.data.minecraft.ExtractRule;
+import com.luna.managers.LogManager;
+import com.google.common.hash.HashCode;
+
+/**
+ * Cache of extracted natives, so that native libraries are only unzipped the first time they're launched with.
+ *
+ * Each native jar is extracted once into a directory keyed by the platform, the jars SHA1 and its extract rules. On
+ * launch the cached files are then linked (or copied where links aren't supported) into the per launch natives
+ * directory, which is far cheaper than unzipping every native jar again.
+ */
+public final class NativesCache {
+    private NativesCache() {
+    }
+
+    /**
+     * Places the natives from the given jars into the natives directory, extracting any that aren't cached yet in
+     * parallel. Jars are applied in the order given, so later jars overwrite files from earlier ones.
+     */
+    public static boolean extractTo(List<Pair<Path, ExtractRule>> natives, Path nativesDir) {
+        List<Path> cacheDirs = natives.stream()
+                .map(nativeJar -> getCacheDirectory(nativeJar.left(), nativeJar.right()))
+                .collect(Collectors.toList());
+
+        boolean extracted = IntStream.range(0, natives.size()).parallel()
+                .allMatch(i -> cacheDirs.get(i) == null || Files.isDirectory(cacheDirs.get(i))
+                        || extractToCache(natives.get(i).left(), natives.get(i).right(), cacheDirs.get(i)));
+
+        if (!extracted) {
+            return false;
+        }
+
+        for (int i = 0; i < natives.size(); i++) {
+            if (cacheDirs.get(i) == null) {
+                continue;
+            }
+
+            if (!linkInto(cacheDirs.get(i), nativesDir)) {
+                LogManager.error("Failed to place natives from " + natives.get(i).left() + " into " + nativesDir);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Maps an entry in a native jar to where it should be extracted to, or null if it shouldn't be extracted.
+     */
+    private static String mapName(String name, ExtractRule extractRule) {
+        if (extractRule != null && extractRule.shouldExclude(name)) {
+            return null;
+        }
+
+        // keep META-INF folder as per normal
+        if (name.startsWith("META-INF")) {
+            return name;
+        }
+
+        // don't extract folders
+        if (name.endsWith("/")) {
+            return null;
+        }
+
+        // if it has a / then extract just to root
+        if (name.contains("/")) {
+            return name.substring(name.lastIndexOf("/") + 1);
+        }
+
+        return name;
+    }
+
+    private static Path getCacheDirectory(Path nativeJar, ExtractRule extractRule) {
+        if (!Files.isRegularFile(nativeJar)) {
+            LogManager.error("Failed to extract natives from " + nativeJar + " as it doesn't exist");
+            return null;
+        }
+
+        HashCode hash = FileHashIndex.sha1(nativeJar);
+        String key = hash.toString();
+
+        if (extractRule != null && extractRule.exclude != null && !extractRule.exclude.isEmpty()) {
+            key += "-" + Hashing.md5(String.join("\n", extractRule.exclude)).toString().substring(0, 8);
+        }
+
+        String platform = OS.getOS().toString().toLowerCase(Locale.ENGLISH) + "-"
+                + System.getProperty("os.arch").toLowerCase(Locale.ENGLISH);
+
+        return FileSystem.NATIVES_CACHE.resolve(platform).resolve(key);
+    }
+
+    private static boolean extractToCache(Path nativeJar, ExtractRule extractRule, Path cacheDir) {
+        // extract into temp first so that a half extracted jar is never picked up from the cache
+        Path stagingDir = FileSystem.TEMP.resolve("natives-cache-" + UUID.randomUUID().toString().replace("-", ""));
+
+        try (ZipFile zipFile = new ZipFile(nativeJar.toFile())) {
+            Files.createDirectories(stagingDir);
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String fileName = mapName(entry.getName(), extractRule);
+
+                if (fileName == null) {
+                    continue;
+                }
+
+                Path outputPath;
+                try {
+                    outputPath = stagingDir.resolve(fileName);
+                } catch (InvalidPathException e) {
+                    String newFilename = fileName.replaceAll("[:*\\?\"<>|]", "");
+                    LogManager
+                            .warn(String.format("InvalidPath when extracting file with name of '%s'. Renaming to '%s'",
+                                    fileName, newFilename));
+                    outputPath = stagingDir.resolve(newFilename);
+                }
+
+                if (!outputPath.normalize().startsWith(stagingDir)) {
+                    LogManager.warn("Skipping native " + entry.getName() + " as it's outside of the natives folder");
+                    continue;
+                }
+
+                if (entry.isDirectory()) {
+                    Files.createDirectories(outputPath);
+                    continue;
+                }
+
+                Files.createDirectories(outputPath.getParent());
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    Files.copy(is, outputPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            Files.createDirectories(cacheDir.getParent());
+
+            try {
+                Files.move(stagingDir, cacheDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // another launch may have extracted the same jar at the same time, which is fine
+                if (!Files.isDirectory(cacheDir)) {
+                    throw e;
+                }
+            }
+
+            return true;
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to extract natives from " + nativeJar, e);
+            return false;
+        } finally {
+            if (Files.isDirectory(stagingDir)) {
+                FileUtils.deleteDirectoryQuietly(stagingDir);
+            }
+        }
+    }
+
+    private static boolean linkInto(Path cacheDir, Path nativesDir) {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(cacheDir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to read cached natives from " + cacheDir, e);
+            return false;
+        }
+
+        for (Path file : files) {
+            Path target = nativesDir.resolve(cacheDir.relativize(file).toString());
+
+            try {
+                Files.createDirectories(target.getParent());
+                Files.deleteIfExists(target);
+                Files.createLink(target, file);
+            } catch (IOException | UnsupportedOperationException | SecurityException e) {
+                if (!FileUtils.copyFile(file, target, true)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+}
@@ -88,10 +88,7 @@ import com.luna.Gsons;
 import com.luna.Network;
 import com.luna.constants.Constants;
 import com.luna.data.minecraft.ExtractRule;
-import com.luna.data.minecraft.FabricMod;
-import com.luna.data.minecraft.MCMod;
 import com.luna.managers.LogManager;
-import com.google.gson.reflect.TypeToken;
 
 import net.iharder.Base64;
 
@@ -1611,38 +1608,6 @@ public class Utils {
                         && Integer.parseInt(versionParts[2]) > Integer.parseInt(matchedParts[2]));
     }
 
-    public static MCMod getMCModForFile(File file) {
-        try {
-            java.lang.reflect.Type type = new TypeToken<List<MCMod>>() {
-            }.getType();
-
-            List<MCMod> mods = Gsons.DEFAULT.fromJson(ArchiveUtils.getFile(file.toPath(), "mcmod.info"), type);
-
-            if (mods.size() != 0 && mods.get(0) != null) {
-                return mods.get(0);
-            }
-        } catch (Exception ignored) {
-
-        }
-
-        return null;
-    }
-
-    public static FabricMod getFabricModForFile(File file) {
-        try {
-            FabricMod mod = Gsons.DEFAULT.fromJson(ArchiveUtils.getFile(file.toPath(), "fabric.mod.json"),
-                    FabricMod.class);
-
-            if (mod != null) {
-                return mod;
-            }
-        } catch (Exception ignored2) {
-
-        }
-
-        return null;
-    }
-
     public static boolean executableInPath(String executableName) {
         try {
             return java.util.stream.Stream
@@ -0,0 +1,193 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
+
+import com.luna.FileSystem;
+import com.luna.managers.LogManager;
+
+/**
+ * Builds a zip straight from files where they are, rather than copying everything into a temp directory first and
+ * zipping that up.
+ *
+ * Entries are compressed across all cores, and files that are already compressed (such as jars and pngs) are stored
+ * as is, since deflating them again takes a long time for next to no gain.
+ */
+public class ZipExporter {
+    private static final List<String> STORED_EXTENSIONS = Arrays.asList("jar", "zip", "mrpack", "litemod", "png",
+            "jpg", "jpeg", "gif", "ogg", "mp3", "gz", "xz", "lzma", "7z");
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public ZipExporter addString(String name, String contents) {
+        return addBytes(name, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ZipExporter addBytes(String name, byte[] contents) {
+        entries.add(new Entry(name, null, contents));
+        return this;
+    }
+
+    public ZipExporter addFile(String name, Path file) {
+        entries.add(new Entry(name, file, null));
+        return this;
+    }
+
+    public ZipExporter addDirectory(String name) {
+        entries.add(new Entry(name.endsWith("/") ? name : name + "/", null, null));
+        return this;
+    }
+
+    /**
+     * Adds every file within the given directory (or the file itself if it's not a directory) under the given
+     * prefix, skipping any .DS_Store files and anything the filter doesn't accept.
+     */
+    public ZipExporter addPath(String prefix, Path path, Predicate<Path> filter) {
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    // only add files, no symbolic links or directories
+                    if (!attributes.isRegularFile() || file.getFileName().toString().equals(".DS_Store")
+                            || !filter.test(file)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    String relativePath = path.equals(file) ? file.getFileName().toString()
+                            : path.relativize(file).toString();
+                    addFile(prefix + relativePath.replace('\\', '/'), file);
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to add " + path + " to export", e);
+        }
+
+        return this;
+    }
+
+    public List<String> getEntryNames() {
+        List<String> names = new ArrayList<>();
+        entries.forEach(entry -> names.add(entry.name));
+
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Writes out all the added entries to the given zip, returning if it was successful. If it wasn't, then nothing
+     * is left behind at the given path.
+     */
+    public boolean writeTo(Path archive) {
+        FileUtils.createDirectory(FileSystem.TEMP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor,
+                () -> new FileBasedScatterGatherBackingStore(
+                        File.createTempFile("export", ".scatter", FileSystem.TEMP.toFile())),
+                Deflater.DEFAULT_COMPRESSION);
+
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(archive.toFile())) {
+            for (Entry entry : entries) {
+                ZipArchiveEntry zipEntry;
+
+                if (entry.file != null) {
+                    zipEntry = new ZipArchiveEntry(entry.file.toFile(), entry.name);
+                    zipEntry.setMethod(isStored(entry.name) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+                    creator.addArchiveEntry(zipEntry, () -> {
+                        try {
+                            return Files.newInputStream(entry.file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } else if (entry.contents != null) {
+                    zipEntry = new ZipArchiveEntry(entry.name);
+                    zipEntry.setMethod(ZipEntry.DEFLATED);
+                    creator.addArchiveEntry(zipEntry, () -> new ByteArrayInputStream(entry.contents));
+                } else {
+                    // directories have no contents, so there's no point in passing them off to another thread
+                    zipEntry = new ZipArchiveEntry(entry.name);
+                    zos.putArchiveEntry(zipEntry);
+                    zos.closeArchiveEntry();
+                }
+            }
+
+            creator.writeTo(zos);
+            LogManager.debug(
+                    "Exported " + entries.size() + " entries to " + archive + ": " + creator.getStatisticsMessage());
+
+            return true;
+        } catch (IOException | ExecutionException | UncheckedIOException e) {
+            LogManager.logStackTrace("Failed to create zip " + archive.toAbsolutePath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // only needed if we failed before the creator got to shut it down itself
+            executor.shutdownNow();
+        }
+
+        FileUtils.delete(archive);
+        return false;
+    }
+
+    private static boolean isStored(String name) {
+        int extensionIndex = name.lastIndexOf('.');
+
+        return extensionIndex != -1
+                && STORED_EXTENSIONS.contains(name.substring(extensionIndex + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    private static class Entry {
+        public final String name;
+        public final Path file;
+        public final byte[] contents;
+
+        public Entry(String name, Path file, byte[] contents) {
+            this.name = name;
+            this.file = file;
+            this.contents = contents;
+        }
+    }
+}
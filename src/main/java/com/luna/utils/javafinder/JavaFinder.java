@@ -18,7 +18,6 @@
 package com.luna.utils.javafinder;
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
@@ -32,115 +31,167 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import com.luna.App;
+import com.luna.managers.LogManager;
 import com.luna.managers.PerformanceManager;
 import com.luna.utils.OS;
 import com.luna.utils.Utils;
 
 public class JavaFinder {
-    private static SoftReference<List<String>> javaPaths = new SoftReference<>(null);
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean(false);
 
+    private static volatile List<String> javaPaths = null;
+
+    /**
+     * Finds all the Java installs on the system. The first time this is called, the installs found when the launcher
+     * was last run are used straight away while the system is searched again in the background, since searching can
+     * take a while on machines with a lot of Java installs.
+     */
     public static List<JavaInfo> findJavas() {
         PerformanceManager.start();
-        List<String> javaExecs = javaPaths.get();
+        List<String> javaExecs = javaPaths;
 
         if (javaExecs == null) {
-            javaExecs = new ArrayList<>();
+            List<String> knownExecs = JavaInventory.getKnownExecutables();
+
+            if (knownExecs.isEmpty()) {
+                javaExecs = searchForJavas();
+                JavaInventory.setKnownExecutables(javaExecs);
+            } else {
+                javaExecs = knownExecs;
+                refreshInBackground();
+            }
 
-            if (OS.isWindows()) {
-                if (OS.is64Bit()) {
-                    javaExecs.addAll(scanWindowsRegistry(64));
-                } else {
-                    javaExecs.addAll(scanWindowsRegistry(32));
-                }
+            javaPaths = javaExecs;
+        }
 
-                PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:**/bin/java.exe");
+        List<JavaInfo> javas = JavaInventory.getAll(javaExecs.stream().distinct()
+                .filter(java -> Files.exists(Paths.get(java))).collect(Collectors.toList()));
 
-                List<Path> pathsToSearch = new ArrayList<>(
-                        Arrays.asList(Paths.get(System.getenv("programfiles"), "Java"),
-                                Paths.get(System.getenv("programfiles"), "Amazon Corretto"),
-                                Paths.get(System.getenv("programfiles"), "AdoptOpenJDK"),
-                                Paths.get(System.getenv("programfiles"), "Zulu"),
-                                Paths.get(System.getenv("programfiles"), "Eclipse Adoptium"),
-                                Paths.get(System.getenv("programfiles"), "Eclipse Foundation")));
+        PerformanceManager.end();
+        return javas;
+    }
 
-                if (App.settings.baseJavaInstallFolder != null
-                        && Files.exists(Paths.get(App.settings.baseJavaInstallFolder))
-                        && Files.isDirectory(Paths.get(App.settings.baseJavaInstallFolder))) {
-                    pathsToSearch.add(Paths.get(App.settings.baseJavaInstallFolder));
-                }
+    /**
+     * Searches the system for Java installs again without blocking, and gets the version of any new ones found so
+     * that they're ready the next time the installs are asked for.
+     */
+    public static void refreshInBackground() {
+        if (!REFRESHING.compareAndSet(false, true)) {
+            return;
+        }
 
-                for (Path searchPath : pathsToSearch) {
-                    List<String> foundPaths = new ArrayList<>();
+        Thread thread = new Thread(() -> {
+            try {
+                List<String> javaExecs = searchForJavas();
+
+                javaPaths = javaExecs;
+                JavaInventory.setKnownExecutables(javaExecs);
+                JavaInventory.getAll(javaExecs.stream().distinct().filter(java -> Files.exists(Paths.get(java)))
+                        .collect(Collectors.toList()));
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error searching for Java installs", e, false);
+            } finally {
+                REFRESHING.set(false);
+            }
+        }, "JavaFinderRefresh");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-                    try {
-                        Files.walkFileTree(searchPath,
-                                EnumSet.noneOf(FileVisitOption.class), 10, new SimpleFileVisitor<Path>() {
-                                    @Override
-                                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
-                                            throws IOException {
-                                        if (pathMatcher.matches(path)) {
-                                            foundPaths.add(path.toString());
-                                        }
+    private static List<String> searchForJavas() {
+        List<String> javaExecs = new ArrayList<>();
 
-                                        return FileVisitResult.CONTINUE;
-                                    }
-                                });
-                    } catch (Exception ignored) {
-                    }
+        if (OS.isWindows()) {
+            if (OS.is64Bit()) {
+                javaExecs.addAll(scanWindowsRegistry(64));
+            } else {
+                javaExecs.addAll(scanWindowsRegistry(32));
+            }
 
-                    if (foundPaths.size() != 0) {
-                        javaExecs.addAll(foundPaths);
-                    }
-                }
+            PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:**/bin/java.exe");
+
+            List<Path> pathsToSearch = new ArrayList<>(
+                    Arrays.asList(Paths.get(System.getenv("programfiles"), "Java"),
+                            Paths.get(System.getenv("programfiles"), "Amazon Corretto"),
+                            Paths.get(System.getenv("programfiles"), "AdoptOpenJDK"),
+                            Paths.get(System.getenv("programfiles"), "Zulu"),
+                            Paths.get(System.getenv("programfiles"), "Eclipse Adoptium"),
+                            Paths.get(System.getenv("programfiles"), "Eclipse Foundation")));
+
+            if (App.settings.baseJavaInstallFolder != null
+                    && Files.exists(Paths.get(App.settings.baseJavaInstallFolder))
+                    && Files.isDirectory(Paths.get(App.settings.baseJavaInstallFolder))) {
+                pathsToSearch.add(Paths.get(App.settings.baseJavaInstallFolder));
             }
 
-            if (OS.isLinux()) {
-                PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:**/bin/java");
+            for (Path searchPath : pathsToSearch) {
+                List<String> foundPaths = new ArrayList<>();
+
+                try {
+                    Files.walkFileTree(searchPath,
+                            EnumSet.noneOf(FileVisitOption.class), 10, new SimpleFileVisitor<Path>() {
+                                @Override
+                                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+                                        throws IOException {
+                                    if (pathMatcher.matches(path)) {
+                                        foundPaths.add(path.toString());
+                                    }
 
-                List<Path> pathsToSearch = new ArrayList<>(
-                        Arrays.asList(Paths.get("/usr/java"), Paths.get("/usr/lib/jvm"),
-                                Paths.get("/usr/lib32/jvm")));
+                                    return FileVisitResult.CONTINUE;
+                                }
+                            });
+                } catch (Exception ignored) {
+                }
 
-                if (App.settings.baseJavaInstallFolder != null
-                        && Files.exists(Paths.get(App.settings.baseJavaInstallFolder))
-                        && Files.isDirectory(Paths.get(App.settings.baseJavaInstallFolder))) {
-                    pathsToSearch.add(Paths.get(App.settings.baseJavaInstallFolder));
+                if (foundPaths.size() != 0) {
+                    javaExecs.addAll(foundPaths);
                 }
+            }
+        }
 
-                for (Path searchPath : pathsToSearch) {
-                    List<String> foundPaths = new ArrayList<>();
+        if (OS.isLinux()) {
+            PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:**/bin/java");
 
-                    try {
-                        Files.walkFileTree(searchPath, EnumSet.noneOf(FileVisitOption.class), 10,
-                                new SimpleFileVisitor<Path>() {
-                                    @Override
-                                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
-                                            throws IOException {
-                                        if (pathMatcher.matches(path)) {
-                                            foundPaths.add(path.toString());
-                                        }
+            List<Path> pathsToSearch = new ArrayList<>(
+                    Arrays.asList(Paths.get("/usr/java"), Paths.get("/usr/lib/jvm"),
+                            Paths.get("/usr/lib32/jvm")));
 
-                                        return FileVisitResult.CONTINUE;
+            if (App.settings.baseJavaInstallFolder != null
+                    && Files.exists(Paths.get(App.settings.baseJavaInstallFolder))
+                    && Files.isDirectory(Paths.get(App.settings.baseJavaInstallFolder))) {
+                pathsToSearch.add(Paths.get(App.settings.baseJavaInstallFolder));
+            }
+
+            for (Path searchPath : pathsToSearch) {
+                List<String> foundPaths = new ArrayList<>();
+
+                try {
+                    Files.walkFileTree(searchPath, EnumSet.noneOf(FileVisitOption.class), 10,
+                            new SimpleFileVisitor<Path>() {
+                                @Override
+                                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+                                        throws IOException {
+                                    if (pathMatcher.matches(path)) {
+                                        foundPaths.add(path.toString());
                                     }
-                                });
-                    } catch (Exception ignored) {
-                    }
 
-                    if (foundPaths.size() != 0) {
-                        javaExecs.addAll(foundPaths);
-                    }
+                                    return FileVisitResult.CONTINUE;
+                                }
+                            });
+                } catch (Exception ignored) {
                 }
-            }
 
-            javaPaths = new SoftReference<>(javaExecs);
+                if (foundPaths.size() != 0) {
+                    javaExecs.addAll(foundPaths);
+                }
+            }
         }
 
-        PerformanceManager.end();
-        return javaExecs.stream().distinct().filter(java -> Files.exists(Paths.get(java))).map(JavaInfo::new)
-                .collect(Collectors.toList());
+        return javaExecs;
     }
 
     // Inspired by
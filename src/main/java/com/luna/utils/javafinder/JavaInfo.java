@@ -20,12 +20,9 @@ package com.luna.utils.javafinder;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.luna.FileSystem;
 import com.luna.utils.Java;
-import com.luna.utils.Utils;
 
 public class JavaInfo {
     public String path;
@@ -35,28 +32,27 @@ public class JavaInfo {
     public Integer minorVersion;
     public boolean is64bits;
     public boolean isRuntime;
-
-    private static final Map<String, String> versionInfos = new HashMap<>();
+    public String vendor;
 
     public JavaInfo(String javaPath) {
-        String versionInfo = versionInfos.get(javaPath);
-
-        if (versionInfo == null) {
-            versionInfo = Utils.runProcess(javaPath, "-version");
-            JavaInfo.versionInfos.put(javaPath, versionInfo);
-        }
-
-        String[] tokens = versionInfo.split("\"");
+        this(javaPath, JavaInventory.get(javaPath));
+    }
 
-        if (tokens.length < 2) {
+    /**
+     * Creates the info for the given Java executable from what the inventory knows about it. If the entry is null
+     * then the version couldn't be found, and it's marked as unknown.
+     */
+    public JavaInfo(String javaPath, JavaInventory.Entry entry) {
+        if (entry == null || entry.version == null) {
             this.version = "Unknown";
         } else {
-            this.version = tokens[1];
+            this.version = entry.version;
             this.majorVersion = Java.parseJavaVersionNumber(this.version);
             this.minorVersion = Java.parseJavaBuildVersion(this.version);
+            this.is64bits = entry.is64bits;
+            this.vendor = entry.vendor;
         }
 
-        this.is64bits = versionInfo.toUpperCase().contains("64-BIT");
         this.path = javaPath;
         this.rootPath = new File(javaPath).getParentFile().getParentFile().getAbsolutePath();
 
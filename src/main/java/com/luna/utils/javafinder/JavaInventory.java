@@ -0,0 +1,362 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils.javafinder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.luna.FileSystem;
+import com.luna.Gsons;
+import com.luna.managers.LogManager;
+
+/**
+ * Persistent inventory of the Java installs we've seen, so that finding out the version of each one doesn't mean
+ * starting up a new process every time the launcher is opened.
+ *
+ * Installs are keyed by the path to their executable and are only looked at again when that executable's size or
+ * last modified time changes. Where an install has a release file next to its bin folder, that's read instead of
+ * running "java -version", and when a process does have to be run it's done in parallel and given a time limit so one
+ * broken install can't hold everything else up.
+ */
+public final class JavaInventory {
+    private static final long PROBE_TIMEOUT_SECONDS = 10;
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(java|openjdk) version \"([^\"]*)\"");
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static volatile Inventory inventory = null;
+    private static volatile boolean dirty = false;
+
+    private JavaInventory() {
+    }
+
+    /**
+     * Gets the version information for the given Java executable, probing it if it's not known about or has changed.
+     * Returns null if it couldn't be worked out.
+     */
+    public static Entry get(String javaPath) {
+        Path executable = Paths.get(javaPath).toAbsolutePath().normalize();
+        String key = executable.toString();
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(executable, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+
+        Entry entry = getInventory().javas.get(key);
+        if (entry != null && entry.size == attributes.size()
+                && entry.lastModified == attributes.lastModifiedTime().toMillis()) {
+            return entry;
+        }
+
+        entry = probe(executable);
+
+        // don't remember failures, as a timeout may just have been the machine being busy at the time
+        if (entry != null) {
+            entry.size = attributes.size();
+            entry.lastModified = attributes.lastModifiedTime().toMillis();
+            getInventory().javas.put(key, entry);
+            dirty = true;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Gets the JavaInfo for each of the given executables, probing any that aren't already known in parallel.
+     * Executables which take too long to probe are still returned, but with an unknown version.
+     */
+    public static List<JavaInfo> getAll(Collection<String> javaPaths) {
+        Map<String, Future<Entry>> probes = new HashMap<>();
+        for (String javaPath : new LinkedHashSet<>(javaPaths)) {
+            probes.put(javaPath, EXECUTOR.submit(() -> get(javaPath)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PROBE_TIMEOUT_SECONDS);
+        List<JavaInfo> javas = new ArrayList<>();
+
+        for (String javaPath : new LinkedHashSet<>(javaPaths)) {
+            Entry entry = null;
+
+            try {
+                entry = probes.get(javaPath).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                LogManager.warn("Timed out getting the version of Java at " + javaPath);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LogManager.logStackTrace("Error getting the version of Java at " + javaPath, e, false);
+            }
+
+            javas.add(new JavaInfo(javaPath, entry));
+        }
+
+        saveIfDirty();
+
+        return javas;
+    }
+
+    /**
+     * The Java executables that were found the last time the system was searched for them.
+     */
+    public static List<String> getKnownExecutables() {
+        List<String> executables = getInventory().executables;
+
+        return executables == null ? Collections.emptyList() : Collections.unmodifiableList(executables);
+    }
+
+    public static void setKnownExecutables(List<String> executables) {
+        if (!executables.equals(getInventory().executables)) {
+            getInventory().executables = new ArrayList<>(executables);
+            dirty = true;
+        }
+    }
+
+    private static Entry probe(Path executable) {
+        Path root = executable.getParent() == null ? null : executable.getParent().getParent();
+        Entry entry = root == null ? null : readReleaseFile(root);
+
+        if (entry == null) {
+            entry = runVersionCommand(executable);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Reads the release file that most JDKs and JREs have in their root folder, which has the same version that
+     * "java -version" would print. Returns null if there's no release file or it doesn't have what we need.
+     */
+    static Entry readReleaseFile(Path root) {
+        Path releaseFile = root.resolve("release");
+
+        if (!Files.isRegularFile(releaseFile)) {
+            return null;
+        }
+
+        Map<String, String> properties = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(releaseFile, StandardCharsets.UTF_8)) {
+                int equalsIndex = line.indexOf('=');
+
+                if (equalsIndex > 0) {
+                    String value = line.substring(equalsIndex + 1).trim();
+
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+
+                    properties.put(line.substring(0, equalsIndex).trim(), value);
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        String version = properties.get("JAVA_VERSION");
+        String arch = properties.get("OS_ARCH");
+
+        if (version == null || version.isEmpty() || arch == null || arch.isEmpty()) {
+            return null;
+        }
+
+        Entry entry = new Entry();
+        entry.version = version;
+        entry.is64bits = arch.contains("64") || arch.toLowerCase(Locale.ENGLISH).equals("s390x");
+        entry.vendor = properties.get("IMPLEMENTOR");
+
+        return entry;
+    }
+
+    private static Entry runVersionCommand(Path executable) {
+        Process process = null;
+
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(executable.toString(), "-version");
+            processBuilder.redirectErrorStream(true);
+            process = processBuilder.start();
+
+            // the output is only a few lines, so it'll all fit in the pipe while we wait for the process to finish
+            if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LogManager.warn("Timed out running " + executable + " -version");
+                return null;
+            }
+
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+
+                while ((line = br.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+            }
+
+            return parseVersionOutput(output.toString());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error running " + executable + " -version", e, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (process != null) {
+                process.destroyForcibly();
+            }
+        }
+
+        return null;
+    }
+
+    static Entry parseVersionOutput(String output) {
+        // match on the version line itself, as things like "Picked up JAVA_TOOL_OPTIONS" can be printed before it
+        Matcher matcher = VERSION_PATTERN.matcher(output);
+
+        if (!matcher.find()) {
+            return null;
+        }
+
+        Entry entry = new Entry();
+        entry.version = matcher.group(2);
+        entry.is64bits = output.toUpperCase(Locale.ENGLISH).contains("64-BIT");
+
+        return entry;
+    }
+
+    public static void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    public static synchronized void save() {
+        if (inventory == null) {
+            return;
+        }
+
+        dirty = false;
+
+        Path tempFile = FileSystem.JAVA_INVENTORY.resolveSibling(FileSystem.JAVA_INVENTORY.getFileName() + ".tmp");
+        try (OutputStreamWriter fileWriter = new OutputStreamWriter(Files.newOutputStream(tempFile),
+                StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT_SLIM.toJson(inventory, Inventory.class, fileWriter);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error saving Java inventory", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, FileSystem.JAVA_INVENTORY, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Error saving Java inventory", e, false);
+        }
+    }
+
+    private static Inventory getInventory() {
+        if (inventory != null) {
+            return inventory;
+        }
+
+        return loadInventory();
+    }
+
+    private static synchronized Inventory loadInventory() {
+        if (inventory != null) {
+            return inventory;
+        }
+
+        Inventory loaded = null;
+        if (Files.exists(FileSystem.JAVA_INVENTORY)) {
+            try (InputStreamReader fileReader = new InputStreamReader(
+                    Files.newInputStream(FileSystem.JAVA_INVENTORY), StandardCharsets.UTF_8)) {
+                loaded = Gsons.DEFAULT_SLIM.fromJson(fileReader, Inventory.class);
+            } catch (Exception e) {
+                LogManager.logStackTrace("Error loading Java inventory, starting with an empty one", e, false);
+            }
+        }
+
+        if (loaded == null) {
+            loaded = new Inventory();
+        }
+
+        if (loaded.javas == null) {
+            loaded.javas = new ConcurrentHashMap<>();
+        }
+
+        inventory = loaded;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(JavaInventory::saveIfDirty));
+
+        return inventory;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "JavaInventory-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // let the threads die off once everything has been probed
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    public static class Entry {
+        public long size;
+        public long lastModified;
+        public String version;
+        public boolean is64bits;
+        public String vendor;
+    }
+
+    private static class Inventory {
+        private volatile List<String> executables;
+        private ConcurrentHashMap<String, Entry> javas;
+    }
+}
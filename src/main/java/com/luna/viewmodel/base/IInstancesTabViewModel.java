@@ -17,6 +17,7 @@
  */
 package com.luna.viewmodel.base;
 
+import java.util.Collections;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -24,10 +25,13 @@ import javax.annotation.Nullable;
 
 import org.jetbrains.annotations.NotNull;
 
+import com.luna.data.Instance;
+import com.luna.data.InstanceSummary;
 import com.luna.gui.models.InstanceUIModel;
 import com.luna.utils.sort.InstanceSortingStrategies;
 
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 
 /**
@@ -68,6 +72,15 @@ public interface IInstancesTabViewModel {
     @Nonnull
     Flowable<InstancesList> getInstancesList();
 
+    /**
+     * Load the full instance behind a summary shown while the instances are loading, for when its card is used.
+     *
+     * @param summary Summary from {@link InstancesList#summaries}
+     * @return The instance, observed on the EDT, or empty if it couldn't be loaded
+     */
+    @Nonnull
+    Maybe<Instance> loadInstance(@Nonnull InstanceSummary summary);
+
     /**
      * Save the current scroll state
      * @param value currentScroll
@@ -100,13 +113,24 @@ public interface IInstancesTabViewModel {
          */
         public final List<InstanceUIModel> instances;
 
+        /**
+         * Instances from the last run which are still loading, to display until they're in {@link #instances}.
+         */
+        public final List<InstanceSummary> summaries;
+
         /**
          * Title format for said instances.
          */
         public final String instanceTitleFormat;
 
         public InstancesList(List<InstanceUIModel> instances, String instanceTitleFormat) {
+            this(instances, Collections.emptyList(), instanceTitleFormat);
+        }
+
+        public InstancesList(List<InstanceUIModel> instances, List<InstanceSummary> summaries,
+                String instanceTitleFormat) {
             this.instances = instances;
+            this.summaries = summaries;
             this.instanceTitleFormat = instanceTitleFormat;
         }
     }
@@ -19,6 +19,7 @@ package com.luna.viewmodel.impl;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -34,6 +35,7 @@ import org.jetbrains.annotations.NotNull;
 
 import com.luna.App;
 import com.luna.data.Instance;
+import com.luna.data.InstanceSummary;
 import com.luna.data.Pack;
 import com.luna.data.PackVersion;
 import com.luna.evnt.listener.SettingsListener;
@@ -51,6 +53,7 @@ import com.gitlab.doomsdayrs.lib.rxswing.schedulers.SwingSchedulers;
 
 import io.reactivex.rxjava3.core.BackpressureStrategy;
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.ObservableSource;
 import io.reactivex.rxjava3.schedulers.Schedulers;
@@ -129,11 +132,38 @@ public class InstancesTabViewModel implements IInstancesTabViewModel, SettingsLi
                 });
     });
 
+    /**
+     * Summaries of the instances which are still loading get the same search and sort, so the list looks the same
+     * once they've loaded.
+     */
+    @SuppressWarnings("unchecked")
+    private final Observable<List<InstanceSummary>> filteredSummaries = Observable.combineLatestArray(
+            new ObservableSource[] { InstanceManager.getInstanceSummariesObservable(), searchPattern,
+                    sortingStrategy },
+            it -> {
+                List<InstanceSummary> summaries = (List<InstanceSummary>) it[0];
+                Optional<Pattern> searchPattern = (Optional<Pattern>) it[1];
+                InstanceSortingStrategies sortingStrategy = (InstanceSortingStrategies) it[2];
+
+                Stream<InstanceSummary> stream = summaries.stream();
+
+                if (searchPattern.isPresent()) {
+                    stream = stream.filter(summary -> summary.name != null
+                            && searchPattern.get().matcher(summary.name).find());
+                }
+
+                if (sortingStrategy != null) {
+                    stream = stream.sorted(getSummaryComparator(sortingStrategy));
+                }
+
+                return stream.collect(Collectors.toList());
+            }).subscribeOn(Schedulers.io());
+
     /**
      * Third operation is to create a UI state object.
      */
-    public Flowable<InstancesList> instancesList = Observable.combineLatest(instanceModels, instanceTitleFormat,
-            InstancesList::new)
+    public Flowable<InstancesList> instancesList = Observable.combineLatest(instanceModels, filteredSummaries,
+            instanceTitleFormat, InstancesList::new)
         .throttleLatest(100, TimeUnit.MILLISECONDS)
         .toFlowable(BackpressureStrategy.LATEST) // Backpressure first, as down stream is the edt thread
         .observeOn(Schedulers.newThread());
@@ -146,6 +176,26 @@ public class InstancesTabViewModel implements IInstancesTabViewModel, SettingsLi
         return (val) -> searchPattern.matcher(val.launcher.name).find();
     }
 
+    private static Comparator<InstanceSummary> getSummaryComparator(InstanceSortingStrategies strategy) {
+        switch (strategy) {
+            case BY_LAST_PLAYED:
+                return Comparator.comparing(InstanceSummary::getLastPlayedOrEpoch).reversed();
+            case BY_NUMBER_OF_PLAYS:
+                return Comparator.comparingLong((InstanceSummary summary) -> summary.numPlays).reversed();
+            case BY_NAME:
+            default:
+                return Comparator.comparing(summary -> summary.name == null ? "" : summary.name,
+                        String.CASE_INSENSITIVE_ORDER);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Maybe<Instance> loadInstance(@Nonnull InstanceSummary summary) {
+        return Maybe.fromCallable(() -> InstanceManager.getInstance(summary)).subscribeOn(Schedulers.io())
+                .observeOn(SwingSchedulers.edt());
+    }
+
     @Override
     public void setSort(@Nonnull InstanceSortingStrategies strategy) {
         setIsLoading(true);
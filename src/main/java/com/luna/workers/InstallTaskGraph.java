@@ -0,0 +1,190 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.workers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import com.luna.managers.LogManager;
+
+/**
+ * Runs the steps of an install as a graph rather than one after the other. Each step starts as soon as the steps it
+ * depends on have finished, so steps that don't depend on each other (such as downloading assets, libraries and
+ * mods) all run at the same time.
+ *
+ * If a step fails or the install is cancelled, no more steps are started, and the failure is thrown from
+ * {@link #run()} once the steps already running have finished.
+ */
+final class InstallTaskGraph {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final BooleanSupplier isCancelled;
+    private final List<Task> tasks = new ArrayList<>();
+    private final Set<String> running = new LinkedHashSet<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Consumer<List<String>> onRunningChanged = names -> {
+    };
+    private Consumer<Task> onTaskFinished = task -> {
+    };
+
+    InstallTaskGraph(BooleanSupplier isCancelled) {
+        this.isCancelled = isCancelled;
+    }
+
+    /**
+     * Adds a step to the graph which will run once all of the given steps have finished. The name is what's shown to
+     * the user while the step is running, and the weight is how much of the overall progress the step is worth.
+     */
+    Task add(String name, double weight, Step step, Task... dependencies) {
+        Task task = new Task(name, weight, step, dependencies);
+        tasks.add(task);
+
+        return task;
+    }
+
+    /**
+     * Called with the names of the steps currently running whenever a step starts or finishes. Calls happen one at
+     * a time in the order the steps started and finished, so the listener should be quick.
+     */
+    InstallTaskGraph onRunningChanged(Consumer<List<String>> onRunningChanged) {
+        this.onRunningChanged = onRunningChanged;
+        return this;
+    }
+
+    /**
+     * Called after each step finishes successfully.
+     */
+    InstallTaskGraph onTaskFinished(Consumer<Task> onTaskFinished) {
+        this.onTaskFinished = onTaskFinished;
+        return this;
+    }
+
+    /**
+     * Runs all the steps, waiting until they've finished. Throws the first failure of any of the steps.
+     */
+    void run() throws Exception {
+        // steps spend most of their time waiting on downloads, so each one gets its own thread
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "InstallTask-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (Task task : tasks) {
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[task.dependencies.length];
+                for (int i = 0; i < task.dependencies.length; i++) {
+                    if (task.dependencies[i].future == null) {
+                        throw new IllegalStateException(
+                                task.name + " depends on " + task.dependencies[i].name + " which is added after it");
+                    }
+
+                    dependencies[i] = task.dependencies[i].future;
+                }
+
+                task.future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> runTask(task), executor);
+            }
+
+            try {
+                CompletableFuture.allOf(tasks.stream().map(task -> task.future).toArray(CompletableFuture[]::new))
+                        .get();
+            } catch (ExecutionException e) {
+                // the actual failure is stored below, as this may be a dependency failing rather than the cause
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdown();
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof Exception) {
+            throw (Exception) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+    }
+
+    private void runTask(Task task) {
+        if (failure.get() != null || isCancelled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+
+        setRunning(task, true);
+
+        try {
+            task.step.run();
+        } catch (Throwable t) {
+            LogManager.logStackTrace("Install step \"" + task.name + "\" failed", t, false);
+            failure.compareAndSet(null, t);
+            throw new CompletionException(t);
+        } finally {
+            setRunning(task, false);
+        }
+
+        onTaskFinished.accept(task);
+    }
+
+    private void setRunning(Task task, boolean isRunning) {
+        // the listener is called while holding the lock so that it sees the changes in the order they happened,
+        // otherwise a step finishing on one thread could be reported after a later change from another
+        synchronized (running) {
+            if (isRunning) {
+                running.add(task.name);
+            } else {
+                running.remove(task.name);
+            }
+
+            onRunningChanged.accept(Collections.unmodifiableList(new ArrayList<>(running)));
+        }
+    }
+
+    @FunctionalInterface
+    interface Step {
+        void run() throws Exception;
+    }
+
+    static final class Task {
+        final String name;
+        final double weight;
+        private final Step step;
+        private final Task[] dependencies;
+        private CompletableFuture<Void> future;
+
+        private Task(String name, double weight, Step step, Task[] dependencies) {
+            this.name = name;
+            this.weight = weight;
+            this.step = step;
+            this.dependencies = dependencies;
+        }
+    }
+}
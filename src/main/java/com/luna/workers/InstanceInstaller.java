@@ -29,6 +29,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -38,6 +39,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -86,18 +89,17 @@ import com.luna.data.json.ModType;
 import com.luna.data.json.Version;
 import com.luna.data.minecraft.ArgumentRule;
 import com.luna.data.minecraft.Arguments;
-import com.luna.data.minecraft.AssetIndex;
+import com.luna.data.minecraft.CompactAssetIndex;
 import com.luna.data.minecraft.Download;
 import com.luna.data.minecraft.Downloads;
-import com.luna.data.minecraft.FabricMod;
 import com.luna.data.minecraft.JavaRuntime;
 import com.luna.data.minecraft.JavaRuntimeManifest;
 import com.luna.data.minecraft.JavaRuntimeManifestFileType;
 import com.luna.data.minecraft.JavaRuntimes;
 import com.luna.data.minecraft.Library;
 import com.luna.data.minecraft.LoggingFile;
-import com.luna.data.minecraft.MCMod;
 import com.luna.data.minecraft.MinecraftVersion;
+import com.luna.data.minecraft.ModMetadata;
 import com.luna.data.minecraft.MojangAssetIndex;
 import com.luna.data.minecraft.MojangDownload;
 import com.luna.data.minecraft.MojangDownloads;
@@ -129,15 +131,20 @@ import com.luna.managers.MinecraftManager;
 import com.luna.managers.ServerManager;
 import com.luna.network.Analytics;
 import com.luna.network.DownloadPool;
+import com.luna.network.DownloadScheduler;
 import com.luna.network.ErrorReporting;
 import com.luna.network.GraphqlClient;
+import com.luna.network.HostStats;
+import com.luna.network.ProgressAggregator;
 import com.luna.network.analytics.AnalyticsEvent;
 import com.luna.utils.ArchiveUtils;
+import com.luna.utils.ContentStore;
 import com.luna.utils.CurseForgeApi;
 import com.luna.utils.FTBApi;
 import com.luna.utils.FileUtils;
 import com.luna.utils.Hashing;
 import com.luna.utils.Java;
+import com.luna.utils.ModIntrospector;
 import com.luna.utils.ModrinthApi;
 import com.luna.utils.OS;
 import com.luna.utils.Pair;
@@ -152,8 +159,7 @@ import okhttp3.OkHttpClient;
 public class InstanceInstaller extends SwingWorker<Boolean, Void> implements NetworkProgressable {
     protected double percent = 0.0; // Percent done installing
     protected double subPercent = 0.0; // Percent done sub installing
-    protected double totalBytes = 0; // Total number of bytes to download
-    protected double downloadedBytes = 0; // Total number of bytes downloaded
+    protected final ProgressAggregator downloadProgress = new ProgressAggregator(this::updateProgressBar);
 
     public Instance instance = null;
     public final String name;
@@ -192,6 +198,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     public List<Mod> selectedMods;
     public List<Mod> unselectedMods = new ArrayList<>();
     public List<DisableableMod> modsInstalled = new ArrayList<>();
+    private final Set<Mod> installedMods = ConcurrentHashMap.newKeySet();
+    private final List<CompletableFuture<Void>> pendingModInstalls = Collections.synchronizedList(new ArrayList<>());
 
     public boolean assetsMapToResources = false;
 
@@ -2371,23 +2379,11 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         DisableableMod mod = new DisableableMod();
 
         mod.optional = true;
-        mod.name = p.getFileName().toString();
-        mod.version = "Unknown";
-        mod.description = null;
-
-        MCMod mcMod = Utils.getMCModForFile(p.toFile());
-        if (mcMod != null) {
-            mod.name = Optional.ofNullable(mcMod.name).orElse(p.getFileName().toString());
-            mod.version = Optional.ofNullable(mcMod.version).orElse("Unknown");
-            mod.description = Optional.ofNullable(mcMod.description).orElse(null);
-        } else {
-            FabricMod fabricMod = Utils.getFabricModForFile(p.toFile());
-            if (fabricMod != null) {
-                mod.name = Optional.ofNullable(fabricMod.name).orElse(p.getFileName().toString());
-                mod.version = Optional.ofNullable(fabricMod.version).orElse("Unknown");
-                mod.description = Optional.ofNullable(fabricMod.description).orElse(null);
-            }
-        }
+
+        ModMetadata metadata = ModIntrospector.introspect(p);
+        mod.name = Optional.ofNullable(metadata.name).orElse(p.getFileName().toString());
+        mod.version = Optional.ofNullable(metadata.version).orElse("Unknown");
+        mod.description = metadata.description;
 
         mod.file = p.getFileName().toString();
         mod.type = t;
@@ -2401,67 +2397,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         determineMainClass();
         determineArguments();
 
-        downloadResources();
-        if (isCancelled()) {
-            return false;
-        }
-
-        downloadMinecraft();
-        if (isCancelled()) {
-            return false;
-        }
-
-        downloadLoggingClient();
-        if (isCancelled()) {
-            return false;
-        }
-
-        downloadLibraries();
-        if (isCancelled()) {
-            return false;
-        }
-
-        organiseLibraries();
-        if (isCancelled()) {
-            return false;
-        }
-
-        downloadRuntime();
-        if (isCancelled()) {
-            return false;
-        }
-
-        installLoader();
-        if (isCancelled()) {
-            return false;
-        }
-
-        downloadMods();
-        if (isCancelled()) {
-            return false;
-        }
-
-        installMods();
-        if (isCancelled()) {
-            return false;
-        }
-
-        installLegacyJavaFixer();
-        if (isCancelled()) {
-            return false;
-        }
-
-        runCaseConversion();
-        if (isCancelled()) {
-            return false;
-        }
-
-        runActions();
-        if (isCancelled()) {
-            return false;
-        }
-
-        installConfigs();
+        runInstallSteps();
+        HostStats.logSummary();
         if (isCancelled()) {
             return false;
         }
@@ -2502,6 +2439,58 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         return true;
     }
 
+    /**
+     * Runs the steps of the install which download and install files. Steps which don't depend on each other run at
+     * the same time, with the download progress of all of them shown together in the sub progress bar.
+     */
+    private void runInstallSteps() throws Exception {
+        InstallTaskGraph graph = new InstallTaskGraph(this::isCancelled);
+
+        InstallTaskGraph.Task resources = graph.add(GetText.tr("Downloading Resources"), 5,
+                this::downloadResources);
+        InstallTaskGraph.Task minecraft = graph.add(GetText.tr("Downloading Minecraft"), 5,
+                this::downloadMinecraft);
+        graph.add(GetText.tr("Downloading Logging Client"), 5, this::downloadLoggingClient);
+        InstallTaskGraph.Task libraries = graph.add(GetText.tr("Downloading Libraries"), 5,
+                this::downloadLibraries);
+        InstallTaskGraph.Task organiseLibraries = graph.add(GetText.tr("Organising Libraries"), 5,
+                this::organiseLibraries, libraries);
+        InstallTaskGraph.Task runtime = graph.add(GetText.tr("Downloading Java Runtime {0}",
+                minecraftVersion.javaVersion == null ? "" : minecraftVersion.javaVersion.majorVersion), 5,
+                this::downloadRuntime);
+        InstallTaskGraph.Task loader = graph.add(GetText.tr("Installing Loader (May Take Some Time)"), 5,
+                this::installLoader, minecraft, organiseLibraries, runtime);
+        InstallTaskGraph.Task configsDownload = graph.add(GetText.tr("Downloading Configs"), 0,
+                this::downloadConfigs);
+        InstallTaskGraph.Task modsDownload = graph.add(GetText.tr("Downloading Mods"), 25, this::downloadMods);
+        InstallTaskGraph.Task modsInstall = graph.add(GetText.tr("Installing Mods"), 25, this::installMods,
+                modsDownload);
+        // #. {0} is the name of a mod we're installing
+        InstallTaskGraph.Task legacyJavaFixer = graph.add(GetText.tr("Installing {0}", "Legacy Java Fixer"), 5,
+                this::installLegacyJavaFixer, modsInstall);
+        InstallTaskGraph.Task caseConversion = graph.add(GetText.tr("Converting File Names"), 5,
+                this::runCaseConversion, legacyJavaFixer);
+        InstallTaskGraph.Task actions = graph.add(GetText.tr("Executing Actions"), 5, this::runActions,
+                caseConversion, loader);
+        graph.add(GetText.tr("Installing Configs"), 5, this::installConfigs, actions, configsDownload, resources);
+
+        graph.onRunningChanged(running -> {
+            if (running.size() == 1) {
+                fireTask(running.get(0));
+            } else if (running.size() > 1) {
+                // #. {0} is the step of the install that started last, {1} is how many other steps are running
+                fireTask(GetText.tr("{0} (+{1} more)", running.get(running.size() - 1), running.size() - 1));
+            }
+        }).onTaskFinished(task -> addPercent(task.weight));
+
+        downloadProgress.setTotalBytes(0);
+        fireSubProgressUnknown();
+
+        graph.run();
+
+        hideSubProgressBar();
+    }
+
     private void cleanDirectories() {
         if (technicModpack != null) {
             Path binPath = this.root.resolve("bin");
@@ -2776,89 +2765,69 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     protected void downloadResources() throws Exception {
-        addPercent(5);
-
         if (this.isServer || this.minecraftVersion.assetIndex == null) {
             return;
         }
 
-        fireTask(GetText.tr("Organising Resources"));
-        fireSubProgressUnknown();
-        this.totalBytes = this.downloadedBytes = 0;
-
         MojangAssetIndex assetIndex = this.minecraftVersion.assetIndex;
 
-        AssetIndex index = com.luna.network.Download.build().setUrl(assetIndex.url).hash(assetIndex.sha1)
-                .size(assetIndex.size).downloadTo(FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json"))
-                .asClass(AssetIndex.class);
+        OkHttpClient httpClient = Network.createProgressClient(this);
+        CompactAssetIndex index = CompactAssetIndex.get(assetIndex, httpClient);
 
         if (index.mapToResources) {
             this.assetsMapToResources = true;
         }
 
-        OkHttpClient httpClient = Network.createProgressClient(this);
-        DownloadPool pool = new DownloadPool();
+        boolean copyToInstance = index.mapToResources || assetIndex.id.equalsIgnoreCase("legacy");
+        int[] missingObjects = index.findMissingObjects();
 
-        index.objects.forEach((key, object) -> {
-            String filename = object.hash.substring(0, 2) + "/" + object.hash;
-            String url = String.format("%s/%s", Constants.MINECRAFT_RESOURCES, filename);
+        // anything already downloaded can be copied to the instance straight away, and the rest as they download
+        if (copyToInstance) {
+            BitSet missing = new BitSet(index.getObjectCount());
+            Arrays.stream(missingObjects).forEach(missing::set);
 
-            com.luna.network.Download download = new com.luna.network.Download().setUrl(url)
-                    .downloadTo(FileSystem.RESOURCES_OBJECTS.resolve(filename)).hash(object.hash).size(object.size)
-                    .withInstanceInstaller(this).withHttpClient(httpClient).withFriendlyFileName(key);
-
-            pool.add(download);
-        });
-
-        DownloadPool smallPool = pool.downsize();
+            for (int object = missing.nextClearBit(0); object < index.getObjectCount(); object = missing
+                    .nextClearBit(object + 1)) {
+                index.copyToInstance(object, this.root);
+            }
+        }
 
-        if (smallPool.size() != 0) {
-            fireTask(GetText.tr("Downloading Resources"));
-            this.setTotalBytes(smallPool.totalSize());
-            this.fireSubProgress(0);
-            smallPool.downloadAll();
+        if (missingObjects.length == 0) {
+            return;
         }
 
-        // copy resources to instance
-        if (index.mapToResources || assetIndex.id.equalsIgnoreCase("legacy")) {
-            fireTask(GetText.tr("Organising Resources"));
-            fireSubProgressUnknown();
+        DownloadPool pool = new DownloadPool(DownloadScheduler.Priority.LOW);
 
-            index.objects.forEach((key, object) -> {
-                String filename = object.hash.substring(0, 2) + "/" + object.hash;
+        for (int object : missingObjects) {
+            com.luna.network.Download download = index.createDownload(object).withInstanceInstaller(this)
+                    .withHttpClient(httpClient);
 
-                Path downloadedFile = FileSystem.RESOURCES_OBJECTS.resolve(filename);
-                Path assetPath = index.mapToResources ? this.root.resolve("resources/" + key)
-                        : FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key);
+            if (copyToInstance) {
+                download = download.afterDownload(() -> index.copyToInstance(object, this.root));
+            }
 
-                if (!Files.exists(assetPath)) {
-                    FileUtils.copyFile(downloadedFile, assetPath, true);
-                }
-            });
+            pool.add(download);
         }
 
-        hideSubProgressBar();
+        addBytesToDownload(index.getTotalSize(missingObjects));
+        pool.downloadAll();
     }
 
     private void downloadMinecraft() throws Exception {
-        addPercent(5);
-        fireTask(GetText.tr("Downloading Minecraft"));
-        fireSubProgressUnknown();
-        totalBytes = 0;
-        downloadedBytes = 0;
-
         MojangDownloads downloads = this.minecraftVersion.downloads;
 
         MojangDownload mojangDownload = this.isServer ? downloads.server : downloads.client;
 
-        setTotalBytes(mojangDownload.size);
-
-        com.luna.network.Download.build().setUrl(mojangDownload.url).hash(mojangDownload.sha1)
-                .size(mojangDownload.size).downloadTo(getMinecraftJarLibrary().toPath())
+        com.luna.network.Download download = com.luna.network.Download.build().setUrl(mojangDownload.url)
+                .hash(mojangDownload.sha1).size(mojangDownload.size).downloadTo(getMinecraftJarLibrary().toPath())
                 .copyTo(this.isServer ? getMinecraftJar().toPath() : null).withInstanceInstaller(this)
-                .withHttpClient(Network.createProgressClient(this)).downloadFile();
+                .withHttpClient(Network.createProgressClient(this));
 
-        hideSubProgressBar();
+        if (download.needToDownload()) {
+            addBytesToDownload(mojangDownload.size);
+        }
+
+        download.downloadFile();
     }
 
     public File getMinecraftJar() {
@@ -2878,23 +2847,22 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void downloadLoggingClient() throws Exception {
-        addPercent(5);
-
         if (this.isServer || this.minecraftVersion.logging == null) {
             return;
         }
 
-        fireTask(GetText.tr("Downloading Logging Client"));
-        fireSubProgressUnknown();
-
         LoggingFile loggingFile = this.minecraftVersion.logging.client.file;
-        setTotalBytes(loggingFile.size);
 
-        com.luna.network.Download.build().setUrl(loggingFile.url).hash(loggingFile.sha1)
-                .size(loggingFile.size).downloadTo(FileSystem.RESOURCES_LOG_CONFIGS.resolve(loggingFile.id))
-                .withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this)).downloadFile();
+        com.luna.network.Download download = com.luna.network.Download.build().setUrl(loggingFile.url)
+                .hash(loggingFile.sha1).size(loggingFile.size)
+                .downloadTo(FileSystem.RESOURCES_LOG_CONFIGS.resolve(loggingFile.id)).withInstanceInstaller(this)
+                .withHttpClient(Network.createProgressClient(this));
 
-        hideSubProgressBar();
+        if (download.needToDownload()) {
+            addBytesToDownload(loggingFile.size);
+        }
+
+        download.downloadFile();
     }
 
     private List<Library> getLibraries() {
@@ -2999,12 +2967,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void downloadLibraries() {
-        addPercent(5);
-        fireTask(GetText.tr("Downloading Libraries"));
-        fireSubProgressUnknown();
-
         OkHttpClient httpClient = Network.createProgressClient(this);
-        DownloadPool pool = new DownloadPool();
+        DownloadPool pool = new DownloadPool(DownloadScheduler.Priority.HIGH);
 
         // get non native libraries otherwise we double up
         this.getLibraries().stream().filter(
@@ -3043,19 +3007,12 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
         DownloadPool smallPool = pool.downsize();
 
-        this.setTotalBytes(smallPool.totalSize());
-        this.fireSubProgress(0);
+        addBytesToDownload(smallPool.totalSize());
 
         smallPool.downloadAll();
-
-        hideSubProgressBar();
     }
 
     private void organiseLibraries() {
-        addPercent(5);
-        fireTask(GetText.tr("Organising Libraries"));
-        fireSubProgressUnknown();
-
         if (isServer) {
             this.getLibraries().stream().filter(Library::shouldInstall)
                     .filter(library -> library.downloads.artifact != null).forEach(library -> {
@@ -3092,13 +3049,9 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 }
             }
         }
-
-        hideSubProgressBar();
     }
 
     private void downloadRuntime() {
-        addPercent(5);
-
         if (minecraftVersion.javaVersion == null || Data.JAVA_RUNTIMES == null
                 || !App.settings.useJavaProvidedByMinecraft) {
             return;
@@ -3109,9 +3062,6 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
         if (runtimesForSystem.containsKey(minecraftVersion.javaVersion.component)
                 && runtimesForSystem.get(minecraftVersion.javaVersion.component).size() != 0) {
-            fireTask(GetText.tr("Downloading Java Runtime {0}", minecraftVersion.javaVersion.majorVersion));
-            fireSubProgressUnknown();
-
             JavaRuntime runtimeToDownload = runtimesForSystem.get(minecraftVersion.javaVersion.component).get(0);
 
             try {
@@ -3140,9 +3090,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 // collect the files we need to download
                 javaRuntimeManifest.files.forEach((key, file) -> {
                     if (file.type == JavaRuntimeManifestFileType.FILE) {
-                        com.luna.network.Download download = new com.luna.network.Download()
-                                .setUrl(file.downloads.raw.url).downloadTo(runtimeDirectory.resolve(key))
-                                .hash(file.downloads.raw.sha1).size(file.downloads.raw.size).executable(file.executable)
+                        com.luna.network.Download download = file.createDownload(runtimeDirectory.resolve(key))
                                 .withInstanceInstaller(this).withHttpClient(httpClient);
 
                         pool.add(download);
@@ -3151,8 +3099,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
                 DownloadPool smallPool = pool.downsize();
 
-                this.setTotalBytes(smallPool.totalSize());
-                this.fireSubProgress(0);
+                addBytesToDownload(smallPool.totalSize());
 
                 smallPool.downloadAll();
 
@@ -3162,8 +3109,6 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                         runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
                 // Files.write(runtimeSystemDirectory.resolve(minecraftVersion.javaVersion.component
                 // + ".sha1"), runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
-
-                hideSubProgressBar();
             } catch (IOException e) {
                 LogManager.logStackTrace("Failed to download Java runtime", e);
             }
@@ -3171,31 +3116,19 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void installLoader() {
-        addPercent(5);
-
         if (this.loader == null) {
             return;
         }
 
-        fireTask(GetText.tr("Installing Loader (May Take Some Time)"));
-        fireSubProgressUnknown();
-
         // run any processors that the loader needs
         this.loader.runProcessors();
-
-        hideSubProgressBar();
     }
 
     private void downloadMods() throws Exception {
-        addPercent(25);
-
         if (multiMCManifest != null || selectedMods.size() == 0) {
             return;
         }
 
-        fireTask(GetText.tr("Downloading Mods"));
-        fireSubProgressUnknown();
-
         OkHttpClient httpClient = Network.createProgressClient(this);
         DownloadPool pool = new DownloadPool();
 
@@ -3218,18 +3151,21 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 download = download.fingerprint(mod.fingerprint);
             }
 
+            // servers install some mods from a different file, so those are left until all mods are downloaded
+            if (!this.isServer || mod.serverUrl == null) {
+                download = download.afterDownload(() -> pendingModInstalls
+                        .add(CompletableFuture.runAsync(() -> installMod(mod))));
+            }
+
             pool.add(download);
         });
 
         DownloadPool smallPool = pool.downsize();
 
-        this.setTotalBytes(smallPool.totalSize());
-        this.fireSubProgress(0);
+        addBytesToDownload(smallPool.totalSize());
 
         smallPool.downloadAll();
 
-        fireSubProgressUnknown();
-
         List<Mod> browserDownloadMods = this.selectedMods.stream().filter(mod -> mod.download == DownloadType.browser)
                 .collect(Collectors.toList());
         if (browserDownloadMods.size() != 0) {
@@ -3279,28 +3215,30 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 }
             }
         }
-
-        hideSubProgressBar();
     }
 
     private void installMods() {
-        addPercent(25);
-
         if (multiMCManifest != null || this.selectedMods.size() == 0) {
             return;
         }
 
-        fireTask(GetText.tr("Installing Mods"));
-        fireSubProgressUnknown();
+        // most mods are installed as soon as they've downloaded, so wait for those and then install any that weren't
+        // (such as browser downloads)
+        List<CompletableFuture<Void>> pending;
+        synchronized (pendingModInstalls) {
+            pending = new ArrayList<>(pendingModInstalls);
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
 
-        double subPercentPerMod = 100.0 / this.selectedMods.size();
+        this.selectedMods.parallelStream().forEach(this::installMod);
 
-        this.selectedMods.parallelStream().forEach(mod -> {
-            mod.install(this);
-            addSubPercent(subPercentPerMod);
-        });
+        ContentStore.saveIfDirty();
+    }
 
-        hideSubProgressBar();
+    private void installMod(Mod mod) {
+        if (!isCancelled() && installedMods.add(mod)) {
+            mod.install(this);
+        }
     }
 
     private void downloadTechnicSolderMods() {
@@ -3374,17 +3312,11 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void installLegacyJavaFixer() {
-        addPercent(5);
-
         if ((this.technicModpack == null && this.allMods.size() == 0)
                 || !Utils.matchVersion(minecraftVersion.id, "1.6", true, true)) {
             return;
         }
 
-        // #. {0} is the name of a mod we're installing
-        fireTask(GetText.tr("Installing {0}", "Legacy Java Fixer"));
-        fireSubProgressUnknown();
-
         com.luna.network.Download download = com.luna.network.Download.build()
                 .setUrl(Constants.LEGACY_JAVA_FIXER_URL).hash(Constants.LEGACY_JAVA_FIXER_MD5)
                 .downloadTo(FileSystem.DOWNLOADS.resolve("legacyjavafixer-1.0.jar"))
@@ -3413,13 +3345,9 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         mod.description = "Fixes issues with newer Java versions on Minecraft 1.6 and below";
 
         this.modsInstalled.add(mod);
-
-        hideSubProgressBar();
     }
 
     private void runCaseConversion() throws Exception {
-        addPercent(5);
-
         if (this.packVersion.caseAllFiles == null) {
             return;
         }
@@ -3429,8 +3357,6 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void runActions() {
-        addPercent(5);
-
         if (this.packVersion.actions == null || this.packVersion.actions.size() == 0) {
             return;
         }
@@ -3441,8 +3367,6 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     private void installConfigs() throws Exception {
-        addPercent(5);
-
         if (this.packVersion.noConfigs) {
             return;
         }
@@ -3512,8 +3436,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
             DownloadPool smallPool = pool.downsize();
 
-            this.setTotalBytes(smallPool.totalSize());
-            this.fireSubProgress(0);
+            addBytesToDownload(smallPool.totalSize());
 
             smallPool.downloadAll();
         } else if (multiMCManifest != null) {
@@ -3531,22 +3454,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 Utils.copyDirectory(this.technicModpackExtractedPath.toFile(), this.root.toFile(), false);
             }
         } else if (!pack.vanillaInstance) {
-            fireTask(GetText.tr("Downloading Configs"));
-
+            // downloaded alongside everything else in downloadConfigs
             File configs = this.temp.resolve("Configs.zip").toFile();
-            String path = "packs/" + pack.getSafeName() + "/versions/" + version.version + "/Configs.zip";
-
-            com.luna.network.Download configsDownload = com.luna.network.Download.build()
-                    .setUrl(String.format("%s/%s", Constants.DOWNLOAD_SERVER, path)).downloadTo(configs.toPath())
-                    .size(this.packVersion.configs.filesize).hash(this.packVersion.configs.sha1)
-                    .withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this));
-
-            this.setTotalBytes(configsDownload.getFilesize());
-            configsDownload.downloadFile();
-
-            if (!configs.exists()) {
-                throw new Exception("Failed to download configs for pack!");
-            }
 
             // file is empty, so don't try to extract
             if (configs.length() == 0L) {
@@ -3561,6 +3470,35 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         }
     }
 
+    /**
+     * Downloads the Configs.zip for packs that have one, so it's ready to be extracted once the mods are installed.
+     */
+    private void downloadConfigs() throws Exception {
+        if (this.packVersion.noConfigs || curseForgeManifest != null || modrinthManifest != null
+                || ftbPackManifest != null || multiMCManifest != null || technicModpack != null
+                || pack.vanillaInstance) {
+            return;
+        }
+
+        File configs = this.temp.resolve("Configs.zip").toFile();
+        String path = "packs/" + pack.getSafeName() + "/versions/" + version.version + "/Configs.zip";
+
+        com.luna.network.Download configsDownload = com.luna.network.Download.build()
+                .setUrl(String.format("%s/%s", Constants.DOWNLOAD_SERVER, path)).downloadTo(configs.toPath())
+                .size(this.packVersion.configs.filesize).hash(this.packVersion.configs.sha1)
+                .withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this));
+
+        if (configsDownload.needToDownload()) {
+            addBytesToDownload(configsDownload.getFilesize());
+        }
+
+        configsDownload.downloadFile();
+
+        if (!configs.exists()) {
+            throw new Exception("Failed to download configs for pack!");
+        }
+    }
+
     private void downloadImage() throws Exception {
         addPercent(5);
 
@@ -4297,10 +4235,12 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     }
 
     public void fireSubProgressUnknown() {
+        // make sure a sample that was waiting to go out doesn't show the progress again after this
+        downloadProgress.flush();
         firePropertyChange("subprogressint", null, null);
     }
 
-    protected void addPercent(double percent) {
+    protected synchronized void addPercent(double percent) {
         this.percent = this.percent + percent;
         if (this.percent > 100.0) {
             this.percent = 100.0;
@@ -4330,40 +4270,42 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
     @Override
     public void setTotalBytes(long bytes) {
-        this.downloadedBytes = 0L;
-        this.totalBytes = bytes;
-        this.updateProgressBar();
+        downloadProgress.setTotalBytes(bytes);
     }
 
     @Override
     public void addDownloadedBytes(long bytes) {
-        this.downloadedBytes += bytes;
-        this.updateProgressBar();
+        downloadProgress.addDownloadedBytes(bytes);
     }
 
     @Override
     public void addBytesToDownload(long bytes) {
-        this.totalBytes += bytes;
-        this.updateProgressBar();
+        downloadProgress.addBytesToDownload(bytes);
     }
 
-    private void updateProgressBar() {
-        double progress;
-        if (this.totalBytes > 0) {
-            progress = (this.downloadedBytes / this.totalBytes) * 100.0;
-        } else {
-            progress = 0.0;
+    private void updateProgressBar(ProgressAggregator.Snapshot progress) {
+        double done = progress.downloadedBytes / 1024.0 / 1024.0;
+        double toDo = progress.totalBytes / 1024.0 / 1024.0;
+
+        String speed = "";
+        if (progress.bytesPerSecond > 0) {
+            long secondsRemaining = progress.getSecondsRemaining();
+            speed = secondsRemaining == -1 ? String.format(" (%s)", progress.getSpeedText())
+                    : String.format(" (%s, %s)", progress.getSpeedText(),
+                            // #. {0} is the number of seconds until the download is finished
+                            GetText.tr("{0}s left", secondsRemaining));
         }
-        double done = this.downloadedBytes / 1024.0 / 1024.0;
-        double toDo = this.totalBytes / 1024.0 / 1024.0;
+
         if (done > toDo) {
-            fireSubProgress(100.0, String.format(Locale.ENGLISH, "%.2f MB", done));
+            fireSubProgress(100.0, String.format(Locale.ENGLISH, "%.2f MB", done) + speed);
         } else {
-            fireSubProgress(progress, String.format(Locale.ENGLISH, "%.2f MB / %.2f MB", done, toDo));
+            fireSubProgress(progress.getPercent(),
+                    String.format(Locale.ENGLISH, "%.2f MB / %.2f MB", done, toDo) + speed);
         }
     }
 
     private void hideSubProgressBar() {
+        downloadProgress.flush();
         fireSubProgress(-1);
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+public class InstanceSummaryTest {
+
+    private static InstanceSummary roundTrip(InstanceSummary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            summary.write(out);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return InstanceSummary.read(in);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        InstanceSummary summary = new InstanceSummary();
+        summary.folder = "MyInstance";
+        summary.jsonLastModified = 1234L;
+        summary.jsonSize = 5678L;
+        summary.name = "My Instance";
+        summary.pack = "Some Pack";
+        summary.packId = 42;
+        summary.version = "1.0.0";
+        summary.minecraftVersion = "1.19.2";
+        summary.loaderType = "Forge";
+        summary.loaderVersion = "43.1.1";
+        summary.lastPlayed = Instant.ofEpochMilli(1666000000000L);
+        summary.numPlays = 7;
+
+        InstanceSummary read = roundTrip(summary);
+
+        assertEquals("MyInstance", read.folder);
+        assertEquals(1234L, read.jsonLastModified);
+        assertEquals(5678L, read.jsonSize);
+        assertEquals("My Instance", read.name);
+        assertEquals("Some Pack", read.pack);
+        assertEquals(42, read.packId);
+        assertEquals("1.0.0", read.version);
+        assertEquals("1.19.2", read.minecraftVersion);
+        assertEquals("Forge", read.loaderType);
+        assertEquals("43.1.1", read.loaderVersion);
+        assertEquals(Instant.ofEpochMilli(1666000000000L), read.lastPlayed);
+        assertEquals(7, read.numPlays);
+    }
+
+    @Test
+    public void testRoundTripWithMissingDetails() throws IOException {
+        InstanceSummary summary = new InstanceSummary();
+        summary.folder = "Vanilla";
+
+        InstanceSummary read = roundTrip(summary);
+
+        assertEquals("Vanilla", read.folder);
+        assertNull(read.name);
+        assertNull(read.packId);
+        assertNull(read.loaderType);
+        assertNull(read.lastPlayed);
+        assertEquals(Instant.EPOCH, read.getLastPlayedOrEpoch());
+    }
+}
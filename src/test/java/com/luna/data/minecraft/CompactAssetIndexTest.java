@@ -0,0 +1,102 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.data.minecraft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompactAssetIndexTest {
+    private static final String SOUND_HASH = "0a0ae0f5b4b7bc7ef4b6b4ef8cc07db2ac5d6e2f";
+    private static final String LANG_HASH = "ffd2b3cb3a9bd2c5a0fef4e55ba3a1f02f2e3cbb";
+
+    @TempDir
+    public Path testStorage;
+
+    private Path writeIndex(String json) throws IOException {
+        Path index = testStorage.resolve("index.json");
+        Files.write(index, json.getBytes(StandardCharsets.UTF_8));
+        return index;
+    }
+
+    private Path writeExampleIndex() throws IOException {
+        return writeIndex("{\"objects\": {"
+                + "\"minecraft/sounds/ambient/cave/cave1.ogg\": {\"hash\": \"" + SOUND_HASH + "\", \"size\": 12},"
+                + "\"minecraft/lang/en_us.json\": {\"hash\": \"" + LANG_HASH + "\", \"size\": 3},"
+                + "\"sound/ambient/cave/cave1.ogg\": {\"hash\": \"" + SOUND_HASH + "\", \"size\": 12}"
+                + "}, \"map_to_resources\": true, \"unknown\": [1, 2]}");
+    }
+
+    @Test
+    public void testReadsObjectsOncePerHash() throws IOException {
+        CompactAssetIndex index = CompactAssetIndex.read(writeExampleIndex(), "indexhash");
+
+        assertTrue(index.mapToResources);
+        assertFalse(index.virtual);
+        assertEquals(2, index.getObjectCount());
+        assertEquals(3, index.getKeyCount());
+
+        assertEquals(SOUND_HASH, index.getHash(0));
+        assertEquals(12, index.getSize(0));
+        assertEquals(Arrays.asList("minecraft/sounds/ambient/cave/cave1.ogg", "sound/ambient/cave/cave1.ogg"),
+                index.getKeys(0));
+
+        assertEquals(LANG_HASH, index.getHash(1));
+        assertEquals(3, index.getSize(1));
+        assertEquals(Arrays.asList("minecraft/lang/en_us.json"), index.getKeys(1));
+        assertEquals(15, index.getTotalSize(new int[] { 0, 1 }));
+    }
+
+    @Test
+    public void testCacheRoundTrip() throws IOException {
+        CompactAssetIndex index = CompactAssetIndex.read(writeExampleIndex(), "indexhash");
+        Path cachePath = testStorage.resolve("cache/index.bin");
+
+        CompactAssetIndex.writeCache(cachePath, index);
+        CompactAssetIndex cached = CompactAssetIndex.readCache(cachePath, "indexhash");
+
+        assertEquals(index.getObjectCount(), cached.getObjectCount());
+        assertTrue(cached.mapToResources);
+        for (int i = 0; i < index.getObjectCount(); i++) {
+            assertEquals(index.getHash(i), cached.getHash(i));
+            assertEquals(index.getSize(i), cached.getSize(i));
+            assertEquals(index.getKeys(i), cached.getKeys(i));
+        }
+
+        // a cache for a different version of the index isn't used
+        assertNull(CompactAssetIndex.readCache(cachePath, "otherhash"));
+    }
+
+    @Test
+    public void testInvalidHashIsRejected() throws IOException {
+        Path indexPath = writeIndex("{\"objects\": {\"a\": {\"hash\": \"not a hash\", \"size\": 1}}}");
+
+        assertThrows(IOException.class, () -> CompactAssetIndex.read(indexPath, "indexhash"));
+    }
+}
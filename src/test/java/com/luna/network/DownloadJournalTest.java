@@ -0,0 +1,152 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class DownloadJournalTest {
+    private static final String URL = "https://example.com/pack.zip";
+    private static final String HASH = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+
+    @TempDir
+    public Path testStorage;
+
+    private static Response response(int code, String etag, String lastModified) {
+        Response.Builder builder = new Response.Builder().request(new Request.Builder().url(URL).build())
+                .protocol(Protocol.HTTP_1_1).code(code).message("OK");
+
+        if (etag != null) {
+            builder.header("ETag", etag);
+        }
+
+        if (lastModified != null) {
+            builder.header("Last-Modified", lastModified);
+        }
+
+        return builder.build();
+    }
+
+    private DownloadJournal open(long size, String hash) {
+        return DownloadJournal.open(testStorage.resolve("partial"), testStorage.resolve("pack.zip"), URL, size, hash);
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        channel.write(ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    public void testResumesFromLastCheckpoint() throws IOException {
+        DownloadJournal journal = open(10, HASH);
+        assertEquals(0L, journal.getResumeFrom());
+
+        try (FileChannel channel = journal.start(response(200, "\"abc\"", null), 0L)) {
+            write(channel, new byte[] { 1, 2, 3, 4 });
+            journal.checkpoint(channel, 4L);
+
+            // written but not checkpointed, so it's not trusted
+            write(channel, new byte[] { 5, 6 });
+        }
+
+        // as if the launcher was restarted
+        DownloadJournal reopened = open(10, HASH);
+        assertEquals(4L, reopened.getResumeFrom());
+        assertEquals("\"abc\"", reopened.getIfRange());
+
+        try (FileChannel channel = reopened.start(response(206, null, null), 4L)) {
+            write(channel, new byte[] { 5, 6, 7, 8, 9, 10 });
+            reopened.checkpoint(channel, 10L);
+        }
+
+        Path to = testStorage.resolve("pack.zip");
+        reopened.complete(to);
+
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }, Files.readAllBytes(to));
+        assertFalse(Files.exists(reopened.getPartialPath()));
+        assertEquals(0L, open(10, HASH).getResumeFrom());
+    }
+
+    @Test
+    public void testDifferentDownloadStartsAgain() throws IOException {
+        DownloadJournal journal = open(10, HASH);
+
+        try (FileChannel channel = journal.start(response(200, "\"abc\"", null), 0L)) {
+            write(channel, new byte[] { 1, 2, 3, 4 });
+            journal.checkpoint(channel, 4L);
+        }
+
+        assertEquals(0L, open(10, "0000000000000000000000000000000000000000").getResumeFrom());
+        assertEquals(0L, open(11, HASH).getResumeFrom());
+    }
+
+    @Test
+    public void testNeedsValidatorToResume() throws IOException {
+        DownloadJournal journal = open(10, HASH);
+
+        try (FileChannel channel = journal.start(response(200, null, null), 0L)) {
+            write(channel, new byte[] { 1, 2, 3, 4 });
+            journal.checkpoint(channel, 4L);
+        }
+
+        // nothing to tell if the file changed on the server, so it can't be resumed safely
+        assertEquals(0L, open(10, HASH).getResumeFrom());
+    }
+
+    @Test
+    public void testWeakEtagUsesLastModified() throws IOException {
+        DownloadJournal journal = open(10, HASH);
+
+        try (FileChannel channel = journal.start(response(200, "W/\"abc\"", "Wed, 21 Oct 2015 07:28:00 GMT"),
+                0L)) {
+            write(channel, new byte[] { 1, 2 });
+            journal.checkpoint(channel, 2L);
+        }
+
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", open(10, HASH).getIfRange());
+    }
+
+    @Test
+    public void testWeakEtagAloneCantResume() throws IOException {
+        DownloadJournal journal = open(10, HASH);
+
+        try (FileChannel channel = journal.start(response(200, "W/\"abc\"", null), 0L)) {
+            write(channel, new byte[] { 1, 2 });
+            journal.checkpoint(channel, 2L);
+        }
+
+        // a weak ETag can't be sent in If-Range, so there's nothing to resume with
+        DownloadJournal reopened = open(10, HASH);
+        assertNull(reopened.getIfRange());
+        assertEquals(0L, reopened.getResumeFrom());
+    }
+}
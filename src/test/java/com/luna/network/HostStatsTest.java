@@ -0,0 +1,81 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class HostStatsTest {
+    private ClientAndServer mockServer;
+
+    @BeforeEach
+    public void setUp() {
+        mockServer = ClientAndServer.startClientAndServer(PortFactory.findFreePort());
+        mockServer.when(HttpRequest.request().withPath("/ok"))
+                .respond(HttpResponse.response().withStatusCode(200).withBody("ok"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockServer.stop();
+    }
+
+    private static void get(OkHttpClient httpClient, String url) throws IOException {
+        try (Response response = httpClient.newCall(new Request.Builder().url(url).build()).execute()) {
+            response.body().string();
+        }
+    }
+
+    @Test
+    public void testCountsConnectionsAndCalls() throws IOException {
+        OkHttpClient httpClient = new OkHttpClient.Builder().eventListenerFactory(HostStats.FACTORY).build();
+        String url = "http://127.0.0.1:" + mockServer.getPort() + "/ok";
+        HostStats.Stats stats = HostStats.get("127.0.0.1");
+        long calls = stats.getCalls();
+        long opened = stats.getConnectionsOpened();
+        long reused = stats.getConnectionsReused();
+
+        get(httpClient, url);
+        get(httpClient, url);
+        get(httpClient, url);
+
+        // the connection from the first call is kept open and used for the rest
+        assertEquals(calls + 3, stats.getCalls());
+        assertEquals(opened + 1, stats.getConnectionsOpened());
+        assertEquals(reused + 2, stats.getConnectionsReused());
+        assertEquals(Protocol.HTTP_1_1, stats.getProtocol());
+        assertFalse(HostStats.isMultiplexed("127.0.0.1"));
+        assertTrue(HostStats.getAll().containsKey("127.0.0.1"));
+    }
+}
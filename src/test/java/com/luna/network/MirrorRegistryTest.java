@@ -0,0 +1,181 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class MirrorRegistryTest {
+    private static final String BASE = "https://resources.example.com";
+    private static final String MIRROR = "https://mirror.example.net/resources";
+    private static final String URL = BASE + "/ab/abcdef";
+
+    @TempDir
+    public Path testStorage;
+
+    private ClientAndServer mockServer;
+
+    @BeforeEach
+    public void setUp() {
+        MirrorRegistry.reset();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        MirrorRegistry.reset();
+
+        if (mockServer != null) {
+            mockServer.stop();
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void testUrlWithoutMirrorsIsUsedAsIs() {
+        assertEquals(Collections.singletonList(URL), MirrorRegistry.getCandidates(URL, 1024));
+
+        // similar looking hosts aren't mirrored
+        MirrorRegistry.setMirrors(BASE, Collections.singletonList(MIRROR));
+        String other = "https://resources.example.com.evil.test/ab/abcdef";
+        assertEquals(Collections.singletonList(other), MirrorRegistry.getCandidates(other, 1024));
+    }
+
+    @Test
+    public void testUsualBaseIsTriedFirstUntilAMirrorIsFaster() {
+        MirrorRegistry.setMirrors(BASE + "/", Collections.singletonList(MIRROR + "/"));
+
+        assertEquals(Arrays.asList(URL, MIRROR + "/ab/abcdef"), MirrorRegistry.getCandidates(URL, 1024));
+
+        MirrorRegistry.recordResponse(URL, 200, millis(200), null);
+        MirrorRegistry.recordResponse(MIRROR + "/ab/abcdef", 200, millis(20), null);
+
+        assertEquals(Arrays.asList(MIRROR + "/ab/abcdef", URL), MirrorRegistry.getCandidates(URL, 1024));
+    }
+
+    @Test
+    public void testThroughputMattersForLargeFiles() {
+        MirrorRegistry.setMirrors(BASE, Collections.singletonList(MIRROR));
+        MirrorRegistry.recordResponse(URL, 200, millis(20), null);
+        MirrorRegistry.recordResponse(MIRROR + "/ab/abcdef", 200, millis(80), null);
+        MirrorRegistry.recordTransfer(URL, 10 * 1024 * 1024, TimeUnit.SECONDS.toNanos(10));
+        MirrorRegistry.recordTransfer(MIRROR + "/ab/abcdef", 10 * 1024 * 1024, TimeUnit.SECONDS.toNanos(1));
+
+        // lower latency wins for small files, but more bandwidth wins for big ones
+        assertEquals(URL, MirrorRegistry.getCandidates(URL, 1024).get(0));
+        assertEquals(MIRROR + "/ab/abcdef", MirrorRegistry.getCandidates(URL, 50 * 1024 * 1024).get(0));
+    }
+
+    @Test
+    public void testRateLimitedBaseIsTriedLast() {
+        MirrorRegistry.setMirrors(BASE, Collections.singletonList(MIRROR));
+        MirrorRegistry.recordResponse(URL, 200, millis(10), null);
+        MirrorRegistry.recordResponse(MIRROR + "/ab/abcdef", 200, millis(100), null);
+
+        MirrorRegistry.recordResponse(URL, 429, millis(10), "120");
+
+        assertEquals(Arrays.asList(MIRROR + "/ab/abcdef", URL), MirrorRegistry.getCandidates(URL, 1024));
+
+        // the Retry-After is respected even though it's longer than the usual cooldown
+        MirrorRegistry.Score score = MirrorRegistry.getScores().get(BASE);
+        assertTrue(score.isCoolingDown(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(100)));
+        assertFalse(score.isCoolingDown(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(130)));
+    }
+
+    @Test
+    public void testMissingFileIsNotHeldAgainstBase() {
+        MirrorRegistry.setMirrors(BASE, Collections.singletonList(MIRROR));
+
+        MirrorRegistry.recordResponse(URL, 404, millis(10), null);
+
+        assertFalse(MirrorRegistry.getScores().get(BASE).isCoolingDown(System.currentTimeMillis()));
+        assertEquals(URL, MirrorRegistry.getCandidates(URL, 1024).get(0));
+    }
+
+    @Test
+    public void testLoadsMirrorsFromConfig() throws IOException {
+        Path config = testStorage.resolve("mirrors.json");
+        Files.write(config, ("{\"" + BASE + "/\": [\"" + MIRROR + "/\"]}").getBytes(StandardCharsets.UTF_8));
+
+        MirrorRegistry.load(config);
+
+        assertEquals(Collections.singletonList(MIRROR), MirrorRegistry.getMirrors().get(BASE));
+        assertEquals(Arrays.asList(URL, MIRROR + "/ab/abcdef"), MirrorRegistry.getCandidates(URL, 1024));
+    }
+
+    @Test
+    public void testFailsOverToMirrorWhenRateLimited() throws IOException {
+        mockServer = ClientAndServer.startClientAndServer(PortFactory.findFreePort());
+        mockServer.when(HttpRequest.request().withPath("/usual/file.jar"))
+                .respond(HttpResponse.response().withStatusCode(429).withHeader("Retry-After", "60"));
+        mockServer.when(HttpRequest.request().withPath("/mirror/file.jar"))
+                .respond(HttpResponse.response().withStatusCode(200).withBody("jar"));
+
+        String base = "http://localhost:" + mockServer.getPort() + "/usual";
+        String mirror = "http://localhost:" + mockServer.getPort() + "/mirror";
+        MirrorRegistry.setMirrors(base, Collections.singletonList(mirror));
+
+        OkHttpClient httpClient = new OkHttpClient();
+        String body = null;
+
+        // the same as what Download does, trying each candidate until one works
+        for (String candidate : MirrorRegistry.getCandidates(base + "/file.jar", 3)) {
+            long start = System.nanoTime();
+
+            try (Response response = httpClient.newCall(new Request.Builder().url(candidate).build()).execute()) {
+                MirrorRegistry.recordResponse(candidate, response.code(), System.nanoTime() - start,
+                        response.header("Retry-After"));
+
+                if (response.isSuccessful()) {
+                    body = response.body().string();
+                    break;
+                }
+            }
+        }
+
+        assertEquals("jar", body);
+
+        List<String> candidates = MirrorRegistry.getCandidates(base + "/other.jar", 3);
+        assertEquals(Arrays.asList(mirror + "/other.jar", base + "/other.jar"), candidates);
+    }
+}
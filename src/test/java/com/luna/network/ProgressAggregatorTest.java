@@ -0,0 +1,103 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.luna.interfaces.NetworkProgressable;
+
+public class ProgressAggregatorTest {
+    @Test
+    public void testNoBytesAreLostFromManyThreads() throws InterruptedException {
+        AtomicInteger updates = new AtomicInteger();
+        ProgressAggregator progress = new ProgressAggregator(snapshot -> updates.incrementAndGet());
+        progress.setTotalBytes(16 * 100000);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    progress.addDownloadedBytes(1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        progress.flush();
+
+        assertEquals(16 * 100000, progress.getDownloadedBytes());
+
+        // one update for the total being set, then only as many as were sampled rather than one per read
+        assertTrue(updates.get() < 1000);
+    }
+
+    @Test
+    public void testForwardsChangesToProgressable() {
+        RecordingProgressable recording = new RecordingProgressable();
+        ProgressAggregator progress = ProgressAggregator.forwardingTo(recording);
+
+        progress.setTotalBytes(100);
+        progress.addDownloadedBytes(10);
+        progress.addDownloadedBytes(15);
+        progress.addBytesToDownload(50);
+        progress.flush();
+
+        assertEquals(150, recording.total);
+        assertEquals(25, recording.downloaded);
+
+        // starting over resets what was downloaded, including anything not yet passed on
+        progress.addDownloadedBytes(5);
+        progress.setTotalBytes(40);
+        progress.addDownloadedBytes(20);
+        progress.flush();
+
+        assertEquals(40, recording.total);
+        assertEquals(20, recording.downloaded);
+    }
+
+    private static class RecordingProgressable implements NetworkProgressable {
+        private long total = 0;
+        private long downloaded = 0;
+
+        @Override
+        public void setTotalBytes(long bytes) {
+            total = bytes;
+            downloaded = 0;
+        }
+
+        @Override
+        public void addDownloadedBytes(long bytes) {
+            downloaded += bytes;
+        }
+
+        @Override
+        public void addBytesToDownload(long bytes) {
+            total += bytes;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+public class SegmentedDownloadTest {
+    private static final String PATH = "/serverpack.zip";
+
+    @TempDir
+    public Path testStorage;
+
+    private ClientAndServer mockServer;
+    private byte[] file;
+
+    @BeforeEach
+    public void setUp() {
+        mockServer = ClientAndServer.startClientAndServer(PortFactory.findFreePort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockServer.stop();
+    }
+
+    /**
+     * Serves the file, sending back just the range asked for when there's a Range header, like a CDN would.
+     */
+    private void mockFile(int size) {
+        file = new byte[size];
+        new Random(size).nextBytes(file);
+
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath(PATH)).respond(request -> {
+            HttpResponse response = HttpResponse.response().withHeader("Accept-Ranges", "bytes")
+                    .withHeader("ETag", "\"serverpack\"");
+            String range = request.getFirstHeader("Range");
+
+            if (range.isEmpty()) {
+                return response.withStatusCode(200).withBody(BinaryBody.binary(file));
+            }
+
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = bounds.length > 1 ? Integer.parseInt(bounds[1]) : file.length - 1;
+            byte[] body = new byte[end - start + 1];
+            System.arraycopy(file, start, body, 0, body.length);
+
+            return response.withStatusCode(206)
+                    .withHeader("Content-Range", "bytes " + start + "-" + end + "/" + file.length)
+                    .withBody(BinaryBody.binary(body));
+        });
+    }
+
+    private String getUrl() {
+        return "http://localhost:" + mockServer.getPort() + PATH;
+    }
+
+    private Path downloadSegmented(OkHttpClient httpClient) throws IOException {
+        Path to = testStorage.resolve("serverpack.zip");
+        DownloadJournal journal = DownloadJournal.open(testStorage.resolve("partial"), to, getUrl(), file.length,
+                null);
+
+        try (Response response = httpClient.newCall(new Request.Builder().url(getUrl()).build()).execute()) {
+            assertTrue(SegmentedDownload.shouldUse(response, file.length));
+
+            try (FileChannel channel = journal.start(response, 0L)) {
+                new SegmentedDownload(httpClient, response.request(), journal.getIfRange(), channel, file.length)
+                        .run(response, 0L, journal);
+            }
+        }
+
+        journal.complete(to);
+
+        return to;
+    }
+
+    @Test
+    public void testDownloadsFileInSegments() throws IOException {
+        mockFile((int) SegmentedDownload.THRESHOLD + 12345);
+
+        Path downloaded = downloadSegmented(new OkHttpClient());
+
+        assertArrayEquals(file, Files.readAllBytes(downloaded));
+
+        // faster connections may split up what's left of the others, so there can be more requests than segments
+        HttpRequest[] rangeRequests = mockServer
+                .retrieveRecordedRequests(HttpRequest.request().withPath(PATH).withHeader("Range", "bytes=.*"));
+        assertTrue(rangeRequests.length >= SegmentedDownload.MAX_SEGMENTS - 1);
+    }
+
+    @Test
+    public void testFailedSegmentIsPickedUpByOtherConnections() throws IOException {
+        // the server only allows so many connections, so one of the range requests is turned away
+        mockServer.when(HttpRequest.request().withPath(PATH).withHeader("Range", "bytes=[1-9].*"), Times.once())
+                .respond(HttpResponse.response().withStatusCode(503));
+        mockFile((int) SegmentedDownload.THRESHOLD);
+
+        Path downloaded = downloadSegmented(new OkHttpClient());
+
+        assertArrayEquals(file, Files.readAllBytes(downloaded));
+    }
+
+    @Test
+    public void testServerThatChangedFileFails() throws IOException {
+        mockServer.when(HttpRequest.request().withPath(PATH).withHeader("Range", "bytes=.*"))
+                .respond(HttpResponse.response().withStatusCode(200).withBody(BinaryBody.binary(new byte[10])));
+        mockFile((int) SegmentedDownload.THRESHOLD);
+
+        assertThrows(IOException.class, () -> downloadSegmented(new OkHttpClient()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkSegmentedDownload() throws IOException {
+        mockFile(64 * 1024 * 1024);
+
+        // limit each connection to 4MB/s, which is what makes a single connection the bottleneck in the real world
+        OkHttpClient httpClient = new OkHttpClient.Builder().addNetworkInterceptor(chain -> {
+            Response response = chain.proceed(chain.request());
+            return response.newBuilder().body(new ThrottledResponseBody(response.body(), 4 * 1024 * 1024)).build();
+        }).build();
+
+        long start = System.nanoTime();
+        try (Response response = httpClient.newCall(new Request.Builder().url(getUrl()).build()).execute();
+                InputStream inputStream = response.body().byteStream()) {
+            Files.copy(inputStream, testStorage.resolve("single.zip"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        long singleTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Path downloaded = downloadSegmented(httpClient);
+        long segmentedTime = System.nanoTime() - start;
+
+        assertArrayEquals(file, Files.readAllBytes(downloaded));
+
+        System.out.printf("single connection: %dms%n", singleTime / 1000000);
+        System.out.printf("%d segments: %dms%n", SegmentedDownload.MAX_SEGMENTS, segmentedTime / 1000000);
+    }
+
+    private static class ThrottledResponseBody extends ResponseBody {
+        private final ResponseBody responseBody;
+        private final long bytesPerSecond;
+        private BufferedSource bufferedSource;
+
+        private ThrottledResponseBody(ResponseBody responseBody, long bytesPerSecond) {
+            this.responseBody = responseBody;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return responseBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return responseBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (bufferedSource == null) {
+                bufferedSource = Okio.buffer(new ForwardingSource(responseBody.source()) {
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long bytesRead = super.read(sink, Math.min(byteCount, 16 * 1024));
+
+                        if (bytesRead > 0) {
+                            try {
+                                Thread.sleep(bytesRead * 1000 / bytesPerSecond);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new IOException(e);
+                            }
+                        }
+
+                        return bytesRead;
+                    }
+                });
+            }
+
+            return bufferedSource;
+        }
+    }
+}
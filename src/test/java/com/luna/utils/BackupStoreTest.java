@@ -0,0 +1,246 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.luna.data.BackupMode;
+
+public class BackupStoreTest {
+    @TempDir
+    public Path testStorage;
+
+    private Path writeFile(Path root, String name, byte[] bytes) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+
+        // make the file look like it was last changed well before the backup is taken
+        Files.setLastModifiedTime(file,
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        return file;
+    }
+
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void changeBytes(Path file, long position, byte[] bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(position);
+            raf.write(bytes);
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    public void testBackupAndRestore() throws IOException {
+        Random random = new Random(1);
+        Path instance = testStorage.resolve("instance");
+        byte[] region = randomBytes(random, BackupStore.CHUNK_SIZE * 3 + 17);
+        writeFile(instance, "saves/world/region/r.0.0.mca", region);
+        writeFile(instance, "config/mod.cfg", "enabled=true".getBytes(StandardCharsets.UTF_8));
+        writeFile(instance, "options.txt", new byte[0]);
+        writeFile(instance, "logs/latest.log", "not backed up".getBytes(StandardCharsets.UTF_8));
+
+        BackupStore store = new BackupStore(testStorage.resolve("store"));
+        BackupStore.Snapshot snapshot = store.backup("instance", instance,
+                ZipNameMapper.getMapperForBackupMode(BackupMode.NORMAL));
+
+        assertEquals(3, snapshot.files.size());
+
+        Path restored = testStorage.resolve("restored");
+        store.restore("instance", snapshot.id, restored);
+
+        assertArrayEquals(region, Files.readAllBytes(restored.resolve("saves/world/region/r.0.0.mca")));
+        assertEquals("enabled=true", new String(Files.readAllBytes(restored.resolve("config/mod.cfg")),
+                StandardCharsets.UTF_8));
+        assertEquals(0, Files.size(restored.resolve("options.txt")));
+        assertFalse(Files.exists(restored.resolve("logs/latest.log")));
+    }
+
+    @Test
+    public void testRestoreRemovesFilesAddedSinceBackup() throws IOException {
+        Random random = new Random(5);
+        Path instance = testStorage.resolve("instance");
+        byte[] region = randomBytes(random, BackupStore.CHUNK_SIZE + 3);
+        writeFile(instance, "saves/world/region/r.0.0.mca", region);
+        writeFile(instance, "options.txt", "fov:70".getBytes(StandardCharsets.UTF_8));
+
+        BackupStore store = new BackupStore(testStorage.resolve("store"));
+        BackupStore.Snapshot snapshot = store.backup("instance", instance,
+                ZipNameMapper.getMapperForBackupMode(BackupMode.NORMAL));
+
+        // play on after the backup, exploring further and creating a new world
+        writeFile(instance, "saves/world/region/r.0.1.mca", randomBytes(random, 100));
+        writeFile(instance, "saves/new world/level.dat", randomBytes(random, 100));
+        writeFile(instance, "options.txt", "fov:90".getBytes(StandardCharsets.UTF_8));
+        writeFile(instance, "mods/mod.jar", randomBytes(random, 100));
+
+        store.restore("instance", snapshot.id, instance);
+
+        assertArrayEquals(region, Files.readAllBytes(instance.resolve("saves/world/region/r.0.0.mca")));
+        assertEquals("fov:70", new String(Files.readAllBytes(instance.resolve("options.txt")),
+                StandardCharsets.UTF_8));
+        assertFalse(Files.exists(instance.resolve("saves/world/region/r.0.1.mca")));
+        assertFalse(Files.exists(instance.resolve("saves/new world")));
+
+        // mods weren't backed up, so they're left alone
+        assertTrue(Files.exists(instance.resolve("mods/mod.jar")));
+    }
+
+    @Test
+    public void testOnlyChangedChunksAreStored() throws IOException {
+        Random random = new Random(2);
+        Path instance = testStorage.resolve("instance");
+        byte[] original = randomBytes(random, BackupStore.CHUNK_SIZE * 8);
+        Path region = writeFile(instance, "saves/world/region/r.0.0.mca", original);
+        writeFile(instance, "saves/world/region/r.0.1.mca", randomBytes(random, BackupStore.CHUNK_SIZE * 8));
+
+        BackupStore store = new BackupStore(testStorage.resolve("store"));
+        BackupStore.Snapshot first = store.backup("instance", instance, ZipNameMapper.FULL_BACKUP);
+        assertEquals(BackupStore.CHUNK_SIZE * 16, first.bytesRead);
+
+        // change a couple of bytes in a single chunk of one region file
+        changeBytes(region, BackupStore.CHUNK_SIZE * 2 + 5, new byte[] { 1, 2 });
+        Files.setLastModifiedTime(region,
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30)));
+
+        BackupStore.Snapshot second = store.backup("instance", instance, ZipNameMapper.FULL_BACKUP);
+
+        // only the changed file is read again, and only its changed chunk is stored
+        assertEquals(BackupStore.CHUNK_SIZE * 8, second.bytesRead);
+        assertTrue(second.bytesStored > 0 && second.bytesStored < BackupStore.CHUNK_SIZE * 2);
+
+        Path restored = testStorage.resolve("restored");
+        store.restore("instance", first.id, restored);
+        assertArrayEquals(original, Files.readAllBytes(restored.resolve("saves/world/region/r.0.0.mca")));
+
+        store.restore("instance", second.id, restored);
+        assertArrayEquals(Files.readAllBytes(region),
+                Files.readAllBytes(restored.resolve("saves/world/region/r.0.0.mca")));
+    }
+
+    @Test
+    public void testPruneRemovesUnusedChunks() throws IOException {
+        Random random = new Random(3);
+        Path instance = testStorage.resolve("instance");
+        Path store = testStorage.resolve("store");
+        BackupStore backupStore = new BackupStore(store);
+
+        for (int i = 0; i < 3; i++) {
+            writeFile(instance, "saves/world/level.dat", randomBytes(random, BackupStore.CHUNK_SIZE));
+            backupStore.backup("instance", instance, ZipNameMapper.FULL_BACKUP);
+        }
+
+        assertEquals(3, backupStore.getSnapshotIds("instance").size());
+
+        long freed = backupStore.prune("instance", 1);
+
+        assertEquals(1, backupStore.getSnapshotIds("instance").size());
+        assertTrue(freed > 0);
+        try (Stream<Path> chunkDirs = Files.list(store.resolve("chunks"))) {
+            assertEquals(1, chunkDirs.mapToLong(dir -> dir.toFile().list().length).sum());
+        }
+
+        Path restored = testStorage.resolve("restored");
+        backupStore.restore("instance", backupStore.getSnapshotIds("instance").get(0), restored);
+        assertArrayEquals(Files.readAllBytes(instance.resolve("saves/world/level.dat")),
+                Files.readAllBytes(restored.resolve("saves/world/level.dat")));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkBackups() throws IOException {
+        Random random = new Random(4);
+        Path instance = testStorage.resolve("instance");
+
+        // a world with 64 region files of 4MB each, which like real region files are mostly already compressed data
+        for (int i = 0; i < 64; i++) {
+            writeFile(instance, "saves/world/region/r." + (i / 8) + "." + (i % 8) + ".mca",
+                    randomBytes(random, 4 * 1024 * 1024));
+        }
+        for (int i = 0; i < 200; i++) {
+            StringBuilder config = new StringBuilder();
+            for (int line = 0; line < 100; line++) {
+                config.append("option").append(line).append('=').append(random.nextInt(1000)).append('\n');
+            }
+            writeFile(instance, "config/mod" + i + ".cfg", config.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // what happens today, a full zip every time
+        long start = System.nanoTime();
+        ArchiveUtils.createZip(instance, testStorage.resolve("backup.zip"),
+                ZipNameMapper.getMapperForBackupMode(BackupMode.NORMAL));
+        long zipTime = System.nanoTime() - start;
+        long zipBytes = Files.size(testStorage.resolve("backup.zip"));
+
+        BackupStore store = new BackupStore(testStorage.resolve("store"));
+        start = System.nanoTime();
+        BackupStore.Snapshot first = store.backup("instance", instance,
+                ZipNameMapper.getMapperForBackupMode(BackupMode.NORMAL));
+        long firstTime = System.nanoTime() - start;
+
+        // a play session that touched a few region files and a config file
+        for (int i = 0; i < 4; i++) {
+            Path region = instance.resolve("saves/world/region/r.0." + i + ".mca");
+            changeBytes(region, random.nextInt(4 * 1024 * 1024 - 8192), randomBytes(random, 8192));
+            Files.setLastModifiedTime(region,
+                    FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30)));
+        }
+        writeFile(instance, "config/mod0.cfg", "option0=changed\n".getBytes(StandardCharsets.UTF_8));
+
+        start = System.nanoTime();
+        BackupStore.Snapshot second = store.backup("instance", instance,
+                ZipNameMapper.getMapperForBackupMode(BackupMode.NORMAL));
+        long secondTime = System.nanoTime() - start;
+
+        System.out.printf("full zip: %dms %dKB%n", zipTime / 1000000, zipBytes / 1024);
+        System.out.printf("first incremental backup: %dms %dKB stored%n", firstTime / 1000000,
+                first.bytesStored / 1024);
+        System.out.printf("second incremental backup: %dms %dKB read %dKB stored%n", secondTime / 1000000,
+                second.bytesRead / 1024, second.bytesStored / 1024);
+        System.out.printf("store size after both backups: %dKB%n",
+                directorySize(testStorage.resolve("store")) / 1024);
+    }
+}
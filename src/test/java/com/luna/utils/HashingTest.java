@@ -0,0 +1,141 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sangupta.murmur.Murmur2;
+
+public class HashingTest {
+    @TempDir
+    public Path testStorage;
+
+    /**
+     * The original in memory implementation, kept to make sure the streaming one gives the same fingerprints.
+     */
+    private static long referenceMurmur(Path file) throws IOException {
+        byte[] bytes = ArrayUtils
+                .removeAllOccurrences(ArrayUtils.removeAllOccurrences(
+                        ArrayUtils.removeAllOccurrences(
+                                ArrayUtils.removeAllOccurrences(Files.readAllBytes(file), (byte) 9), (byte) 10),
+                        (byte) 13), (byte) 32);
+
+        return Murmur2.hash(bytes, bytes.length, 1L);
+    }
+
+    private Path writeFile(String name, byte[] bytes) throws IOException {
+        Path file = testStorage.resolve(name);
+        Files.write(file, bytes);
+        return file;
+    }
+
+    @Test
+    public void testMurmur() throws IOException {
+        Path empty = writeFile("empty", new byte[0]);
+        assertEquals(referenceMurmur(empty), Hashing.murmur(empty));
+
+        Path text = writeFile("text", "{\n\t\"modid\": \"examplemod\",\r\n  \"version\": \"1.0\"\n}"
+                .getBytes(StandardCharsets.UTF_8));
+        assertEquals(referenceMurmur(text), Hashing.murmur(text));
+
+        Path whitespace = writeFile("whitespace", new byte[] { 9, 10, 13, 32, 32, 10 });
+        assertEquals(referenceMurmur(whitespace), Hashing.murmur(whitespace));
+    }
+
+    @Test
+    public void testThatMurmurMatchesForAllTrailingByteCounts() throws IOException {
+        Random random = new Random(1337);
+
+        // covers every remainder after the 4 byte blocks, with negative bytes in the tail
+        for (int length = 1; length <= 12; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            bytes[length - 1] = (byte) 0xF0;
+
+            Path file = writeFile("tail-" + length, bytes);
+            assertEquals(referenceMurmur(file), Hashing.murmur(file));
+        }
+    }
+
+    @Test
+    public void testThatMurmurMatchesForFilesLargerThanTheBuffer() throws IOException {
+        Random random = new Random(42);
+        byte[] bytes = new byte[(1024 * 1024) + 7];
+        random.nextBytes(bytes);
+
+        // sprinkle in plenty of whitespace so the filtering crosses buffer boundaries
+        for (int i = 0; i < bytes.length; i += 5) {
+            bytes[i] = (byte) (i % 2 == 0 ? 32 : 10);
+        }
+
+        Path file = writeFile("large.jar", bytes);
+        assertEquals(referenceMurmur(file), Hashing.murmur(file));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkMurmur() throws IOException {
+        Random random = new Random(7);
+        byte[] bytes = new byte[32 * 1024 * 1024];
+        random.nextBytes(bytes);
+        Path file = writeFile("benchmark.jar", bytes);
+
+        // warm up both paths before timing them
+        for (int i = 0; i < 3; i++) {
+            referenceMurmur(file);
+            Hashing.murmur(file);
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int iterations = 10;
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            referenceMurmur(file);
+        }
+        long referenceTime = System.nanoTime() - start;
+        long referenceAllocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Hashing.murmur(file);
+        }
+        long streamingTime = System.nanoTime() - start;
+        long streamingAllocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("murmur of 32MB file: in memory %dms/op %dKB/op, streaming %dms/op %dKB/op%n",
+                referenceTime / iterations / 1000000, referenceAllocated / iterations / 1024,
+                streamingTime / iterations / 1000000, streamingAllocated / iterations / 1024);
+    }
+}
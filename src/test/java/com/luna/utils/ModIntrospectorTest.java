@@ -0,0 +1,116 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.luna.data.minecraft.ModMetadata;
+
+public class ModIntrospectorTest {
+    @TempDir
+    public Path testStorage;
+
+    private Path createJar(String... namesAndContents) throws IOException {
+        Path jar = testStorage.resolve("mod" + System.nanoTime() + ".jar");
+
+        try (OutputStream os = Files.newOutputStream(jar); ZipOutputStream zos = new ZipOutputStream(os)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zos.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+
+        return jar;
+    }
+
+    @Test
+    public void testReadsMcModInfo() throws IOException {
+        ModMetadata metadata = ModIntrospector.read(createJar("mcmod.info",
+                "[{\"modid\": \"test\", \"name\": \"Test Mod\", \"version\": \"1.0\", \"description\": \"A mod\"}]"));
+
+        assertEquals("test", metadata.id);
+        assertEquals("Test Mod", metadata.name);
+        assertEquals("1.0", metadata.version);
+        assertEquals("A mod", metadata.description);
+    }
+
+    @Test
+    public void testReadsFabricModJson() throws IOException {
+        ModMetadata metadata = ModIntrospector.read(createJar("assets/test/icon.png", "",
+                "fabric.mod.json", "{\"id\": \"test\", \"name\": \"Test Mod\", \"version\": \"2.0\"}"));
+
+        assertEquals("Test Mod", metadata.name);
+        assertEquals("2.0", metadata.version);
+    }
+
+    @Test
+    public void testReadsQuiltModJson() throws IOException {
+        ModMetadata metadata = ModIntrospector.read(createJar("quilt.mod.json",
+                "{\"quilt_loader\": {\"id\": \"test\", \"version\": \"3.0\", "
+                        + "\"metadata\": {\"name\": \"Test Mod\", \"description\": \"A quilt mod\"}}}"));
+
+        assertEquals("Test Mod", metadata.name);
+        assertEquals("3.0", metadata.version);
+        assertEquals("A quilt mod", metadata.description);
+    }
+
+    @Test
+    public void testReadsModsTomlWithVersionFromManifest() throws IOException {
+        ModMetadata metadata = ModIntrospector.read(createJar("META-INF/MANIFEST.MF",
+                "Manifest-Version: 1.0\r\nImplementation-Version: 4.0.1\r\n\r\n", "META-INF/mods.toml",
+                "modLoader=\"javafml\"\n[[mods]]\nmodId=\"test\"\nversion=\"${file.jarVersion}\"\n"
+                        + "displayName=\"Test Mod\"\ndescription='''\nA forge mod\n'''\n"
+                        + "[[dependencies.test]]\nmodId=\"forge\"\n"));
+
+        assertEquals("test", metadata.id);
+        assertEquals("Test Mod", metadata.name);
+        assertEquals("4.0.1", metadata.version);
+        assertEquals("A forge mod", metadata.description);
+    }
+
+    @Test
+    public void testEmptyWhenNoMetadata() throws IOException {
+        assertTrue(ModIntrospector.read(createJar("com/example/Test.class", "")).isEmpty());
+        assertTrue(ModIntrospector.read(testStorage.resolve("missing.jar")).isEmpty());
+    }
+
+    @Test
+    public void testParsesOnlyFirstModFromToml() {
+        Map<String, String> mod = ModIntrospector.parseFirstModFromToml("[[mods]]\n  modId = \"first\" # comment\n"
+                + "  displayName = 'Literal \"Name\"'\n[[mods]]\nmodId=\"second\"\n");
+
+        assertEquals("first", mod.get("modId"));
+        assertEquals("Literal \"Name\"", mod.get("displayName"));
+        assertNull(mod.get("version"));
+    }
+}
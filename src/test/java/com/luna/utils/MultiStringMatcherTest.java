@@ -0,0 +1,99 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class MultiStringMatcherTest {
+    @Test
+    public void testFindFirstAndLast() {
+        List<String> patterns = Arrays.asList("[INFO]", "INFO", "NFO]", "CONFLICT", "[main/INFO]");
+        MultiStringMatcher matcher = new MultiStringMatcher(patterns);
+        String text = "[12:00:00] [main/INFO]: CONFLICT [INFO] done";
+
+        int[] first = new int[patterns.size()];
+        int[] last = new int[patterns.size()];
+        matcher.findFirstAndLast(text, first, last);
+
+        for (int i = 0; i < patterns.size(); i++) {
+            assertEquals(text.indexOf(patterns.get(i)), first[i], patterns.get(i));
+            assertEquals(text.lastIndexOf(patterns.get(i)), last[i], patterns.get(i));
+        }
+    }
+
+    @Test
+    public void testThatMatchesAgreeWithIndexOf() {
+        Random random = new Random(1234);
+        List<String> patterns = Arrays.asList("ab", "abab", "b", "bba", "aaa", "ba", "\u00e9a");
+        MultiStringMatcher matcher = new MultiStringMatcher(patterns);
+
+        int[] first = new int[patterns.size()];
+        int[] last = new int[patterns.size()];
+
+        for (int iteration = 0; iteration < 500; iteration++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                sb.append("ab\u00e9c".charAt(random.nextInt(4)));
+            }
+            String text = sb.toString();
+
+            matcher.findFirstAndLast(text, first, last);
+
+            for (int i = 0; i < patterns.size(); i++) {
+                assertEquals(text.indexOf(patterns.get(i)), first[i], text);
+                assertEquals(text.lastIndexOf(patterns.get(i)), last[i], text);
+            }
+
+            assertEquals(patterns.stream().anyMatch(text::contains), matcher.containsAny(text), text);
+        }
+    }
+
+    @Test
+    public void testReplaceAll() {
+        MultiStringMatcher matcher = new MultiStringMatcher(
+                Arrays.asList("Steve", "SteveUser", "1234-5678", "12345678", "[INFO]"));
+        String[] replacements = { "**MINECRAFTUSERNAME**", "**MINECRAFTUSERNAME**", "**UUID**", "**UUID**", null };
+
+        assertEquals("[INFO] Hello **MINECRAFTUSERNAME** (**UUID**/**UUID**), **MINECRAFTUSERNAME**",
+                matcher.replaceAll("[INFO] Hello SteveUser (1234-5678/12345678), Steve", replacements));
+        assertEquals("nothing to see here", matcher.replaceAll("nothing to see here", replacements));
+    }
+
+    @Test
+    public void testEmptyPatternsNeverMatch() {
+        MultiStringMatcher matcher = new MultiStringMatcher(Arrays.asList("", "x"));
+
+        int[] first = new int[2];
+        int[] last = new int[2];
+        matcher.findFirstAndLast("abc", first, last);
+
+        assertArrayEquals(new int[] { -1, -1 }, first);
+        assertFalse(matcher.containsAny("abc"));
+        assertTrue(matcher.containsAny("abx"));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.utils.javafinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JavaInventoryTest {
+    @TempDir
+    public Path testStorage;
+
+    private void writeRelease(String contents) throws IOException {
+        Files.write(testStorage.resolve("release"), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadsReleaseFile() throws IOException {
+        writeRelease("IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"17.0.8.1\"\nOS_ARCH=\"x86_64\"\n");
+
+        JavaInventory.Entry entry = JavaInventory.readReleaseFile(testStorage);
+
+        assertEquals("17.0.8.1", entry.version);
+        assertTrue(entry.is64bits);
+        assertEquals("Eclipse Adoptium", entry.vendor);
+        assertEquals(17, new JavaInfo("/jvm/bin/java", entry).majorVersion);
+    }
+
+    @Test
+    public void testReadsJava8ReleaseFile() throws IOException {
+        writeRelease("JAVA_VERSION=\"1.8.0_392\"\nOS_NAME=\"Windows\"\nOS_ARCH=\"i586\"\n");
+
+        JavaInventory.Entry entry = JavaInventory.readReleaseFile(testStorage);
+        JavaInfo javaInfo = new JavaInfo("/jvm/bin/java", entry);
+
+        assertEquals("1.8.0_392", entry.version);
+        assertFalse(entry.is64bits);
+        assertEquals(8, javaInfo.majorVersion);
+        assertEquals(392, javaInfo.minorVersion);
+    }
+
+    @Test
+    public void testIncompleteReleaseFileIsIgnored() throws IOException {
+        assertNull(JavaInventory.readReleaseFile(testStorage));
+
+        writeRelease("JAVA_VERSION=\"11.0.2\"\n");
+        assertNull(JavaInventory.readReleaseFile(testStorage));
+    }
+
+    @Test
+    public void testParsesVersionOutput() {
+        JavaInventory.Entry entry = JavaInventory.parseVersionOutput("openjdk version \"21.0.1\" 2023-10-17 LTS\n"
+                + "OpenJDK Runtime Environment Temurin-21.0.1+12 (build 21.0.1+12-LTS)\n"
+                + "OpenJDK 64-Bit Server VM Temurin-21.0.1+12 (build 21.0.1+12-LTS, mixed mode, sharing)\n");
+
+        assertEquals("21.0.1", entry.version);
+        assertTrue(entry.is64bits);
+
+        assertNull(JavaInventory.parseVersionOutput("Error: could not open `jvm.cfg'"));
+    }
+
+    @Test
+    public void testParsesVersionOutputAfterPickedUpOptions() {
+        JavaInventory.Entry entry = JavaInventory.parseVersionOutput(
+                "Picked up JAVA_TOOL_OPTIONS: -Dfile.encoding=UTF8 \"-Duser.home=C:\\Users\\Steve\"\n"
+                        + "Picked up _JAVA_OPTIONS: -Xmx2G\n"
+                        + "java version \"1.8.0_391\"\n"
+                        + "Java(TM) SE Runtime Environment (build 1.8.0_391-b13)\n"
+                        + "Java HotSpot(TM) 64-Bit Server VM (build 25.391-b13, mixed mode)\n");
+
+        assertEquals("1.8.0_391", entry.version);
+        assertTrue(entry.is64bits);
+    }
+}
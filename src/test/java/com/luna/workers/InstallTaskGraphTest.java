@@ -0,0 +1,109 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2022 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.luna.workers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class InstallTaskGraphTest {
+    @Test
+    public void testTasksRunAfterTheirDependencies() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        InstallTaskGraph graph = new InstallTaskGraph(() -> false);
+
+        InstallTaskGraph.Task libraries = graph.add("libraries", 5, () -> order.add("libraries"));
+        InstallTaskGraph.Task minecraft = graph.add("minecraft", 5, () -> order.add("minecraft"));
+        InstallTaskGraph.Task loader = graph.add("loader", 5, () -> order.add("loader"), libraries, minecraft);
+        graph.add("configs", 5, () -> order.add("configs"), loader);
+
+        List<Double> finished = Collections.synchronizedList(new ArrayList<>());
+        graph.onTaskFinished(task -> finished.add(task.weight)).run();
+
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf("loader") > order.indexOf("libraries"));
+        assertTrue(order.indexOf("loader") > order.indexOf("minecraft"));
+        assertEquals(3, order.indexOf("configs"));
+        assertEquals(4, finished.size());
+    }
+
+    @Test
+    public void testIndependentTasksRunAtTheSameTime() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        InstallTaskGraph graph = new InstallTaskGraph(() -> false);
+
+        // each of these only finishes once the other has started, so this would time out if they ran in sequence
+        graph.add("resources", 5, () -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+        });
+        graph.add("mods", 25, () -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+        });
+
+        List<Integer> runningCounts = Collections.synchronizedList(new ArrayList<>());
+        graph.onRunningChanged(running -> runningCounts.add(running.size())).run();
+
+        assertTrue(runningCounts.contains(2));
+        assertEquals(0, (int) runningCounts.get(runningCounts.size() - 1));
+    }
+
+    @Test
+    public void testFailureStopsDependentTasks() {
+        IOException failure = new IOException("download failed");
+        AtomicBoolean dependentRan = new AtomicBoolean(false);
+        InstallTaskGraph graph = new InstallTaskGraph(() -> false);
+
+        InstallTaskGraph.Task mods = graph.add("mods", 25, () -> {
+            throw failure;
+        });
+        graph.add("install mods", 25, () -> dependentRan.set(true), mods);
+
+        Exception thrown = assertThrows(Exception.class, graph::run);
+
+        assertSame(failure, thrown);
+        assertFalse(dependentRan.get());
+    }
+
+    @Test
+    public void testNothingStartsOnceCancelled() throws Exception {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicBoolean dependentRan = new AtomicBoolean(false);
+        InstallTaskGraph graph = new InstallTaskGraph(cancelled::get);
+
+        InstallTaskGraph.Task libraries = graph.add("libraries", 5, () -> cancelled.set(true));
+        graph.add("loader", 5, () -> dependentRan.set(true), libraries);
+
+        graph.run();
+
+        assertFalse(dependentRan.get());
+    }
+}